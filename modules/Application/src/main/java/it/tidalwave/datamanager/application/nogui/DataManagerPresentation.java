@@ -27,7 +27,15 @@
 package it.tidalwave.datamanager.application.nogui;
 
 import jakarta.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.io.OutputStream;
 import it.tidalwave.role.ui.PresentationModel;
+import it.tidalwave.datamanager.model.Backup;
+import it.tidalwave.datamanager.model.ManagedFile;
 
 /***********************************************************************************************************************
  *
@@ -39,9 +47,46 @@ import it.tidalwave.role.ui.PresentationModel;
  **********************************************************************************************************************/
 public interface DataManagerPresentation
   {
+    /** The timer of whole renderings and exports, tagged by type and format. */
+    public static final String METER_RENDERINGS = "renderings";
+
+    /** The counter of rendered and exported items, tagged by type and format. */
+    public static final String METER_RENDERED_ITEMS = "rendered.items";
+
+    /*******************************************************************************************************************
+     *
+     * The format of listings.
+     *
+     ******************************************************************************************************************/
+    public enum Format
+      {
+        /** Human-readable text, rendered from a {@link PresentationModel}. */
+        TEXT,
+        /** A JSON object per line. */
+        NDJSON,
+        /** Comma-separated values, with a header line. */
+        CSV;
+
+        /***************************************************************************************************************
+         *
+         * Returns the format with the given name, regardless of the case.
+         *
+         * @param   name    the name
+         * @return          the format
+         *
+         **************************************************************************************************************/
+        @Nonnull
+        public static Optional<Format> of (@Nonnull final String name)
+          {
+            final var upperCaseName = name.toUpperCase(Locale.ROOT);
+            return Arrays.stream(values()).filter(f -> f.name().equals(upperCaseName)).findFirst();
+          }
+      }
+
     /*******************************************************************************************************************
      *
-     * Render managed files.
+     * Render managed files. The children of the presentation model might be created while they are iterated, so they
+     * must be iterated only once.
      *
      * @param   managedFiles        the files
      *
@@ -50,13 +95,38 @@ public interface DataManagerPresentation
 
     /*******************************************************************************************************************
      *
-     * Render backups.
+     * Render backups. The children of the presentation model might be created while they are iterated, so they must
+     * be iterated only once.
      *
      * @param   backupsPm           the backups
      *
      ******************************************************************************************************************/
     public void renderBackups (@Nonnull PresentationModel backupsPm);
 
+    /*******************************************************************************************************************
+     *
+     * Exports managed files in a machine-readable format. Records are written as soon as they are read from the stream.
+     *
+     * @param   managedFiles        the files
+     * @param   withFingerprints    whether fingerprints must be exported too
+     * @param   format              the format, other than {@link Format#TEXT}
+     *
+     ******************************************************************************************************************/
+    public void exportManagedFiles (@Nonnull Stream<ManagedFile> managedFiles,
+                                    boolean withFingerprints,
+                                    @Nonnull Format format);
+
+    /*******************************************************************************************************************
+     *
+     * Exports backups in a machine-readable format. Records are written as soon as they are read from the stream.
+     *
+     * @param   backups             the backups
+     * @param   withFiles           whether the files in the backups must be exported too
+     * @param   format              the format, other than {@link Format#TEXT}
+     *
+     ******************************************************************************************************************/
+    public void exportBackups (@Nonnull Stream<Backup> backups, boolean withFiles, @Nonnull Format format);
+
     /*******************************************************************************************************************
      *
      * Output a line to the console.
@@ -74,4 +144,27 @@ public interface DataManagerPresentation
      *
      ******************************************************************************************************************/
     public void notifyError (@Nonnull String string);
+
+    /*******************************************************************************************************************
+     *
+     * Runs a task sending its output to the given stream and its errors to the given consumer, instead of the terminal.
+     * It's meant to serve requests coming from elsewhere, one at a time. When the task completes, the output has been
+     * flushed.
+     *
+     * @param   output      the stream for the output
+     * @param   errors      the consumer of errors
+     * @param   task        the task
+     *
+     ******************************************************************************************************************/
+    public void redirect (@Nonnull OutputStream output, @Nonnull Consumer<String> errors, @Nonnull Runnable task);
+
+    /*******************************************************************************************************************
+     *
+     * Makes sure that everything has been shown. Implementations may buffer the output, so this must be called at the
+     * end of each command.
+     *
+     ******************************************************************************************************************/
+    public default void flush()
+      {
+      }
   }
@@ -28,6 +28,9 @@ package it.tidalwave.datamanager.application.nogui;
 
 import jakarta.annotation.Nonnull;
 import java.util.Optional;
+import java.nio.file.Path;
+import it.tidalwave.datamanager.model.DataManager.ScanMode;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentation.Format;
 import lombok.Builder;
 import lombok.Builder.Default;
 import lombok.EqualsAndHashCode;
@@ -78,6 +81,12 @@ public interface DataManagerPresentationControl
               {
                 return missingFiles(true);
               }
+
+            @Nonnull @Tolerate
+            public Builder count()
+              {
+                return count(true);
+              }
           }
 
         /** Render fingerprints too. */
@@ -98,6 +107,13 @@ public interface DataManagerPresentationControl
         /** Filter output only to files no more present in the filesystem. */
         public final boolean missingFiles;
 
+        /** Only render the number of files. */
+        public final boolean count;
+
+        /** The output format. */
+        @Nonnull @Default
+        public final Format format = Format.TEXT;
+
         // Syntactic sugar
         @Nonnull
         public static ManagedFileOptions.Builder with()
@@ -140,6 +156,12 @@ public interface DataManagerPresentationControl
               {
                 return renderFiles(true);
               }
+
+            @Nonnull @Tolerate
+            public Builder count()
+              {
+                return count(true);
+              }
           }
 
         /** The label. */
@@ -155,6 +177,13 @@ public interface DataManagerPresentationControl
         /** Render files too. */
         public final boolean renderFiles;
 
+        /** Only render the number of backups. */
+        public final boolean count;
+
+        /** The output format. */
+        @Nonnull @Default
+        public final Format format = Format.TEXT;
+
         // Syntactic sugar
         @Nonnull
         public static BackupOptions.Builder with()
@@ -169,6 +198,56 @@ public interface DataManagerPresentationControl
           }
       }
 
+    @Builder(builderClassName = "Builder") @ToString @EqualsAndHashCode
+    public static class DuplicateOptions
+      {
+        public static class Builder
+          {
+            @Nonnull @Tolerate
+            public Builder minSize (final long minSize)
+              {
+                return minSize(Optional.of(minSize));
+              }
+
+            @Nonnull @Tolerate
+            public Builder maxSize (final long maxSize)
+              {
+                return maxSize(Optional.of(maxSize));
+              }
+
+            @Nonnull @Tolerate
+            public Builder pathPrefix (@Nonnull final String pathPrefix)
+              {
+                return pathPrefix(Optional.of(pathPrefix));
+              }
+          }
+
+        /** Filter files at least this large. */
+        @Nonnull @Default
+        public final Optional<Long> minSize = Optional.empty();
+
+        /** Filter files at most this large. */
+        @Nonnull @Default
+        public final Optional<Long> maxSize = Optional.empty();
+
+        /** Filter files whose path starts with this prefix. */
+        @Nonnull @Default
+        public final Optional<String> pathPrefix = Optional.empty();
+
+        // Syntactic sugar
+        @Nonnull
+        public static DuplicateOptions.Builder with()
+          {
+            return builder();
+          }
+
+        @Nonnull
+        public static DuplicateOptions.Builder withDefaultOptions()
+          {
+            return builder();
+          }
+      }
+
     /*******************************************************************************************************************
      *
      * Render managed files.
@@ -230,4 +309,56 @@ public interface DataManagerPresentationControl
      *
      ******************************************************************************************************************/
     public void renderBackups (@Nonnull BackupOptions options);
+
+    /*******************************************************************************************************************
+     *
+     * Scans a folder, registers the fingerprints of its files and renders a summary.
+     *
+     * @param   folder    the folder
+     * @param   mode      the scan mode
+     *
+     ******************************************************************************************************************/
+    public void scan (@Nonnull Path folder, @Nonnull ScanMode mode);
+
+    /*******************************************************************************************************************
+     *
+     * Verifies the backup selected by the label or the volume id in the options, rendering the issues and a summary.
+     *
+     * @param   options   the options
+     *
+     ******************************************************************************************************************/
+    public default void verifyBackup (@Nonnull final BackupOptions.Builder options)
+      {
+        verifyBackup(options.build());
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Verifies the backup selected by the label or the volume id in the options, rendering the issues and a summary.
+     *
+     * @param   options   the options
+     *
+     ******************************************************************************************************************/
+    public void verifyBackup (@Nonnull BackupOptions options);
+
+    /*******************************************************************************************************************
+     *
+     * Renders the groups of managed files with the same contents and a summary.
+     *
+     * @param   options   the options
+     *
+     ******************************************************************************************************************/
+    public default void renderDuplicates (@Nonnull final DuplicateOptions.Builder options)
+      {
+        renderDuplicates(options.build());
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Renders the groups of managed files with the same contents and a summary.
+     *
+     * @param   options   the options
+     *
+     ******************************************************************************************************************/
+    public void renderDuplicates (@Nonnull DuplicateOptions options);
   }
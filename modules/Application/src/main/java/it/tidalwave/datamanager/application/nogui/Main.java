@@ -36,8 +36,6 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.slf4j.LoggerFactory;
 import it.tidalwave.util.PreferencesHandler;
 import it.tidalwave.role.impl.ServiceLoaderLocator;
-import it.tidalwave.role.spi.SystemRoleFactory;
-import it.tidalwave.role.spring.spi.AnnotationSpringSystemRoleFactory;
 import it.tidalwave.datamanager.dao.impl.jpa.JpaDataManagerDao;
 
 /***********************************************************************************************************************
@@ -67,15 +65,6 @@ public class Main
         SpringApplication.run(Main.class, args);
       }
 
-    /*******************************************************************************************************************
-     * Enables the DCI role annotation scanner.
-     ******************************************************************************************************************/
-    @Bean
-    public AnnotationSpringSystemRoleFactory annotationSpringSystemRoleFactory()
-      {
-        return (AnnotationSpringSystemRoleFactory)SystemRoleFactory.getInstance();
-      }
-
     /*******************************************************************************************************************
      *
      ******************************************************************************************************************/
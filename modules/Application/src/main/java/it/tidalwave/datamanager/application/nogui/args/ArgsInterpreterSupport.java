@@ -68,7 +68,14 @@ public abstract class ArgsInterpreterSupport implements ApplicationRunner
               }
             else
               {
-                doRun(args);
+                try
+                  {
+                    doRun(args);
+                  }
+                finally
+                  {
+                    presentation.flush();
+                  }
               }
           }
       }
@@ -59,6 +59,21 @@ public final class ArgumentsUtils
         return getStringOption(args, name).map(Integer::parseInt);
       }
 
+    /*******************************************************************************************************************
+     *
+     * Extracts an optional long option.
+     *
+     * @param   args    the argument
+     * @param   name    the name of the option
+     * @return          the value of the option
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public static Optional<Long> getLongOption (@Nonnull final ApplicationArguments args, @Nonnull final String name)
+      {
+        return getStringOption(args, name).map(Long::parseLong);
+      }
+
     /*******************************************************************************************************************
      *
      * Extracts an optional string option.
@@ -0,0 +1,398 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.args;
+
+import jakarta.annotation.Nonnull;
+import jakarta.inject.Provider;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ProtocolException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentation;
+import it.tidalwave.datamanager.application.nogui.daemon.DaemonProtocol;
+import it.tidalwave.datamanager.dao.impl.jpa.CacheEvictor;
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import static it.tidalwave.datamanager.application.nogui.args.ArgumentsUtils.getStringOption;
+import static it.tidalwave.datamanager.application.nogui.daemon.DaemonProtocol.*;
+
+/***********************************************************************************************************************
+ *
+ * The command line args interpreter for the {@code daemon} command. It keeps the application running, listening on a
+ * Unix domain socket for the commands sent by {@link it.tidalwave.datamanager.application.nogui.daemon.DaemonClient},
+ * so they are served without paying again for the startup and with warm caches.
+ *
+ * Commands are served one at a time, by the same interpreters used for the command line, with their output sent back
+ * through the socket. Only the commands in {@link #SERVED_COMMANDS} are accepted. The daemon is stopped by terminating
+ * the process.
+ *
+ * Since other processes can change the database meanwhile, the second-level and query caches are evicted before a
+ * request if the database has changed since the previous one (see {@link CacheEvictor}); otherwise the request is
+ * served with the caches warmed up by the previous ones. Since requests are served one at a time, a client that doesn't
+ * send its request within {@link #REQUEST_TIMEOUT} is disconnected, so it can't block the others. The socket is only
+ * accessible to the owner of the process: where supported, it's bound in a private folder and then moved in place,
+ * so it's never exposed with wider permissions.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Component @Order(0) @Slf4j
+public class DaemonArgsInterpreter extends ArgsInterpreterSupport implements UsageCapable
+  {
+    /** The commands that can be sent to the daemon. */
+    public static final List<String> SERVED_COMMANDS = List.of("list-files", "list-backups");
+
+    /** The time a client has to send its request after connecting. */
+    public static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final String COMMAND = "daemon";
+    private static final String O_SOCKET = "socket";
+
+    @Nonnull
+    private final DataManagerPresentation presentation;
+
+    @Nonnull
+    private final UsageArgsInterpreter usageArgsInterpreter;
+
+    @Nonnull
+    private final Provider<List<ArgsInterpreterSupport>> argsInterpreters;
+
+    @Nonnull
+    private final CacheEvictor cacheEvictor;
+
+    @Setter(AccessLevel.PACKAGE) @Nonnull
+    private Duration requestTimeout = REQUEST_TIMEOUT;
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    public DaemonArgsInterpreter (@Nonnull final DataManagerPresentation presentation,
+                                  @Nonnull final UsageArgsInterpreter usageArgsInterpreter,
+                                  @Nonnull final Provider<List<ArgsInterpreterSupport>> argsInterpreters,
+                                  @Nonnull final CacheEvictor cacheEvictor)
+      {
+        super(COMMAND, Set.of(O_SOCKET), presentation);
+        this.presentation = presentation;
+        this.usageArgsInterpreter = usageArgsInterpreter;
+        this.argsInterpreters = argsInterpreters;
+        this.cacheEvictor = cacheEvictor;
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    protected void doRun (@Nonnull final ApplicationArguments args)
+      {
+        usageArgsInterpreter.disableUsage();
+        final var socket = getStringOption(args, O_SOCKET).map(Path::of)
+                                                         .orElseGet(DaemonProtocol::getDefaultSocketPath);
+
+        try
+          {
+            if (isListening(socket))
+              {
+                presentation.notifyError("Another daemon is listening on " + socket);
+              }
+            else
+              {
+                serve(socket);
+              }
+          }
+        catch (IOException e)
+          {
+            log.error("", e);
+            presentation.notifyError("The daemon on %s failed: %s".formatted(socket, e.getMessage()));
+          }
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    public void printUsage()
+      {
+        presentation.output("""
+            solidblue3 %1$s [--%2$s=<path>]
+                       serves %3$s commands sent by the client on a Unix domain socket
+                       --%2$s=<path>       the path of the socket (default: %4$s in the application folder)
+            """.formatted(COMMAND, O_SOCKET, String.join(" and ", SERVED_COMMANDS), SOCKET_NAME));
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private void serve (@Nonnull final Path socket)
+            throws IOException
+      {
+        // A socket left behind by a daemon that was killed prevents binding
+        Files.deleteIfExists(socket);
+        final var watchdog = createWatchdog();
+
+        try (final var server = ServerSocketChannel.open(StandardProtocolFamily.UNIX))
+          {
+            bindPrivately(server, socket);
+            socket.toFile().deleteOnExit();
+            log.info("Listening on {}", socket);
+            presentation.output("Listening on " + socket);
+            presentation.flush();
+
+            for (;;)
+              {
+                try (final var channel = server.accept())
+                  {
+                    serveRequest(channel, watchdog);
+                  }
+                catch (IOException | UncheckedIOException e)
+                  {
+                    if (!server.isOpen()) // e.g. the thread has been interrupted
+                      {
+                        throw e;
+                      }
+
+                    log.warn("While serving a request", e);
+                  }
+              }
+          }
+        finally
+          {
+            watchdog.shutdownNow();
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Serves a request, running the interpreters of the command line with the output redirected to the client. If the
+     * request is not read within the timeout, the watchdog closes the channel, which makes the read fail.
+     *
+     ******************************************************************************************************************/
+    private void serveRequest (@Nonnull final SocketChannel channel, @Nonnull final ScheduledExecutorService watchdog)
+            throws IOException
+      {
+        final var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        final var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        final var timeout = watchdog.schedule(() -> closeTimedOut(channel), requestTimeout.toMillis(),
+                                              TimeUnit.MILLISECONDS);
+        final List<String> request;
+
+        try
+          {
+            request = readRequest(in);
+          }
+        catch (ProtocolException e)
+          {
+            log.warn("Invalid request: {}", e.getMessage());
+            writeError(out, "Invalid request: " + e.getMessage());
+            writeExit(out, 1);
+            return;
+          }
+        finally
+          {
+            timeout.cancel(false);
+          }
+
+        log.info("Request: {}", request);
+        final var args = new DefaultApplicationArguments(request.toArray(new String[0]));
+        final var commands = args.getNonOptionArgs();
+
+        if (commands.isEmpty() || !SERVED_COMMANDS.contains(commands.get(0)))
+          {
+            writeError(out, "The daemon only serves %s".formatted(String.join(", ", SERVED_COMMANDS)));
+            writeExit(out, 1);
+            return;
+          }
+
+        cacheEvictor.evictIfDatabaseChanged();
+        final var failed = new AtomicBoolean();
+        final var time = System.nanoTime();
+
+        try
+          {
+            presentation.redirect(outputStream(out), error ->
+              {
+                try
+                  {
+                    failed.set(true);
+                    writeError(out, error);
+                  }
+                catch (IOException e)
+                  {
+                    throw new UncheckedIOException(e);
+                  }
+              }, () ->
+              {
+                usageArgsInterpreter.enableUsage();
+                argsInterpreters.get().stream().filter(i -> i != this).forEach(i -> i.run(args));
+                usageArgsInterpreter.run(args);
+              });
+          }
+        catch (UncheckedIOException e)
+          {
+            throw e;
+          }
+        catch (RuntimeException e)
+          {
+            // Don't let a failing command stop the daemon
+            log.error("While serving " + request, e);
+            failed.set(true);
+            writeError(out, "Error: " + e);
+          }
+
+        writeExit(out, failed.get() ? 1 : 0);
+        log.info(">>>> served in {} msec", (System.nanoTime() - time) / 1_000_000);
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private static boolean isListening (@Nonnull final Path socket)
+            throws IOException
+      {
+        if (!Files.exists(socket))
+          {
+            return false;
+          }
+
+        try (final var channel = SocketChannel.open(StandardProtocolFamily.UNIX))
+          {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            return true;
+          }
+        catch (IOException e)
+          {
+            return false;
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Binds the socket so that it's only accessible to the owner. Where POSIX permissions are supported, it's bound in
+     * a private temporary folder, restricted, and then atomically moved to its path; so other users never have a
+     * chance to connect. Otherwise it's bound in place and restricted afterwards, if possible.
+     *
+     ******************************************************************************************************************/
+    private static void bindPrivately (@Nonnull final ServerSocketChannel server, @Nonnull final Path socket)
+            throws IOException
+      {
+        final Path folder;
+
+        try
+          {
+            folder = Files.createTempDirectory(socket.toAbsolutePath().getParent(), ".sb3-",
+                                               PosixFilePermissions.asFileAttribute(
+                                                       PosixFilePermissions.fromString("rwx------")));
+          }
+        catch (UnsupportedOperationException e)
+          {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            restrictToOwner(socket);
+            return;
+          }
+
+        try
+          {
+            final var privateSocket = folder.resolve(socket.getFileName());
+            server.bind(UnixDomainSocketAddress.of(privateSocket));
+            restrictToOwner(privateSocket);
+            Files.move(privateSocket, socket, StandardCopyOption.ATOMIC_MOVE);
+          }
+        finally
+          {
+            Files.deleteIfExists(folder.resolve(socket.getFileName()));
+            Files.delete(folder);
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private static void closeTimedOut (@Nonnull final SocketChannel channel)
+      {
+        try
+          {
+            log.warn("Closing a connection that didn't send a request in time");
+            channel.close();
+          }
+        catch (IOException e)
+          {
+            log.warn("While closing a connection", e);
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static ScheduledExecutorService createWatchdog()
+      {
+        return Executors.newSingleThreadScheduledExecutor(r ->
+          {
+            final var thread = new Thread(r, "daemon-watchdog");
+            thread.setDaemon(true);
+            return thread;
+          });
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private static void restrictToOwner (@Nonnull final Path socket)
+      {
+        try
+          {
+            Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+          }
+        catch (UnsupportedOperationException | IOException e)
+          {
+            log.warn("Cannot restrict permissions of {}: {}", socket, e.toString());
+          }
+      }
+  }
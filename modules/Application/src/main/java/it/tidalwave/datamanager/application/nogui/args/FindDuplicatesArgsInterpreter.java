@@ -0,0 +1,111 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.args;
+
+import jakarta.annotation.Nonnull;
+import java.util.Set;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentation;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl;
+import static it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl.DuplicateOptions.with;
+import static it.tidalwave.datamanager.application.nogui.args.ArgumentsUtils.*;
+
+/***********************************************************************************************************************
+ *
+ * The command line args interpreter for the {@code find-duplicates} command.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Component @Order(0)
+public class FindDuplicatesArgsInterpreter extends ArgsInterpreterSupport implements UsageCapable
+  {
+    private static final String COMMAND = "find-duplicates";
+    private static final String O_MIN_SIZE = "min-size";
+    private static final String O_MAX_SIZE = "max-size";
+    private static final String O_PATH_PREFIX = "path-prefix";
+
+    @Nonnull
+    private final DataManagerPresentationControl presentationControl;
+
+    @Nonnull
+    private final DataManagerPresentation presentation;
+
+    @Nonnull
+    private final UsageArgsInterpreter usageArgsInterpreter;
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    public FindDuplicatesArgsInterpreter (@Nonnull final DataManagerPresentationControl presentationControl,
+                                          @Nonnull final DataManagerPresentation presentation,
+                                          @Nonnull final UsageArgsInterpreter usageArgsInterpreter)
+      {
+        super(COMMAND, Set.of(O_MIN_SIZE, O_MAX_SIZE, O_PATH_PREFIX), presentation);
+        this.presentationControl = presentationControl;
+        this.presentation = presentation;
+        this.usageArgsInterpreter = usageArgsInterpreter;
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    protected void doRun (@Nonnull final ApplicationArguments args)
+      {
+        final var minSize = getLongOption(args, O_MIN_SIZE);
+        final var maxSize = getLongOption(args, O_MAX_SIZE);
+        final var pathPrefix = getStringOption(args, O_PATH_PREFIX);
+
+        if (minSize.isPresent() && maxSize.isPresent() && (minSize.get() > maxSize.get()))
+          {
+            presentation.notifyError("--%s cannot be greater than --%s".formatted(O_MIN_SIZE, O_MAX_SIZE));
+          }
+        else
+          {
+            usageArgsInterpreter.disableUsage();
+            presentationControl.renderDuplicates(with().minSize(minSize).maxSize(maxSize).pathPrefix(pathPrefix));
+          }
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    public void printUsage()
+      {
+        presentation.output("""
+            solidblue3 %1$s [--%2$s=<bytes>] [--%3$s=<bytes>] [--%4$s=<prefix>]
+                       list groups of files with the same contents
+                       --%2$s=<bytes>      only consider files at least this large
+                       --%3$s=<bytes>      only consider files at most this large
+                       --%4$s=<prefix>  only consider files whose path starts with the prefix
+            """.formatted(COMMAND, O_MIN_SIZE, O_MAX_SIZE, O_PATH_PREFIX));
+      }
+  }
@@ -32,6 +32,7 @@ import org.springframework.boot.ApplicationArguments;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import it.tidalwave.datamanager.application.nogui.DataManagerPresentation;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentation.Format;
 import it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl;
 import lombok.extern.slf4j.Slf4j;
 import static it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl.BackupOptions.with;
@@ -52,6 +53,8 @@ public class ListBackupsArgsInterpreter extends ArgsInterpreterSupport implement
     private static final String O_VOLUME_ID = "volume-id";
     private static final String O_FILE_ID = "file-id";
     private static final String O_FILES = "files";
+    private static final String O_FORMAT = "format";
+    private static final String O_COUNT = "count";
 
     @Nonnull
     private final DataManagerPresentationControl presentationControl;
@@ -69,7 +72,7 @@ public class ListBackupsArgsInterpreter extends ArgsInterpreterSupport implement
                                        @Nonnull final DataManagerPresentation presentation,
                                        @Nonnull final UsageArgsInterpreter usageArgsInterpreter)
       {
-        super(COMMAND, Set.of(O_LABEL, O_VOLUME_ID, O_FILE_ID, O_FILES), presentation);
+        super(COMMAND, Set.of(O_LABEL, O_VOLUME_ID, O_FILE_ID, O_FILES, O_FORMAT, O_COUNT), presentation);
         this.presentationControl = presentationControl;
         this.presentation = presentation;
         this.usageArgsInterpreter = usageArgsInterpreter;
@@ -85,11 +88,23 @@ public class ListBackupsArgsInterpreter extends ArgsInterpreterSupport implement
         final var volumeId = getStringOption(args, O_VOLUME_ID);
         final var renderFiles = args.containsOption(O_FILES);
         final var fileId = getStringOption(args, O_FILE_ID);
-        usageArgsInterpreter.disableUsage();
-        presentationControl.renderBackups(with().label(label)
-                                                .volumeId(volumeId)
-                                                .fileId(fileId)
-                                                .renderFiles(renderFiles));
+        final var formatName = getStringOption(args, O_FORMAT).orElse(Format.TEXT.name());
+        final var format = Format.of(formatName);
+
+        if (format.isEmpty())
+          {
+            presentation.notifyError("Invalid format: %s".formatted(formatName));
+          }
+        else
+          {
+            usageArgsInterpreter.disableUsage();
+            presentationControl.renderBackups(with().label(label)
+                                                    .volumeId(volumeId)
+                                                    .fileId(fileId)
+                                                    .renderFiles(renderFiles)
+                                                    .format(format.get())
+                                                    .count(args.containsOption(O_COUNT)));
+          }
       }
 
     /*******************************************************************************************************************
@@ -100,11 +115,15 @@ public class ListBackupsArgsInterpreter extends ArgsInterpreterSupport implement
       {
         presentation.output("""
             solidblue3 %1$s [--%2$s=<label>] [--%3$s=<volume-id>] [--%4$s=<file-id>] [--%5$s]
+                       [--%6$s=text|ndjson|csv] [--%7$s]
                        list backups on the console
                        --%2$s=<label>         the label of the backup
                        --%3$s=<volume-id> the volume id of the backup
                        --%4$s=<file-id>     the id of a file in the backup
                        --%5$s                 also render files
-            """.formatted(COMMAND, O_LABEL, O_VOLUME_ID, O_FILE_ID, O_FILES));
+                       --%6$s=<format>       the output format: human-readable text (default), a JSON
+                                             object per line or comma-separated values
+                       --%7$s                 only render the number of backups
+            """.formatted(COMMAND, O_LABEL, O_VOLUME_ID, O_FILE_ID, O_FILES, O_FORMAT, O_COUNT));
       }
   }
@@ -27,11 +27,15 @@
 package it.tidalwave.datamanager.application.nogui.args;
 
 import jakarta.annotation.Nonnull;
+import java.util.Optional;
 import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import it.tidalwave.datamanager.application.nogui.DataManagerPresentation;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentation.Format;
 import it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl;
 import static it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl.ManagedFileOptions.with;
 import static it.tidalwave.datamanager.application.nogui.args.ArgumentsUtils.*;
@@ -52,6 +56,8 @@ public class ListManagedFilesArgsInterpreter extends ArgsInterpreterSupport impl
     private static final String O_REGEX = "regex";
     private static final String O_FINGERPRINT = "fingerprint";
     private static final String O_MISSING = "missing";
+    private static final String O_FORMAT = "format";
+    private static final String O_COUNT = "count";
 
     @Nonnull
     private final DataManagerPresentationControl presentationControl;
@@ -69,7 +75,8 @@ public class ListManagedFilesArgsInterpreter extends ArgsInterpreterSupport impl
                                             @Nonnull final DataManagerPresentation presentation,
                                             @Nonnull final UsageArgsInterpreter usageArgsInterpreter)
       {
-        super(COMMAND, Set.of(O_FINGERPRINTS, O_MAX, O_REGEX, O_MISSING, O_FINGERPRINT), presentation);
+        super(COMMAND, Set.of(O_FINGERPRINTS, O_MAX, O_REGEX, O_MISSING, O_FINGERPRINT, O_FORMAT, O_COUNT),
+              presentation);
         this.presentationControl = presentationControl;
         this.presentation = presentation;
         this.usageArgsInterpreter = usageArgsInterpreter;
@@ -86,10 +93,26 @@ public class ListManagedFilesArgsInterpreter extends ArgsInterpreterSupport impl
         final var regex = getStringOption(args, O_REGEX);
         final var fingerprint = getStringOption(args, O_FINGERPRINT);
         final var missingFiles = args.containsOption(O_MISSING);
+        final var formatName = getStringOption(args, O_FORMAT).orElse(Format.TEXT.name());
+        final var format = Format.of(formatName);
+        final var count = args.containsOption(O_COUNT);
+        final var regexError = regex.flatMap(ListManagedFilesArgsInterpreter::regexError);
 
-        if ((regex.isPresent() || missingFiles) && max.isPresent())
+        if (missingFiles && max.isPresent())
           {
-            presentation.notifyError("--%s cannot be used with --%s or --%s".formatted(O_MAX, O_REGEX, O_MISSING));
+            presentation.notifyError("--%s cannot be used with --%s".formatted(O_MAX, O_MISSING));
+          }
+        else if (missingFiles && count)
+          {
+            presentation.notifyError("--%s cannot be used with --%s".formatted(O_COUNT, O_MISSING));
+          }
+        else if (format.isEmpty())
+          {
+            presentation.notifyError("Invalid format: %s".formatted(formatName));
+          }
+        else if (regexError.isPresent())
+          {
+            presentation.notifyError("Invalid regular expression: %s (%s)".formatted(regex.get(), regexError.get()));
           }
         else
           {
@@ -98,7 +121,28 @@ public class ListManagedFilesArgsInterpreter extends ArgsInterpreterSupport impl
                                                          .max(max)
                                                          .regex(regex)
                                                          .fingerprint(fingerprint)
-                                                         .missingFiles(missingFiles));
+                                                         .missingFiles(missingFiles)
+                                                         .format(format.get())
+                                                         .count(count));
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the description of the syntax error of a regular expression, if any.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static Optional<String> regexError (@Nonnull final String regex)
+      {
+        try
+          {
+            Pattern.compile(regex);
+            return Optional.empty();
+          }
+        catch (PatternSyntaxException e)
+          {
+            return Optional.of(e.getDescription());
           }
       }
 
@@ -110,14 +154,19 @@ public class ListManagedFilesArgsInterpreter extends ArgsInterpreterSupport impl
       {
         presentation.output("""
             solidblue3 %1$s [--%2$s=<n>] [--%3$s=<regex>] [--%4$s=<value> [--%5$s] [--%6$s]
+                       [--%7$s=text|ndjson|csv] [--%8$s]
                        list files on the console
                        --%2$s=<n>               the max number of files to list
                        --%3$s=<regex>         a filter for the files to list
                        --%4$s=<value>   filter file(s) with that fingerprint
                        --%5$s               only list files no more in the filesystem
                        --%6$s          also render fingerprints
+                       --%7$s=<format>       the output format: human-readable text (default), a JSON
+                                             object per line or comma-separated values
+                       --%8$s                 only render the number of files
                       
-                       --max cannot be used with --regex and --missing
-            """.formatted("list-files", O_MAX, O_REGEX, O_FINGERPRINT, O_MISSING, O_FINGERPRINTS));
+                       --max and --count cannot be used with --missing
+            """.formatted("list-files", O_MAX, O_REGEX, O_FINGERPRINT, O_MISSING, O_FINGERPRINTS, O_FORMAT,
+                          O_COUNT));
       }
   }
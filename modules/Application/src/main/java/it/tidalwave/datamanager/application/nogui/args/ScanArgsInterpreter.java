@@ -0,0 +1,110 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.args;
+
+import jakarta.annotation.Nonnull;
+import java.util.Set;
+import java.nio.file.Path;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import it.tidalwave.datamanager.model.DataManager.ScanMode;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentation;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl;
+import lombok.extern.slf4j.Slf4j;
+import static it.tidalwave.datamanager.application.nogui.args.ArgumentsUtils.getStringOption;
+
+/***********************************************************************************************************************
+ *
+ * The command line args interpreter for the {@code scan} command.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Component @Order(0) @Slf4j
+public class ScanArgsInterpreter extends ArgsInterpreterSupport implements UsageCapable
+  {
+    private static final String COMMAND = "scan";
+    private static final String O_FOLDER = "folder";
+    private static final String O_INCREMENTAL = "incremental";
+
+    @Nonnull
+    private final DataManagerPresentationControl presentationControl;
+
+    @Nonnull
+    private final DataManagerPresentation presentation;
+
+    @Nonnull
+    private final UsageArgsInterpreter usageArgsInterpreter;
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    public ScanArgsInterpreter (@Nonnull final DataManagerPresentationControl presentationControl,
+                                @Nonnull final DataManagerPresentation presentation,
+                                @Nonnull final UsageArgsInterpreter usageArgsInterpreter)
+      {
+        super(COMMAND, Set.of(O_FOLDER, O_INCREMENTAL), presentation);
+        this.presentationControl = presentationControl;
+        this.presentation = presentation;
+        this.usageArgsInterpreter = usageArgsInterpreter;
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    protected void doRun (@Nonnull final ApplicationArguments args)
+      {
+        final var folder = getStringOption(args, O_FOLDER);
+        final var mode = args.containsOption(O_INCREMENTAL) ? ScanMode.INCREMENTAL : ScanMode.FULL;
+
+        if (folder.isEmpty())
+          {
+            presentation.notifyError("--%s is mandatory".formatted(O_FOLDER));
+          }
+        else
+          {
+            usageArgsInterpreter.disableUsage();
+            presentationControl.scan(Path.of(folder.get()), mode);
+          }
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    public void printUsage()
+      {
+        presentation.output("""
+            solidblue3 %1$s --%2$s=<path> [--%3$s]
+                       fingerprints files and registers them in the catalog
+                       --%2$s=<path>       the folder to scan, with its subfolders
+                       --%3$s         only fingerprint files that are new or changed since the last scan
+            """.formatted(COMMAND, O_FOLDER, O_INCREMENTAL));
+      }
+  }
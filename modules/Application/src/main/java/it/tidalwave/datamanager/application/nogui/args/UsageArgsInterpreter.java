@@ -70,6 +70,7 @@ public class UsageArgsInterpreter implements ApplicationRunner
 
             presentation.output("Usage:");
             usageCapables.get().forEach(UsageCapable::printUsage);
+            presentation.flush();
           }
       }
 
@@ -82,4 +83,14 @@ public class UsageArgsInterpreter implements ApplicationRunner
       {
         printUsage = false;
       }
+
+    /*******************************************************************************************************************
+     *
+     * Enables usage printing again, which is the initial state. It is needed when more than a command is run.
+     *
+     ******************************************************************************************************************/
+    public void enableUsage()
+      {
+        printUsage = true;
+      }
   }
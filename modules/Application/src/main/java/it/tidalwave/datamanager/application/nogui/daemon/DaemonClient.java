@@ -0,0 +1,162 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.daemon;
+
+import jakarta.annotation.Nonnull;
+import java.util.List;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import it.tidalwave.util.PreferencesHandler;
+import lombok.NoArgsConstructor;
+import static it.tidalwave.datamanager.application.nogui.daemon.DaemonProtocol.*;
+import static lombok.AccessLevel.PRIVATE;
+
+/***********************************************************************************************************************
+ *
+ * A thin client that forwards the command line arguments to a running daemon and prints the response, so a query
+ * doesn't pay for the startup of the application. It doesn't start Spring, so it should be launched with a JVM tuned
+ * for a fast startup. The socket of the daemon can be set with the {@value #ENV_SOCKET} environment variable.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@NoArgsConstructor(access = PRIVATE)
+public final class DaemonClient
+  {
+    /** The environment variable with the path of the socket. */
+    public static final String ENV_SOCKET = "SOLIDBLUE3_SOCKET";
+
+    /** The exit status when the daemon can't be reached. */
+    public static final int STATUS_NO_DAEMON = 2;
+
+    /*******************************************************************************************************************
+     * Primary entry point.
+     ******************************************************************************************************************/
+    public static void main (@Nonnull final String... args)
+      {
+        final var socket = System.getenv(ENV_SOCKET);
+        System.exit(run(socket != null ? Path.of(socket) : defaultSocketPath(), List.of(args), System.out, System.err));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Sends a request to the daemon and prints the response.
+     *
+     * @param   socket      the path of the socket
+     * @param   args        the command line arguments
+     * @param   out         the stream for the output
+     * @param   err         the stream for errors
+     * @return              the exit status
+     *
+     ******************************************************************************************************************/
+    public static int run (@Nonnull final Path socket,
+                           @Nonnull final List<String> args,
+                           @Nonnull final OutputStream out,
+                           @Nonnull final PrintStream err)
+      {
+        try (final var channel = SocketChannel.open(StandardProtocolFamily.UNIX))
+          {
+            try
+              {
+                channel.connect(UnixDomainSocketAddress.of(socket));
+              }
+            catch (IOException e)
+              {
+                err.println("Cannot connect to the daemon at %s: %s".formatted(socket, e.getMessage()));
+                return STATUS_NO_DAEMON;
+              }
+
+            final var dos = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            final var dis = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            writeRequest(dos, args);
+            var buffer = new byte[8192];
+
+            for (;;)
+              {
+                final var type = dis.readByte();
+
+                switch (type)
+                  {
+                    case OUTPUT ->
+                      {
+                        final var length = dis.readInt();
+
+                        if (buffer.length < length)
+                          {
+                            buffer = new byte[length];
+                          }
+
+                        dis.readFully(buffer, 0, length);
+                        out.write(buffer, 0, length);
+                      }
+
+                    case ERROR ->
+                      {
+                        out.flush();
+                        err.println(dis.readUTF());
+                      }
+
+                    case EXIT ->
+                      {
+                        out.flush();
+                        return dis.readInt();
+                      }
+
+                    default -> throw new IOException("Unexpected frame: " + type);
+                  }
+              }
+          }
+        catch (IOException e)
+          {
+            err.println("Error while talking to the daemon: " + e.getMessage());
+            return 1;
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static Path defaultSocketPath()
+      {
+        // Same as Main, so the default socket path is the same
+        PreferencesHandler.setAppName("SolidBlue");
+        System.setProperty(PreferencesHandler.PROP_SUPPRESS_CONSOLE, "true");
+        System.setProperty("logFolder", PreferencesHandler.getInstance().getLogFolder().toString());
+        return getDefaultSocketPath();
+      }
+  }
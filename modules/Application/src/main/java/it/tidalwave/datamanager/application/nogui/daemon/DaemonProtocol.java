@@ -0,0 +1,237 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.daemon;
+
+import jakarta.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.nio.file.Path;
+import it.tidalwave.util.PreferencesHandler;
+import lombok.NoArgsConstructor;
+import static lombok.AccessLevel.PRIVATE;
+
+/***********************************************************************************************************************
+ *
+ * The protocol spoken on the Unix domain socket between {@link DaemonClient} and the daemon.
+ *
+ * A request is made of the number of arguments, followed by the arguments. The response is a sequence of frames, each
+ * made of a type byte and a payload: {@link #OUTPUT} is followed by the length and the bytes of a chunk of output;
+ * {@link #ERROR} by an error message; {@link #EXIT} by the exit status, and ends the response. A connection serves a
+ * single request.
+ *
+ * Since the daemon reads requests from any process that can connect, a request is limited to
+ * {@link #MAX_ARGUMENTS} arguments of at most {@link #MAX_ARGUMENT_LENGTH} bytes each, checked before they are read.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@NoArgsConstructor(access = PRIVATE)
+public final class DaemonProtocol
+  {
+    /** The name of the socket in the application folder. */
+    public static final String SOCKET_NAME = "solidblue3.sock";
+
+    /** The maximum number of arguments in a request. */
+    public static final int MAX_ARGUMENTS = 256;
+
+    /** The maximum length of an argument in a request, in encoded bytes. */
+    public static final int MAX_ARGUMENT_LENGTH = 4096;
+
+    /** The type of frames carrying output. */
+    public static final byte OUTPUT = 'O';
+
+    /** The type of frames carrying an error message. */
+    public static final byte ERROR = 'E';
+
+    /** The type of the frame carrying the exit status. */
+    public static final byte EXIT = 'X';
+
+    /*******************************************************************************************************************
+     *
+     * Returns the default path of the socket.
+     *
+     * @return      the path
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public static Path getDefaultSocketPath()
+      {
+        return PreferencesHandler.getInstance().getAppFolder().resolve(SOCKET_NAME);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Writes a request.
+     *
+     * @param   out             the stream
+     * @param   args            the command line arguments
+     * @throws  ProtocolException   if there are too many arguments
+     * @throws  IOException         in case of I/O error
+     *
+     ******************************************************************************************************************/
+    public static void writeRequest (@Nonnull final DataOutputStream out, @Nonnull final List<String> args)
+            throws IOException
+      {
+        if (args.size() > MAX_ARGUMENTS)
+          {
+            throw new ProtocolException("Too many arguments: %d > %d".formatted(args.size(), MAX_ARGUMENTS));
+          }
+
+        out.writeInt(args.size());
+
+        for (final var arg : args)
+          {
+            out.writeUTF(arg);
+          }
+
+        out.flush();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Reads a request. The stream must support {@link DataInputStream#mark(int)}, since the length of each argument
+     * is checked before reading it.
+     *
+     * @param   in                  the stream
+     * @return                      the command line arguments
+     * @throws  ProtocolException   if the request exceeds {@link #MAX_ARGUMENTS} or {@link #MAX_ARGUMENT_LENGTH}
+     * @throws  IOException         in case of I/O error
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public static List<String> readRequest (@Nonnull final DataInputStream in)
+            throws IOException
+      {
+        final var count = in.readInt();
+
+        if ((count < 0) || (count > MAX_ARGUMENTS))
+          {
+            throw new ProtocolException("Invalid number of arguments: %d (max %d)".formatted(count, MAX_ARGUMENTS));
+          }
+
+        final var args = new ArrayList<String>(count);
+
+        for (int i = 0; i < count; i++)
+          {
+            // The length prefix written by writeUTF()
+            in.mark(2);
+            final var length = in.readUnsignedShort();
+
+            if (length > MAX_ARGUMENT_LENGTH)
+              {
+                throw new ProtocolException("Argument too long: %d bytes (max %d)".formatted(length,
+                                                                                            MAX_ARGUMENT_LENGTH));
+              }
+
+            in.reset();
+            args.add(in.readUTF());
+          }
+
+        return args;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns a stream that sends what is written to it as {@link #OUTPUT} frames. Since a frame is sent for each
+     * write, the stream should be buffered by the caller.
+     *
+     * @param   out             the stream to send frames to
+     * @return                  the stream for the output
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public static OutputStream outputStream (@Nonnull final DataOutputStream out)
+      {
+        return new OutputStream()
+          {
+            @Override
+            public void write (final int b)
+                    throws IOException
+              {
+                write(new byte[] { (byte)b }, 0, 1);
+              }
+
+            @Override
+            public void write (@Nonnull final byte[] bytes, final int offset, final int length)
+                    throws IOException
+              {
+                if (length > 0)
+                  {
+                    out.writeByte(OUTPUT);
+                    out.writeInt(length);
+                    out.write(bytes, offset, length);
+                  }
+              }
+
+            @Override
+            public void flush()
+                    throws IOException
+              {
+                out.flush();
+              }
+          };
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Writes an {@link #ERROR} frame.
+     *
+     * @param   out             the stream
+     * @param   message         the error message
+     * @throws  IOException     in case of I/O error
+     *
+     ******************************************************************************************************************/
+    public static void writeError (@Nonnull final DataOutputStream out, @Nonnull final String message)
+            throws IOException
+      {
+        out.writeByte(ERROR);
+        out.writeUTF(message);
+        out.flush();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Writes the {@link #EXIT} frame.
+     *
+     * @param   out             the stream
+     * @param   status          the exit status
+     * @throws  IOException     in case of I/O error
+     *
+     ******************************************************************************************************************/
+    public static void writeExit (@Nonnull final DataOutputStream out, final int status)
+            throws IOException
+      {
+        out.writeByte(EXIT);
+        out.writeInt(status);
+        out.flush();
+      }
+  }
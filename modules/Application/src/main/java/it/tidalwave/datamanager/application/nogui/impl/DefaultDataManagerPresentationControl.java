@@ -27,24 +27,34 @@
 package it.tidalwave.datamanager.application.nogui.impl;
 
 import jakarta.annotation.Nonnull;
+import java.util.Collection;
 import java.util.List;
-import java.util.function.Predicate;
-import java.nio.file.Files;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.nio.file.Path;
 import org.springframework.stereotype.Component;
 import it.tidalwave.util.RoleFactory;
 import it.tidalwave.role.SimpleComposite;
 import it.tidalwave.role.ui.PresentationModel;
 import it.tidalwave.datamanager.model.Backup;
 import it.tidalwave.datamanager.model.DataManager;
+import it.tidalwave.datamanager.model.DataManager.ScanMode;
+import it.tidalwave.datamanager.model.DuplicateCriteria;
+import it.tidalwave.datamanager.model.DuplicateGroup;
 import it.tidalwave.datamanager.model.ManagedFile;
+import it.tidalwave.datamanager.model.VerificationIssue;
 import it.tidalwave.datamanager.application.nogui.DataManagerPresentation;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentation.Format;
 import it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl;
+import it.tidalwave.datamanager.util.FileExistenceChecker;
 import lombok.RequiredArgsConstructor;
 import static it.tidalwave.datamanager.model.DataManager.BackupFinder.SortingKeys.LABEL;
 import static it.tidalwave.datamanager.model.DataManager.ManagedFileFinder.SortingKeys.PATH;
 import static it.tidalwave.util.Finder.SortDirection.ASCENDING;
 import static it.tidalwave.util.spring.jpa.JpaSpecificationFinder.by;
-import static it.tidalwave.role.ui.spi.PresentationModelCollectors.toCompositePresentationModel;
 
 /***********************************************************************************************************************
  *
@@ -57,6 +67,12 @@ import static it.tidalwave.role.ui.spi.PresentationModelCollectors.toCompositePr
 @Component @RequiredArgsConstructor
 public class DefaultDataManagerPresentationControl implements DataManagerPresentationControl
   {
+    /** The maximum number of concurrent checks for missing files. */
+    private static final int EXISTENCE_CHECK_PARALLELISM = 32;
+
+    /** The children of an object whose children must not be rendered. */
+    private static final SimpleComposite<Object> NO_CHILDREN = SimpleComposite.of(new StreamingFinder<>(Stream::empty));
+
     @Nonnull
     private final DataManager dataManager;
 
@@ -69,19 +85,40 @@ public class DefaultDataManagerPresentationControl implements DataManagerPresent
     @Override
     public void renderManagedFiles (@Nonnull final ManagedFileOptions options)
       {
-        final RoleFactory<ManagedFile> rf =
-                o -> SimpleComposite.ofCloned(options.renderFingerprints ? o.getFingerprints() : List.of());
-
-        final var pm = dataManager.findManagedFiles()
-                                  .withFingerprint(options.fingerprint)
-                                  .sort(by(PATH), ASCENDING)
-                                  .max(options.max)
-                                  .stream()
-                                  .filter(createPredicate(options))
-                                  .map(m -> PresentationModel.of(m, rf))
-                                  // .map(m -> m.as(_Presentable_).createPresentationModel(rf)) TODO breaks test
-                                  .collect(toCompositePresentationModel());
-        presentation.renderManagedFiles(pm);
+        if (options.count)
+          {
+            presentation.output(Integer.toString(dataManager.findManagedFiles()
+                                                            .withFingerprint(options.fingerprint)
+                                                            .withPathMatching(options.regex)
+                                                            .max(options.max)
+                                                            .count()));
+          }
+        else
+          {
+            final RoleFactory<ManagedFile> rf =
+                    options.renderFingerprints ? o -> lazyComposite(o::getFingerprints) : o -> NO_CHILDREN;
+
+            try (final var stream = dataManager.findManagedFiles()
+                                               .withFingerprint(options.fingerprint)
+                                               .withPathMatching(options.regex)
+                                               .sort(by(PATH), ASCENDING)
+                                               .max(options.max)
+                                               .stream();
+                 final var existenceChecker = new FileExistenceChecker(EXISTENCE_CHECK_PARALLELISM))
+              {
+                final var managedFiles = filterMissing(stream, options, existenceChecker);
+
+                if (options.format != Format.TEXT)
+                  {
+                    presentation.exportManagedFiles(managedFiles, options.renderFingerprints, options.format);
+                  }
+                else
+                  {
+                    // .map(m -> m.as(_Presentable_).createPresentationModel(rf)) TODO breaks test
+                    presentation.renderManagedFiles(toLazyCompositePresentationModel(options, managedFiles, rf));
+                  }
+              }
+          }
       }
 
     /*******************************************************************************************************************
@@ -90,30 +127,201 @@ public class DefaultDataManagerPresentationControl implements DataManagerPresent
     @Override
     public void renderBackups (@Nonnull final BackupOptions options)
       {
-        final RoleFactory<Backup> rf =
-                o -> SimpleComposite.ofCloned(options.renderFiles ? o.getBackupFiles() : List.of());
-
-        final var pm = dataManager.findBackups()
-                                  .withLabel(options.label)
-                                  .withVolumeId(options.volumeId)
-                                  .withFileId(options.fileId)
-                                  .sort(by(LABEL), ASCENDING)
-                                  .stream()
-                                  .map(m -> PresentationModel.of(m, rf))
-                                  // .map(m -> m.as(_Presentable_).createPresentationModel(rf)) TODO breaks test
-                                  .collect(toCompositePresentationModel());
-        presentation.renderBackups(pm);
+        if (options.count)
+          {
+            presentation.output(Integer.toString(dataManager.findBackups()
+                                                            .withLabel(options.label)
+                                                            .withVolumeId(options.volumeId)
+                                                            .withFileId(options.fileId)
+                                                            .count()));
+          }
+        else
+          {
+            final RoleFactory<Backup> rf =
+                    options.renderFiles ? o -> lazyComposite(o::getBackupFiles) : o -> NO_CHILDREN;
+
+            try (final var stream = dataManager.findBackups()
+                                               .withLabel(options.label)
+                                               .withVolumeId(options.volumeId)
+                                               .withFileId(options.fileId)
+                                               .sort(by(LABEL), ASCENDING)
+                                               .stream())
+              {
+                if (options.format != Format.TEXT)
+                  {
+                    presentation.exportBackups(stream, options.renderFiles, options.format);
+                  }
+                else
+                  {
+                    // .map(m -> m.as(_Presentable_).createPresentationModel(rf)) TODO breaks test
+                    presentation.renderBackups(toLazyCompositePresentationModel(options, stream, rf));
+                  }
+              }
+          }
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    public void scan (@Nonnull final Path folder, @Nonnull final ScanMode mode)
+      {
+        final var result = dataManager.scan(folder, mode);
+        final var seconds = Math.max(result.getElapsedTime().toMillis(), 1) / 1000.0;
+        // Locale.ROOT, so the output doesn't depend on the decimal separator of the user's locale
+        presentation.output(String.format(Locale.ROOT,
+                "Scanned %d files, %d bytes in %.1f seconds (%.1f MB/s), %d unchanged files skipped, " +
+                "%d new fingerprints, %d errors",
+                result.getFileCount(),
+                result.getByteCount(),
+                seconds,
+                result.getByteCount() / seconds / 1_000_000,
+                result.getSkippedCount(),
+                result.getNewFingerprintCount(),
+                result.getErrorCount()));
       }
 
     /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    public void verifyBackup (@Nonnull final BackupOptions options)
+      {
+        final var backup = dataManager.findBackups()
+                                      .withLabel(options.label)
+                                      .withVolumeId(options.volumeId)
+                                      .optionalFirstResult();
+
+        if (backup.isEmpty())
+          {
+            presentation.notifyError("Backup not found");
+          }
+        else
+          {
+            presentation.output("Verifying %s in %s".formatted(backup.get().getLabel(), backup.get().getBasePath()));
+            final var result = dataManager.verifyBackup(backup.get(), i -> presentation.output(toString(i)));
+            presentation.output("Verified %d files in %d seconds: %d ok, %d with issues".formatted(
+                    result.getFileCount(),
+                    result.getElapsedTime().toSeconds(),
+                    result.getOkCount(),
+                    result.getIssueCount()));
+          }
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     *
+     * Groups are rendered as soon as they are found, so memory usage doesn't depend on the number of duplicates.
+     ******************************************************************************************************************/
+    @Override
+    public void renderDuplicates (@Nonnull final DuplicateOptions options)
+      {
+        final var criteria = DuplicateCriteria.builder()
+                                              .minSize(options.minSize)
+                                              .maxSize(options.maxSize)
+                                              .pathPrefix(options.pathPrefix)
+                                              .build();
+        final var groupCount = new AtomicInteger();
+        final var fileCount = new AtomicInteger();
+        final var redundantByteCount = new AtomicLong();
+
+        try (final var stream = dataManager.findDuplicates(criteria))
+          {
+            stream.forEach(group ->
+              {
+                groupCount.incrementAndGet();
+                fileCount.addAndGet(group.getManagedFiles().size());
+                redundantByteCount.addAndGet(group.getRedundantByteCount());
+                presentation.output(toString(group));
+              });
+          }
+
+        presentation.output("Found %d groups of duplicates, %d files, %d redundant bytes".formatted(
+                groupCount.get(), fileCount.get(), redundantByteCount.get()));
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static String toString (@Nonnull final DuplicateGroup group)
+      {
+        final var sb = new StringBuilder("%s:%s (%s)".formatted(
+                group.getAlgorithm(),
+                group.getFingerprint(),
+                group.getSize().map(s -> s + " bytes").orElse("size unknown")));
+        group.getManagedFiles().forEach(f -> sb.append("\n    ").append(f.getPath()));
+        return sb.toString();
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static String toString (@Nonnull final VerificationIssue issue)
+      {
+        return "%-14s %s".formatted(issue.getKind(), issue.getPath())
+               + issue.getActualFingerprint()
+                      .map(a -> " (expected %s, found %s)".formatted(issue.getExpectedFingerprint().orElse(""), a))
+                      .orElse("")
+               + issue.getCause().map(c -> " (%s)".formatted(c)).orElse("");
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Creates a composite {@link PresentationModel} whose children are created while the presentation renders them, so
+     * they can be garbage collected soon after, instead of being all kept in memory. Since the stream can be consumed
+     * only once, the presentation model can be rendered only once.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static <T> PresentationModel toLazyCompositePresentationModel (@Nonnull final Object owner,
+                                                                           @Nonnull final Stream<T> stream,
+                                                                           @Nonnull final RoleFactory<T> rf)
+      {
+        final var children = new StreamingFinder<PresentationModel>(() -> stream.map(o -> toPresentationModel(o, rf)));
+        return PresentationModel.of(owner, SimpleComposite.of(children));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Creates a composite of {@link PresentationModel}s that doesn't copy its children.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static SimpleComposite<PresentationModel> lazyComposite (
+            @Nonnull final Supplier<? extends Collection<?>> children)
+      {
+        return SimpleComposite.of(new StreamingFinder<PresentationModel>(() -> children.get()
+                                                                                    .stream()
+                                                                                    .map(c -> toPresentationModel(c))));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Creates a {@link PresentationModel} with the roles from the {@link RoleIndex} and the given extra roles, so they
+     * are found without looking them up in the system role factory.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static PresentationModel toPresentationModel (@Nonnull final Object datum,
+                                                          @Nonnull final Object ... extraRoles)
+      {
+        final var roles = RoleIndex.INSTANCE.createRolesFor(datum);
+        roles.addAll(List.of(extraRoles));
+        return PresentationModel.of(datum, roles);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Retains only missing files, if requested. Checks are performed concurrently, since they are I/O bound.
      *
      ******************************************************************************************************************/
     @Nonnull
-    private static Predicate<ManagedFile> createPredicate (@Nonnull final ManagedFileOptions options)
+    private static Stream<ManagedFile> filterMissing (@Nonnull final Stream<ManagedFile> stream,
+                                                      @Nonnull final ManagedFileOptions options,
+                                                      @Nonnull final FileExistenceChecker existenceChecker)
       {
-        final Predicate<ManagedFile> filter1 = __ -> true;
-        final var filter2 =
-                options.regex.map(r -> filter1.and(mf -> mf.getPath().toString().matches(r))).orElse(filter1);
-        return !options.missingFiles ? filter2 : filter2.and(mf -> !Files.exists(mf.getPath()));
+        return !options.missingFiles ? stream : existenceChecker.filter(stream, ManagedFile::getPath, false);
       }
   }
@@ -32,7 +32,6 @@ import it.tidalwave.role.ui.Presentable;
 import it.tidalwave.role.ui.PresentationModel;
 import it.tidalwave.dci.annotation.DciRole;
 import it.tidalwave.datamanager.model.Fingerprint;
-import it.tidalwave.datamanager.model.ManagedFile;
 import lombok.AllArgsConstructor;
 
 /***********************************************************************************************************************
@@ -43,7 +42,7 @@ import lombok.AllArgsConstructor;
  * @author      Fabrizio Giudici
  *
  **********************************************************************************************************************/
-@DciRole(datumType = ManagedFile.class) @AllArgsConstructor
+@DciRole(datumType = Fingerprint.class) @AllArgsConstructor
 public class FingerprintPresentable implements Presentable
   {
     @Nonnull
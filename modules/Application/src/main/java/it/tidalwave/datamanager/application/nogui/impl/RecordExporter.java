@@ -0,0 +1,461 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.impl;
+
+import jakarta.annotation.Nonnull;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import it.tidalwave.util.Id;
+import it.tidalwave.datamanager.model.Backup;
+import it.tidalwave.datamanager.model.BackupFile;
+import it.tidalwave.datamanager.model.Fingerprint;
+import it.tidalwave.datamanager.model.ManagedFile;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentation;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentation.Format;
+import it.tidalwave.datamanager.util.Meters;
+
+/***********************************************************************************************************************
+ *
+ * Exports model objects as NDJSON or CSV records, one per line. Records are composed in a single reused
+ * {@link StringBuilder} and passed to a sink, so almost nothing is allocated per record; for the same reason the
+ * sink must not retain the {@link CharSequence} it receives.
+ *
+ * NDJSON records nest fingerprints or backup files in an array; CSV records, instead, are flattened to a line per
+ * fingerprint or backup file, in which the columns of the owner are repeated. Both formats name fields in snake case.
+ *
+ * This class is not thread-safe.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class RecordExporter
+  {
+    private static final String MANAGED_FILE_HEADER = "id,path";
+
+    private static final String FINGERPRINT_HEADER = "fingerprint_id,name,algorithm,fingerprint,timestamp";
+
+    private static final String BACKUP_HEADER =
+            "id,label,volume_id,encrypted,base_path,creation_date,registration_date,latest_check_date";
+
+    private static final String BACKUP_FILE_HEADER = "file_id,file_path,managed_file_id";
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    @Nonnull
+    private final Format format;
+
+    @Nonnull
+    private final Consumer<? super CharSequence> sink;
+
+    private final StringBuilder sb = new StringBuilder(256);
+
+    /*******************************************************************************************************************
+     *
+     * Creates a new instance.
+     *
+     * @param   format      the format
+     * @param   sink        the consumer of the lines
+     * @throws  IllegalArgumentException    if the format is not a record format
+     *
+     ******************************************************************************************************************/
+    public RecordExporter (@Nonnull final Format format, @Nonnull final Consumer<? super CharSequence> sink)
+      {
+        if (format == Format.TEXT)
+          {
+            throw new IllegalArgumentException("Not a record format: " + format);
+          }
+
+        this.format = format;
+        this.sink = sink;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Exports managed files.
+     *
+     * @param   managedFiles        the files
+     * @param   withFingerprints    whether fingerprints must be exported too
+     *
+     ******************************************************************************************************************/
+    public void exportManagedFiles (@Nonnull final Stream<ManagedFile> managedFiles, final boolean withFingerprints)
+      {
+        if (format == Format.CSV)
+          {
+            sink.accept(withFingerprints ? MANAGED_FILE_HEADER + "," + FINGERPRINT_HEADER : MANAGED_FILE_HEADER);
+          }
+
+        final var counter = exportedItemCounter(ManagedFile.class);
+        exportTimer(ManagedFile.class).record(() -> managedFiles.forEach(managedFile ->
+          {
+            exportManagedFile(managedFile, withFingerprints);
+            counter.increment();
+          }));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Exports backups.
+     *
+     * @param   backups             the backups
+     * @param   withFiles           whether the files in the backups must be exported too
+     *
+     ******************************************************************************************************************/
+    public void exportBackups (@Nonnull final Stream<Backup> backups, final boolean withFiles)
+      {
+        if (format == Format.CSV)
+          {
+            sink.accept(withFiles ? BACKUP_HEADER + "," + BACKUP_FILE_HEADER : BACKUP_HEADER);
+          }
+
+        final var counter = exportedItemCounter(Backup.class);
+        exportTimer(Backup.class).record(() -> backups.forEach(backup ->
+          {
+            exportBackup(backup, withFiles);
+            counter.increment();
+          }));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the timer of the exports of items of the given type. It measures a whole export, including the lazy
+     * retrieval of the items and their children; it's not recorded per item, so it doesn't weigh on the loop.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private Timer exportTimer (@Nonnull final Class<?> type)
+      {
+        return Meters.timer(DataManagerPresentation.METER_RENDERINGS,
+                            "type", type.getSimpleName(),
+                            "format", format.name());
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the counter of the exported items of the given type.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private Counter exportedItemCounter (@Nonnull final Class<?> type)
+      {
+        return Meters.counter(DataManagerPresentation.METER_RENDERED_ITEMS,
+                              "type", type.getSimpleName(),
+                              "format", format.name());
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private void exportManagedFile (@Nonnull final ManagedFile managedFile, final boolean withFingerprints)
+      {
+        if (format == Format.NDJSON)
+          {
+            sb.setLength(0);
+            sb.append('{');
+            jsonField("id", managedFile.getId()).append(',');
+            jsonField("path", managedFile.getPath().toString());
+
+            if (withFingerprints)
+              {
+                sb.append(",\"fingerprints\":[");
+                var first = true;
+
+                for (final var fingerprint : managedFile.getFingerprints())
+                  {
+                    if (!first)
+                      {
+                        sb.append(',');
+                      }
+
+                    first = false;
+                    sb.append('{');
+                    jsonField("id", fingerprint.getId()).append(',');
+                    jsonField("name", fingerprint.getName()).append(',');
+                    jsonField("algorithm", fingerprint.getAlgorithm()).append(',');
+                    jsonField("fingerprint", fingerprint.getFingerprint()).append(',');
+                    jsonField("timestamp", fingerprint.getTimestamp());
+                    sb.append('}');
+                  }
+
+                sb.append(']');
+              }
+
+            sb.append('}');
+            sink.accept(sb);
+          }
+        else if (!withFingerprints)
+          {
+            csvManagedFile(managedFile);
+            sink.accept(sb);
+          }
+        else
+          {
+            final var fingerprints = managedFile.getFingerprints();
+
+            if (fingerprints.isEmpty())
+              {
+                csvManagedFile(managedFile);
+                sb.append(",,,,,");
+                sink.accept(sb);
+              }
+
+            for (final var fingerprint : fingerprints)
+              {
+                csvManagedFile(managedFile);
+                csvFingerprint(fingerprint);
+                sink.accept(sb);
+              }
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private void exportBackup (@Nonnull final Backup backup, final boolean withFiles)
+      {
+        if (format == Format.NDJSON)
+          {
+            sb.setLength(0);
+            sb.append('{');
+            jsonField("id", backup.getId()).append(',');
+            jsonField("label", backup.getLabel()).append(',');
+            jsonField("volume_id", backup.getVolumeId()).append(',');
+            sb.append("\"encrypted\":").append(backup.isEncrypted()).append(',');
+            jsonField("base_path", backup.getBasePath().toString()).append(',');
+            jsonField("creation_date", backup.getCreationDate()).append(',');
+            jsonField("registration_date", backup.getRegistrationDate()).append(',');
+            sb.append("\"latest_check_date\":");
+            backup.getLatestCheckDate().ifPresentOrElse(this::jsonValue, () -> sb.append("null"));
+
+            if (withFiles)
+              {
+                sb.append(",\"files\":[");
+                var first = true;
+
+                for (final var backupFile : backup.getBackupFiles())
+                  {
+                    if (!first)
+                      {
+                        sb.append(',');
+                      }
+
+                    first = false;
+                    sb.append('{');
+                    jsonField("id", backupFile.getId()).append(',');
+                    jsonField("path", backupFile.getPath().toString()).append(',');
+                    jsonField("managed_file_id", backupFile.getManagedFile().getId());
+                    sb.append('}');
+                  }
+
+                sb.append(']');
+              }
+
+            sb.append('}');
+            sink.accept(sb);
+          }
+        else if (!withFiles)
+          {
+            csvBackup(backup);
+            sink.accept(sb);
+          }
+        else
+          {
+            final var backupFiles = backup.getBackupFiles();
+
+            if (backupFiles.isEmpty())
+              {
+                csvBackup(backup);
+                sb.append(",,,");
+                sink.accept(sb);
+              }
+
+            for (final var backupFile : backupFiles)
+              {
+                csvBackup(backup);
+                csvBackupFile(backupFile);
+                sink.accept(sb);
+              }
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Starts a CSV line with the columns of a managed file.
+     *
+     ******************************************************************************************************************/
+    private void csvManagedFile (@Nonnull final ManagedFile managedFile)
+      {
+        sb.setLength(0);
+        csvValue(managedFile.getId().stringValue()).append(',');
+        csvValue(managedFile.getPath().toString());
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private void csvFingerprint (@Nonnull final Fingerprint fingerprint)
+      {
+        sb.append(',');
+        csvValue(fingerprint.getId().stringValue()).append(',');
+        csvValue(fingerprint.getName()).append(',');
+        csvValue(fingerprint.getAlgorithm()).append(',');
+        csvValue(fingerprint.getFingerprint()).append(',');
+        TIMESTAMP_FORMATTER.formatTo(fingerprint.getTimestamp(), sb);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Starts a CSV line with the columns of a backup.
+     *
+     ******************************************************************************************************************/
+    private void csvBackup (@Nonnull final Backup backup)
+      {
+        sb.setLength(0);
+        csvValue(backup.getId().stringValue()).append(',');
+        csvValue(backup.getLabel()).append(',');
+        csvValue(backup.getVolumeId().stringValue()).append(',');
+        sb.append(backup.isEncrypted()).append(',');
+        csvValue(backup.getBasePath().toString()).append(',');
+        TIMESTAMP_FORMATTER.formatTo(backup.getCreationDate(), sb);
+        sb.append(',');
+        TIMESTAMP_FORMATTER.formatTo(backup.getRegistrationDate(), sb);
+        sb.append(',');
+        backup.getLatestCheckDate().ifPresent(d -> TIMESTAMP_FORMATTER.formatTo(d, sb));
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private void csvBackupFile (@Nonnull final BackupFile backupFile)
+      {
+        sb.append(',');
+        csvValue(backupFile.getId().stringValue()).append(',');
+        csvValue(backupFile.getPath().toString()).append(',');
+        csvValue(backupFile.getManagedFile().getId().stringValue());
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Appends a CSV value, quoted as per RFC 4180 only when needed.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private StringBuilder csvValue (@Nonnull final String value)
+      {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+          {
+            return sb.append(value);
+          }
+
+        sb.append('"');
+
+        for (int i = 0; i < value.length(); i++)
+          {
+            final var c = value.charAt(i);
+
+            if (c == '"')
+              {
+                sb.append('"');
+              }
+
+            sb.append(c);
+          }
+
+        return sb.append('"');
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private StringBuilder jsonField (@Nonnull final String name, @Nonnull final Id value)
+      {
+        return jsonField(name, value.stringValue());
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private StringBuilder jsonField (@Nonnull final String name, @Nonnull final LocalDateTime value)
+      {
+        sb.append('"').append(name).append("\":");
+        return jsonValue(value);
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private StringBuilder jsonField (@Nonnull final String name, @Nonnull final String value)
+      {
+        sb.append('"').append(name).append("\":\"");
+
+        for (int i = 0; i < value.length(); i++)
+          {
+            final var c = value.charAt(i);
+
+            switch (c)
+              {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default ->
+                  {
+                    if (c < 0x20)
+                      {
+                        sb.append("\\u00")
+                          .append(Character.forDigit(c >> 4, 16))
+                          .append(Character.forDigit(c & 0xf, 16));
+                      }
+                    else
+                      {
+                        sb.append(c);
+                      }
+                  }
+              }
+          }
+
+        return sb.append('"');
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private StringBuilder jsonValue (@Nonnull final LocalDateTime value)
+      {
+        sb.append('"');
+        TIMESTAMP_FORMATTER.formatTo(value, sb);
+        return sb.append('"');
+      }
+  }
@@ -0,0 +1,172 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.impl;
+
+import jakarta.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import it.tidalwave.dci.annotation.DciRole;
+import it.tidalwave.datamanager.model.Backup;
+import it.tidalwave.datamanager.model.BackupFile;
+import it.tidalwave.datamanager.model.Fingerprint;
+import it.tidalwave.datamanager.model.ManagedFile;
+
+/***********************************************************************************************************************
+ *
+ * A precomputed index of the DCI roles of this package. Presentation models are created with the roles from this
+ * index as instance roles, so {@code as()} finds them without going through the system role factory. The system role
+ * factory is backed by this index too (see {@link RoleIndexSystemRoleFactoryProvider}), so no classpath scan is
+ * needed at startup. Roles are created by constructor references, and the factories for a datum class, including
+ * those registered for its supertypes, are resolved once and cached.
+ *
+ * All the classes annotated with {@link DciRole} in this package must be listed here.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public final class RoleIndex
+  {
+    /*******************************************************************************************************************
+     *
+     * An entry of the index.
+     *
+     * @param   roleType    the class implementing the role
+     * @param   datumType   the class of the datum
+     * @param   factory     the factory of the role
+     *
+     ******************************************************************************************************************/
+    public record Entry<T> (@Nonnull Class<?> roleType,
+                            @Nonnull Class<T> datumType,
+                            @Nonnull Function<? super T, ?> factory)
+      {
+        @Nonnull
+        private Object createRoleFor (@Nonnull final Object datum)
+          {
+            return factory.apply(datumType.cast(datum));
+          }
+      }
+
+    /** The roles of this package. */
+    public static final RoleIndex INSTANCE = new RoleIndex(List.of(
+            new Entry<>(BackupDisplayable.class, Backup.class, BackupDisplayable::new),
+            new Entry<>(BackupFileDisplayable.class, BackupFile.class, BackupFileDisplayable::new),
+            new Entry<>(FingerprintDisplayable.class, Fingerprint.class, FingerprintDisplayable::new),
+            new Entry<>(FingerprintPresentable.class, Fingerprint.class, FingerprintPresentable::new),
+            new Entry<>(ManagedFileDisplayable.class, ManagedFile.class, ManagedFileDisplayable::new),
+            new Entry<>(ManagedFilePresentable.class, ManagedFile.class, ManagedFilePresentable::new)));
+
+    @Nonnull
+    private final List<Entry<?>> entries;
+
+    @Nonnull
+    private final Map<Class<?>, List<Entry<?>>> entriesByDatumType = new ConcurrentHashMap<>();
+
+    /*******************************************************************************************************************
+     *
+     * Creates an index with the given entries.
+     *
+     * @param   entries     the entries
+     *
+     ******************************************************************************************************************/
+    public RoleIndex (@Nonnull final List<Entry<?>> entries)
+      {
+        this.entries = List.copyOf(entries);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the entries of this index.
+     *
+     * @return      the entries
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public List<Entry<?>> getEntries()
+      {
+        return entries;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Creates the roles for the given datum.
+     *
+     * @param   datum       the datum
+     * @return              the roles
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public List<Object> createRolesFor (@Nonnull final Object datum)
+      {
+        final var datumEntries = entriesByDatumType.computeIfAbsent(datum.getClass(), this::findEntries);
+        final var roles = new ArrayList<>(datumEntries.size() + 1); // room for a role added by the caller
+
+        for (final var entry : datumEntries)
+          {
+            roles.add(entry.createRoleFor(datum));
+          }
+
+        return roles;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Creates the roles of the given type for the given datum.
+     *
+     * @param   <T>         the static type of the roles
+     * @param   datum       the datum
+     * @param   roleType    the type of the roles
+     * @return              the roles
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public <T> List<T> createRolesFor (@Nonnull final Object datum, @Nonnull final Class<? extends T> roleType)
+      {
+        final var roles = new ArrayList<T>();
+
+        for (final var entry : entriesByDatumType.computeIfAbsent(datum.getClass(), this::findEntries))
+          {
+            if (roleType.isAssignableFrom(entry.roleType()))
+              {
+                roles.add(roleType.cast(entry.createRoleFor(datum)));
+              }
+          }
+
+        return roles;
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private List<Entry<?>> findEntries (@Nonnull final Class<?> datumType)
+      {
+        return entries.stream().filter(e -> e.datumType().isAssignableFrom(datumType)).toList();
+      }
+  }
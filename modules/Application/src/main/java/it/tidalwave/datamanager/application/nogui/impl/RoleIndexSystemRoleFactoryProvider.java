@@ -0,0 +1,62 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.impl;
+
+import jakarta.annotation.Nonnull;
+import java.util.List;
+import it.tidalwave.role.spi.SystemRoleFactory;
+import it.tidalwave.role.spi.SystemRoleFactoryProvider;
+
+/***********************************************************************************************************************
+ *
+ * Provides a {@link SystemRoleFactory} backed by {@link RoleIndex#INSTANCE}. It's registered as a service in
+ * {@code META-INF/services}, so it replaces the annotation-based factory, which scans the classpath for roles when
+ * it's first used.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class RoleIndexSystemRoleFactoryProvider implements SystemRoleFactoryProvider
+  {
+    private static final SystemRoleFactory SYSTEM_ROLE_FACTORY = new SystemRoleFactory()
+      {
+        @Override @Nonnull
+        public <T> List<T> findRoles (@Nonnull final Object datum, @Nonnull final Class<? extends T> roleType)
+          {
+            return RoleIndex.INSTANCE.createRolesFor(datum, roleType);
+          }
+      };
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    public SystemRoleFactory getSystemRoleFactory()
+      {
+        return SYSTEM_ROLE_FACTORY;
+      }
+  }
@@ -0,0 +1,107 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.impl;
+
+import jakarta.annotation.Nonnull;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.io.Serial;
+import it.tidalwave.util.Finder;
+import it.tidalwave.util.spi.HierarchicFinderSupport;
+
+/***********************************************************************************************************************
+ *
+ * A {@link Finder} whose results are produced on demand by a {@link Stream}, so a consumer of {@link #stream()} never
+ * holds more than the current item. This makes it possible to create a composite {@link
+ * it.tidalwave.role.ui.PresentationModel} whose children are created while they are rendered, and dropped soon after.
+ *
+ * If the supplier always returns the same stream, for instance a database cursor, the finder can be iterated only
+ * once. {@link #results()} materialises all the items, so it should be used only for small results.
+ *
+ * @param   <T>     the type of the items
+ * @author  Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class StreamingFinder<T> extends HierarchicFinderSupport<T, StreamingFinder<T>>
+  {
+    @Serial private static final long serialVersionUID = 0L;
+
+    @Nonnull
+    private final transient Supplier<? extends Stream<T>> streamSupplier;
+
+    /*******************************************************************************************************************
+     *
+     * Creates a new instance.
+     *
+     * @param   streamSupplier    the supplier of the stream of items
+     *
+     ******************************************************************************************************************/
+    public StreamingFinder (@Nonnull final Supplier<? extends Stream<T>> streamSupplier)
+      {
+        this.streamSupplier = streamSupplier;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * The required constructor for subclasses of {@link HierarchicFinderSupport}.
+     *
+     ******************************************************************************************************************/
+    @SuppressWarnings("unchecked")
+    public StreamingFinder (@Nonnull final StreamingFinder<T> other, @Nonnull final Object override)
+      {
+        super(other, override);
+        final var source = getSource(StreamingFinder.class, other, override);
+        this.streamSupplier = source.streamSupplier;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns a stream of the items: they are created while the stream is consumed.
+     *
+     * {@inheritDoc}
+     *
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    public Stream<T> stream()
+      {
+        return streamSupplier.get().skip(firstResult).limit(maxResults);
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    protected List<T> computeResults()
+      {
+        // The range is applied by the superclass
+        try (final var stream = streamSupplier.get())
+          {
+            return stream.toList();
+          }
+      }
+  }
@@ -28,24 +28,31 @@ package it.tidalwave.datamanager.application.nogui.impl;
 
 import jakarta.annotation.Nonnull;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.io.OutputStream;
 import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
 import it.tidalwave.util.As;
 import it.tidalwave.util.Pair;
 import it.tidalwave.role.SimpleComposite;
 import it.tidalwave.role.ui.PresentationModel;
+import it.tidalwave.datamanager.model.Backup;
+import it.tidalwave.datamanager.model.ManagedFile;
 import it.tidalwave.datamanager.application.nogui.DataManagerPresentation;
-import lombok.AllArgsConstructor;
+import it.tidalwave.datamanager.util.Meters;
 import static it.tidalwave.role.ui.Displayable._Displayable_;
 
 /***********************************************************************************************************************
  *
- * An implementation of {@link DataManagerPresentation} that goes on the terminal.
+ * An implementation of {@link DataManagerPresentation} that goes on the terminal. The output is buffered by a
+ * {@link TerminalPrinter}.
  *
  * @stereotype  Presentation
  * @author      Fabrizio Giudici
  *
  **********************************************************************************************************************/
-@Component @AllArgsConstructor
+@Component
 public class TerminalDataManagerPresentation implements DataManagerPresentation
   {
     private static final As.Type<SimpleComposite<As>> _CompositeOfAs_ = As.type(SimpleComposite.class);
@@ -53,14 +60,44 @@ public class TerminalDataManagerPresentation implements DataManagerPresentation
     private static final As.Type<SimpleComposite<PresentationModel>> _CompositeOfPresentationModel_
             = As.type(SimpleComposite.class);
 
-    private final Consumer<String> printer;
+    // The following fields are replaced while redirecting
+
+    @Nonnull
+    private Consumer<String> printer;
+
+    /** Prints the records exported by a {@link RecordExporter}. */
+    @Nonnull
+    private Consumer<? super CharSequence> recordPrinter;
+
+    @Nonnull
+    private Runnable flusher;
+
+    @Nonnull
+    private Consumer<String> errorPrinter = System.err::println;
 
     /*******************************************************************************************************************
-     * {@inheritDoc}
+     *
      ******************************************************************************************************************/
     public TerminalDataManagerPresentation()
       {
-        printer = System.out::println;
+        final var terminalPrinter = new TerminalPrinter();
+        printer = terminalPrinter;
+        recordPrinter = terminalPrinter::println;
+        flusher = terminalPrinter::flush;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Creates an instance that sends lines to the given printer, which is not buffered.
+     *
+     * @param   printer     the printer
+     *
+     ******************************************************************************************************************/
+    public TerminalDataManagerPresentation (@Nonnull final Consumer<String> printer)
+      {
+        this.printer = printer;
+        this.recordPrinter = record -> printer.accept(record.toString());
+        this.flusher = () -> {};
       }
 
     /*******************************************************************************************************************
@@ -70,7 +107,12 @@ public class TerminalDataManagerPresentation implements DataManagerPresentation
     public void renderManagedFiles (@Nonnull final PresentationModel pm)
       {
         final var s = pm.as(_CompositeOfPresentationModel_).findChildren().stream();
-        Pair.indexedPairStream(s, Pair.BASE_1).forEach(this::renderManagedFile);
+        final var counter = renderedItemCounter(ManagedFile.class);
+        renderTimer(ManagedFile.class).record(() -> Pair.indexedPairStream(s, Pair.BASE_1).forEach(p ->
+          {
+            renderManagedFile(p);
+            counter.increment();
+          }));
       }
 
     /*******************************************************************************************************************
@@ -80,7 +122,34 @@ public class TerminalDataManagerPresentation implements DataManagerPresentation
     public void renderBackups (@Nonnull final PresentationModel pm)
       {
         final var s = pm.as(_CompositeOfPresentationModel_).findChildren().stream();
-        Pair.indexedPairStream(s, Pair.BASE_1).forEach(this::renderBackup);
+        final var counter = renderedItemCounter(Backup.class);
+        renderTimer(Backup.class).record(() -> Pair.indexedPairStream(s, Pair.BASE_1).forEach(p ->
+          {
+            renderBackup(p);
+            counter.increment();
+          }));
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    public void exportManagedFiles (@Nonnull final Stream<ManagedFile> managedFiles,
+                                    final boolean withFingerprints,
+                                    @Nonnull final Format format)
+      {
+        new RecordExporter(format, recordPrinter).exportManagedFiles(managedFiles, withFingerprints);
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    public void exportBackups (@Nonnull final Stream<Backup> backups,
+                               final boolean withFiles,
+                               @Nonnull final Format format)
+      {
+        new RecordExporter(format, recordPrinter).exportBackups(backups, withFiles);
       }
 
     /*******************************************************************************************************************
@@ -98,7 +167,77 @@ public class TerminalDataManagerPresentation implements DataManagerPresentation
     @Override
     public void notifyError (@Nonnull final String string)
       {
-        System.err.println(string);
+        // Keeps the order of lines when both outputs go to the terminal
+        flusher.run();
+        errorPrinter.accept(string);
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     *
+     * This method is not thread-safe: while redirecting, the output of other threads would be redirected too.
+     ******************************************************************************************************************/
+    @Override
+    public void redirect (@Nonnull final OutputStream output,
+                          @Nonnull final Consumer<String> errors,
+                          @Nonnull final Runnable task)
+      {
+        final var savedPrinter = printer;
+        final var savedRecordPrinter = recordPrinter;
+        final var savedFlusher = flusher;
+        final var savedErrorPrinter = errorPrinter;
+        final var terminalPrinter = new TerminalPrinter(output,
+                                                        TerminalPrinter.DEFAULT_BUFFER_SIZE,
+                                                        TerminalPrinter.DEFAULT_FLUSH_INTERVAL);
+        printer = terminalPrinter;
+        recordPrinter = terminalPrinter::println;
+        flusher = terminalPrinter::flush;
+        errorPrinter = errors;
+
+        try
+          {
+            task.run();
+          }
+        finally
+          {
+            terminalPrinter.close();
+            printer = savedPrinter;
+            recordPrinter = savedRecordPrinter;
+            flusher = savedFlusher;
+            errorPrinter = savedErrorPrinter;
+          }
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    public void flush()
+      {
+        flusher.run();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the timer of the renderings as text of items of the given type. It measures a whole rendering, including
+     * the lazy retrieval of the items and their children; it's not recorded per item, so it doesn't weigh on the loop.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static Timer renderTimer (@Nonnull final Class<?> type)
+      {
+        return Meters.timer(METER_RENDERINGS, "type", type.getSimpleName(), "format", Format.TEXT.name());
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the counter of the items of the given type rendered as text.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static Counter renderedItemCounter (@Nonnull final Class<?> type)
+      {
+        return Meters.counter(METER_RENDERED_ITEMS, "type", type.getSimpleName(), "format", Format.TEXT.name());
       }
 
     /*******************************************************************************************************************
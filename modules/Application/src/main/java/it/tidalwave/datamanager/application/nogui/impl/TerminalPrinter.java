@@ -0,0 +1,201 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.impl;
+
+import javax.annotation.Nonnegative;
+import jakarta.annotation.Nonnull;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/***********************************************************************************************************************
+ *
+ * Prints lines to the terminal through a large buffer, so a long listing doesn't cost a write and a flush per line.
+ * The buffer is written out when it's full, when {@link #flush()} is called and when the flush interval has elapsed
+ * since the latest flush: the latter is checked both when a line is printed and by a background task, so a slow
+ * output, such as the issues found by a verification, still shows up timely even when the producer stalls.
+ * {@link #close()} must be called when the printer is no more used, to stop the background task.
+ *
+ * This class is thread-safe, since the background task flushes concurrently with the printing thread.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class TerminalPrinter implements Consumer<String>, AutoCloseable
+  {
+    /** The default size of the buffer, in characters. */
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    /** The default flush interval. */
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(250);
+
+    /** Shared by all the instances, its daemon thread doesn't prevent the JVM from exiting. */
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r ->
+      {
+        final var thread = new Thread(r, "terminal-flusher");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+    @Nonnull
+    private final PrintWriter writer;
+
+    private final long flushIntervalNanos;
+
+    @Nonnull
+    private final ScheduledFuture<?> flushTask;
+
+    private long latestFlushTime = System.nanoTime();
+
+    /** Whether there is output not flushed yet. */
+    private boolean pending;
+
+    /** Reused by {@link #println(CharSequence)}, so it doesn't allocate a string for each line. */
+    private char[] chars = new char[256];
+
+    /*******************************************************************************************************************
+     *
+     * Creates an instance that prints to the standard output.
+     *
+     ******************************************************************************************************************/
+    public TerminalPrinter()
+      {
+        this(System.out, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Creates an instance that prints to the given stream.
+     *
+     * @param   os              the stream
+     * @param   bufferSize      the size of the buffer, in characters
+     * @param   flushInterval   the flush interval, which must be positive
+     *
+     ******************************************************************************************************************/
+    public TerminalPrinter (@Nonnull final OutputStream os,
+                            @Nonnegative final int bufferSize,
+                            @Nonnull final Duration flushInterval)
+      {
+        // Not autoflush, otherwise each println() would flush
+        writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(os, Charset.defaultCharset()), bufferSize),
+                                 false);
+        flushIntervalNanos = flushInterval.toNanos();
+        flushTask = FLUSHER.scheduleWithFixedDelay(this::flushIfNeeded,
+                                                   flushIntervalNanos,
+                                                   flushIntervalNanos,
+                                                   TimeUnit.NANOSECONDS);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Prints a line.
+     *
+     * @param   line    the line
+     *
+     ******************************************************************************************************************/
+    @Override
+    public synchronized void accept (@Nonnull final String line)
+      {
+        writer.println(line);
+        pending = true;
+        flushIfNeeded();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Prints a line. If it is a {@link StringBuilder}, its contents are copied without creating a string.
+     *
+     * @param   line    the line
+     *
+     ******************************************************************************************************************/
+    public synchronized void println (@Nonnull final CharSequence line)
+      {
+        final var length = line.length();
+
+        if (chars.length < length)
+          {
+            chars = new char[Math.max(length, chars.length * 2)];
+          }
+
+        if (line instanceof final StringBuilder sb)
+          {
+            sb.getChars(0, length, chars, 0);
+          }
+        else
+          {
+            line.toString().getChars(0, length, chars, 0);
+          }
+
+        writer.write(chars, 0, length);
+        writer.println();
+        pending = true;
+        flushIfNeeded();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Writes out the buffered lines.
+     *
+     ******************************************************************************************************************/
+    public synchronized void flush()
+      {
+        writer.flush();
+        pending = false;
+        latestFlushTime = System.nanoTime();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Writes out the buffered lines and stops the background flush. The underlying stream is not closed.
+     *
+     ******************************************************************************************************************/
+    @Override
+    public void close()
+      {
+        flushTask.cancel(false);
+        flush();
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private synchronized void flushIfNeeded()
+      {
+        if (pending && (System.nanoTime() - latestFlushTime >= flushIntervalNanos))
+          {
+            flush();
+          }
+      }
+  }
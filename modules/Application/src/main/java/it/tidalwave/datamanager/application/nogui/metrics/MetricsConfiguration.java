@@ -0,0 +1,61 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.metrics;
+
+import jakarta.annotation.Nonnull;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/***********************************************************************************************************************
+ *
+ * Configures the registry of metrics in the Prometheus format. It is added to the Micrometer global registry, where
+ * the meters of the application are registered, see {@link it.tidalwave.datamanager.util.Meters}.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Configuration @EnableConfigurationProperties(MetricsProperties.class)
+public class MetricsConfiguration
+  {
+    /*******************************************************************************************************************
+     *
+     * Creates the registry and adds it to the global registry.
+     *
+     ******************************************************************************************************************/
+    @Bean(destroyMethod = "close")
+    @Nonnull
+    public PrometheusMeterRegistry prometheusMeterRegistry()
+      {
+        final var registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        Metrics.addRegistry(registry);
+        return registry;
+      }
+  }
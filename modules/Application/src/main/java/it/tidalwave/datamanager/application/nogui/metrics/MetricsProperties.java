@@ -0,0 +1,53 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.metrics;
+
+import jakarta.annotation.Nullable;
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/***********************************************************************************************************************
+ *
+ * The configuration of the export of metrics, bound to the {@code solidblue3.metrics} properties.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@ConfigurationProperties(prefix = "solidblue3.metrics")
+@Getter @Setter @ToString
+public class MetricsProperties
+  {
+    /** The file the metrics are written to when the application exits, or {@code null} not to write them. */
+    @Nullable
+    private Path file;
+
+    /** The port of the local endpoint serving the metrics, or 0 not to serve them. */
+    private int port;
+  }
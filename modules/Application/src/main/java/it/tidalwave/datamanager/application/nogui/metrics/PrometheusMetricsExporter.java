@@ -0,0 +1,155 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.metrics;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.springframework.stereotype.Component;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/***********************************************************************************************************************
+ *
+ * Exports the metrics in the Prometheus text format. They are written to {@link MetricsProperties#getFile()} when the
+ * application exits, which fits the short runs of commands; if {@link MetricsProperties#getPort()} is set, they are
+ * also served at {@code http://localhost:<port>/metrics} while the application runs, e.g. in daemon mode, so they can
+ * be scraped. The endpoint only listens on the loopback interface.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Component @RequiredArgsConstructor @Slf4j
+public class PrometheusMetricsExporter
+  {
+    /** The path of the endpoint. */
+    public static final String ENDPOINT_PATH = "/metrics";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Nonnull
+    private final PrometheusMeterRegistry registry;
+
+    @Nonnull
+    private final MetricsProperties properties;
+
+    @Nullable
+    private HttpServer server;
+
+    /*******************************************************************************************************************
+     *
+     * Starts the endpoint, if configured.
+     *
+     * @throws  IOException     if the endpoint can't be started
+     *
+     ******************************************************************************************************************/
+    @PostConstruct
+    public void start()
+            throws IOException
+      {
+        log.info("Metrics: {}", properties);
+
+        if (properties.getPort() > 0)
+          {
+            final var address = new InetSocketAddress(InetAddress.getLoopbackAddress(), properties.getPort());
+            server = HttpServer.create(address, 0);
+            server.createContext(ENDPOINT_PATH, this::serve);
+            server.start();
+            log.info("Serving metrics at http://{}:{}{}", address.getHostString(), address.getPort(), ENDPOINT_PATH);
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Stops the endpoint and writes the metrics to the file, if configured.
+     *
+     ******************************************************************************************************************/
+    @PreDestroy
+    public void stop()
+      {
+        if (server != null)
+          {
+            server.stop(0);
+          }
+
+        final var file = properties.getFile();
+
+        if (file != null)
+          {
+            write(file);
+          }
+
+        Metrics.removeRegistry(registry);
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private void write (@Nonnull final Path file)
+      {
+        try
+          {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.writeString(file, registry.scrape(), UTF_8);
+            log.info("Metrics written to {}", file);
+          }
+        catch (IOException e)
+          {
+            log.warn("Cannot write metrics to {}: {}", file, e.toString());
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private void serve (@Nonnull final HttpExchange exchange)
+            throws IOException
+      {
+        try
+          {
+            final var bytes = registry.scrape().getBytes(UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+          }
+        finally
+          {
+            exchange.close();
+          }
+      }
+  }
@@ -55,6 +55,8 @@ public class MockBackupFinder
 
     private final Holder<MockBackupFinder> holder;
 
+    private final List<Backup> backups;
+
     @Nonnull
     public final List<Pair<SortCriterion, SortDirection>> sorters;
 
@@ -67,13 +69,23 @@ public class MockBackupFinder
     @Nonnull
     public final Optional<String> fileId;
 
+    @Nonnull
+    public final Optional<Backup> lastSeen;
+
     public MockBackupFinder (@Nonnull final Holder<MockBackupFinder> holder)
+      {
+        this(holder, List.of());
+      }
+
+    public MockBackupFinder (@Nonnull final Holder<MockBackupFinder> holder, @Nonnull final List<Backup> backups)
       {
         this.holder = holder;
+        this.backups = backups;
         this.sorters = new ArrayList<>();
         this.label = Optional.empty();
         this.volumeId = Optional.empty();
         this.fileId = Optional.empty();
+        this.lastSeen = Optional.empty();
       }
 
     public MockBackupFinder (@Nonnull final MockBackupFinder other, @Nonnull final Object override)
@@ -81,10 +93,12 @@ public class MockBackupFinder
         super(other, override);
         final var source = getSource(MockBackupFinder.class, other, override);
         this.holder = source.holder;
+        this.backups = source.backups;
         this.sorters = source.sorters;
         this.label = source.label;
         this.volumeId = source.volumeId;
         this.fileId = source.fileId;
+        this.lastSeen = source.lastSeen;
         holder.set(this);
       }
 
@@ -92,33 +106,44 @@ public class MockBackupFinder
     public MockBackupFinder sort (@Nonnull final SortCriterion criterion, @Nonnull final SortDirection direction)
       {
         return clonedWith(new MockBackupFinder(holder,
+                                               backups,
                                                concat(sorters, Pair.of(criterion, direction)),
                                                label,
                                                volumeId,
-                                               fileId));
+                                               fileId,
+                                               lastSeen));
       }
 
     @Nonnull
     public DataManager.BackupFinder withLabel (@Nonnull final Optional<String> label)
       {
-        return clonedWith(new MockBackupFinder(holder, sorters, label, volumeId, fileId));
+        return clonedWith(new MockBackupFinder(holder, backups, sorters, label, volumeId, fileId, lastSeen));
       }
 
     @Nonnull
     public DataManager.BackupFinder withVolumeId (@Nonnull final Optional<String> volumeId)
       {
-        return clonedWith(new MockBackupFinder(holder, sorters, label, volumeId, fileId));
+        return clonedWith(new MockBackupFinder(holder, backups, sorters, label, volumeId, fileId, lastSeen));
       }
 
     @Nonnull
     public DataManager.BackupFinder withFileId (@Nonnull final Optional<String> fileId)
       {
-        return clonedWith(new MockBackupFinder(holder, sorters, label, volumeId, fileId));
+        return clonedWith(new MockBackupFinder(holder, backups, sorters, label, volumeId, fileId, lastSeen));
+      }
+
+    @Nonnull
+    public DataManager.BackupFinder startingAfter (@Nonnull final Optional<Backup> lastSeen)
+      {
+        return clonedWith(new MockBackupFinder(holder, backups, sorters, label, volumeId, fileId, lastSeen));
       }
 
     @Override @Nonnull
     protected List<Backup> computeResults()
       {
-        return List.of();
+        return backups.stream()
+                      .filter(b -> label.map(b.getLabel()::equals).orElse(true))
+                      .filter(b -> volumeId.map(b.getVolumeId().stringValue()::equals).orElse(true))
+                      .toList();
       }
   }
@@ -29,9 +29,13 @@ package it.tidalwave.datamanager.application.nogui;
 import jakarta.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.io.OutputStream;
 import it.tidalwave.util.As;
 import it.tidalwave.role.SimpleComposite;
 import it.tidalwave.role.ui.PresentationModel;
+import it.tidalwave.datamanager.model.Backup;
 import it.tidalwave.datamanager.model.Fingerprint;
 import it.tidalwave.datamanager.model.ManagedFile;
 import lombok.Getter;
@@ -52,6 +56,8 @@ public class MockDataManagerPresentation implements DataManagerPresentation
 
     public final List<String> error = new ArrayList<>();
 
+    public Format exportFormat;
+
     @Override
     public void renderManagedFiles (@Nonnull final PresentationModel pm)
       {
@@ -72,6 +78,48 @@ public class MockDataManagerPresentation implements DataManagerPresentation
           });
       }
 
+    @Override
+    public void exportManagedFiles (@Nonnull final Stream<ManagedFile> managedFiles,
+                                    final boolean withFingerprints,
+                                    @Nonnull final Format format)
+      {
+        exportFormat = format;
+        managedFiles.forEach(m ->
+          {
+            objects.add(m.getPath().toString());
+
+            if (withFingerprints)
+              {
+                m.getFingerprints().stream().map(Fingerprint::getFingerprint).forEach(objects::add);
+              }
+          });
+      }
+
+    @Override
+    public void exportBackups (@Nonnull final Stream<Backup> backups,
+                               final boolean withFiles,
+                               @Nonnull final Format format)
+      {
+        exportFormat = format;
+        backups.forEach(b ->
+          {
+            objects.add(b.getLabel());
+
+            if (withFiles)
+              {
+                b.getBackupFiles().stream().map(f -> f.getPath().toString()).forEach(objects::add);
+              }
+          });
+      }
+
+    @Override
+    public void redirect (@Nonnull final OutputStream output,
+                          @Nonnull final Consumer<String> errors,
+                          @Nonnull final Runnable task)
+      {
+        task.run();
+      }
+
     @Override
     public void output (@Nonnull final String string)
       {
@@ -64,6 +64,12 @@ public class MockManagedFileFinder
     @Nonnull
     public final Optional<String> fingerprint;
 
+    @Nonnull
+    public final Optional<String> pathRegex;
+
+    @Nonnull
+    public final Optional<ManagedFile> lastSeen;
+
     public MockManagedFileFinder (@Nonnull final Holder<MockManagedFileFinder> holder,
                                   @Nonnull final List<ManagedFile> result)
       {
@@ -71,6 +77,8 @@ public class MockManagedFileFinder
         this.result = result;
         this.sorters = new ArrayList<>();
         this.fingerprint = Optional.empty();
+        this.pathRegex = Optional.empty();
+        this.lastSeen = Optional.empty();
       }
 
     public MockManagedFileFinder (@Nonnull final MockManagedFileFinder other, @Nonnull final Object override)
@@ -81,6 +89,8 @@ public class MockManagedFileFinder
         this.result = source.result;
         this.sorters = source.sorters;
         this.fingerprint = source.fingerprint;
+        this.pathRegex = source.pathRegex;
+        this.lastSeen = source.lastSeen;
         holder.set(this);
       }
 
@@ -90,18 +100,33 @@ public class MockManagedFileFinder
         return clonedWith(new MockManagedFileFinder(holder,
                                                     result,
                                                     concat(sorters, Pair.of(criterion, direction)),
-                                                    fingerprint));
+                                                    fingerprint,
+                                                    pathRegex,
+                                                    lastSeen));
       }
 
     @Nonnull
     public DataManager.ManagedFileFinder withFingerprint (@Nonnull final Optional<String> fingerprint)
       {
-        return clonedWith(new MockManagedFileFinder(holder, result, sorters, fingerprint));
+        return clonedWith(new MockManagedFileFinder(holder, result, sorters, fingerprint, pathRegex, lastSeen));
+      }
+
+    @Nonnull
+    public DataManager.ManagedFileFinder withPathMatching (@Nonnull final Optional<String> pathRegex)
+      {
+        return clonedWith(new MockManagedFileFinder(holder, result, sorters, fingerprint, pathRegex, lastSeen));
+      }
+
+    @Nonnull
+    public DataManager.ManagedFileFinder startingAfter (@Nonnull final Optional<ManagedFile> lastSeen)
+      {
+        return clonedWith(new MockManagedFileFinder(holder, result, sorters, fingerprint, pathRegex, lastSeen));
       }
 
     @Override @Nonnull
     protected List<ManagedFile> computeResults()
       {
-        return result;
+        return pathRegex.map(r -> result.stream().filter(mf -> mf.getPath().toString().matches(r)).toList())
+                        .orElse(result);
       }
   }
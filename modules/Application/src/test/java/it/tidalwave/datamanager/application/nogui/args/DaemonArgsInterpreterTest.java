@@ -0,0 +1,281 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.args;
+
+import jakarta.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentation;
+import it.tidalwave.datamanager.application.nogui.daemon.DaemonClient;
+import it.tidalwave.datamanager.application.nogui.daemon.DaemonProtocol;
+import it.tidalwave.datamanager.application.nogui.impl.TerminalDataManagerPresentation;
+import it.tidalwave.datamanager.dao.impl.jpa.CacheEvictor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class DaemonArgsInterpreterTest
+  {
+    private Path socket;
+
+    private List<String> terminal;
+
+    private UsageArgsInterpreter usageArgsInterpreter;
+
+    private CacheEvictor cacheEvictor;
+
+    private Thread daemon;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    /******************************************************************************************************************/
+    @BeforeMethod
+    public void setup()
+            throws Exception
+      {
+        socket = Files.createTempDirectory("daemon").resolve("test.sock");
+        terminal = new ArrayList<>();
+        usageArgsInterpreter = mock(UsageArgsInterpreter.class);
+        cacheEvictor = mock(CacheEvictor.class);
+        final var presentation = new TerminalDataManagerPresentation(terminal::add);
+        final var interpreters = new ArrayList<ArgsInterpreterSupport>();
+        final var underTest = new DaemonArgsInterpreter(presentation, usageArgsInterpreter, () -> interpreters,
+                                                        cacheEvictor);
+        underTest.setRequestTimeout(Duration.ofMillis(200));
+        interpreters.add(underTest);
+        interpreters.add(new EchoArgsInterpreter(presentation));
+        daemon = new Thread(() -> underTest.run(new DefaultApplicationArguments("daemon", "--socket=" + socket)));
+        daemon.setDaemon(true);
+        daemon.start();
+
+        while (!Files.exists(socket))
+          {
+            Thread.sleep(10);
+          }
+      }
+
+    /******************************************************************************************************************/
+    @AfterMethod
+    public void tearDown()
+            throws IOException
+      {
+        daemon.interrupt();
+        Files.deleteIfExists(socket);
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_serve_commands()
+      {
+        for (int i = 0; i < 3; i++)
+          {
+            // given
+            out.reset();
+            // when
+            final var status = DaemonClient.run(socket, List.of("list-files", "--foo=" + i), out, new PrintStream(err));
+            // then
+            assertThat(status, is(0));
+            assertThat(out.toString(Charset.defaultCharset()), is("list-files --foo=%d%n".formatted(i)));
+          }
+
+        assertThat(err.toString(Charset.defaultCharset()), is(""));
+        assertThat(terminal, is(List.of("Listening on " + socket)));
+        verify(usageArgsInterpreter, times(3)).enableUsage();
+        verify(cacheEvictor, times(3)).evictIfDatabaseChanged();
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_make_the_socket_only_accessible_to_the_owner()
+            throws IOException
+      {
+        // when
+        final var permissions = Files.getPosixFilePermissions(socket);
+        // then
+        assertThat(permissions, is(PosixFilePermissions.fromString("rw-------")));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_reject_too_many_arguments()
+            throws IOException
+      {
+        try (final var channel = connect())
+          {
+            // given
+            final var dos = new DataOutputStream(Channels.newOutputStream(channel));
+            final var dis = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            // when
+            dos.writeInt(Integer.MAX_VALUE);
+            dos.flush();
+            // then
+            assertThat(dis.readByte(), is(DaemonProtocol.ERROR));
+            assertThat(dis.readUTF(), is("Invalid request: Invalid number of arguments: 2147483647 (max 256)"));
+            assertThat(dis.readByte(), is(DaemonProtocol.EXIT));
+            assertThat(dis.readInt(), is(1));
+          }
+
+        verifyNoInteractions(cacheEvictor);
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_reject_too_long_arguments()
+            throws IOException
+      {
+        try (final var channel = connect())
+          {
+            // given
+            final var dos = new DataOutputStream(Channels.newOutputStream(channel));
+            final var dis = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            // when
+            dos.writeInt(1);
+            dos.writeUTF("x".repeat(DaemonProtocol.MAX_ARGUMENT_LENGTH + 1));
+            dos.flush();
+            // then
+            assertThat(dis.readByte(), is(DaemonProtocol.ERROR));
+            assertThat(dis.readUTF(), is("Invalid request: Argument too long: 4097 bytes (max 4096)"));
+            assertThat(dis.readByte(), is(DaemonProtocol.EXIT));
+            assertThat(dis.readInt(), is(1));
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_not_be_blocked_by_a_client_not_sending_its_request()
+            throws IOException
+      {
+        try (final var idle = connect())
+          {
+            // when
+            final var status = DaemonClient.run(socket, List.of("list-files", "--foo=1"), out, new PrintStream(err));
+            // then
+            assertThat(status, is(0));
+            assertThat(out.toString(Charset.defaultCharset()), is("list-files --foo=1%n".formatted()));
+            assertThat(idle.read(ByteBuffer.allocate(1)), is(-1));
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_report_errors()
+      {
+        // when
+        final var status = DaemonClient.run(socket, List.of("list-files", "--fail"), out, new PrintStream(err));
+        // then
+        assertThat(status, is(1));
+        assertThat(out.toString(Charset.defaultCharset()), is("list-files --fail%n".formatted()));
+        assertThat(err.toString(Charset.defaultCharset()), is("failed%n".formatted()));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_reject_commands_not_served()
+      {
+        // when
+        final var status = DaemonClient.run(socket, List.of("scan", "--folder=/foo"), out, new PrintStream(err));
+        // then
+        assertThat(status, is(1));
+        assertThat(out.toString(Charset.defaultCharset()), is(""));
+        assertThat(err.toString(Charset.defaultCharset()),
+                   is("The daemon only serves list-files, list-backups%n".formatted()));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_report_missing_daemon()
+      {
+        // when
+        final var status = DaemonClient.run(socket.resolveSibling("missing.sock"), List.of("list-files"), out,
+                                            new PrintStream(err));
+        // then
+        assertThat(status, is(DaemonClient.STATUS_NO_DAEMON));
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private SocketChannel connect()
+            throws IOException
+      {
+        final var channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.connect(UnixDomainSocketAddress.of(socket));
+        return channel;
+      }
+
+    /******************************************************************************************************************/
+    static class EchoArgsInterpreter extends ArgsInterpreterSupport
+      {
+        @Nonnull
+        private final DataManagerPresentation presentation;
+
+        EchoArgsInterpreter (@Nonnull final DataManagerPresentation presentation)
+          {
+            super("list-files", Set.of("foo", "fail"), presentation);
+            this.presentation = presentation;
+          }
+
+        @Override
+        protected void doRun (@Nonnull final ApplicationArguments args)
+          {
+            presentation.output(String.join(" ", args.getSourceArgs()));
+
+            if (args.containsOption("fail"))
+              {
+                presentation.notifyError("failed");
+              }
+          }
+      }
+  }
@@ -0,0 +1,130 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.args;
+
+import jakarta.annotation.Nonnull;
+import java.util.List;
+import org.springframework.boot.DefaultApplicationArguments;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl;
+import it.tidalwave.datamanager.application.nogui.MockDataManagerPresentation;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import static it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl.DuplicateOptions.*;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class FindDuplicatesArgsInterpreterTest
+  {
+    private FindDuplicatesArgsInterpreter underTest;
+
+    private DataManagerPresentationControl presentationController;
+
+    private MockDataManagerPresentation presentation;
+
+    private UsageArgsInterpreter usageArgsInterpreter;
+
+    /******************************************************************************************************************/
+    @BeforeMethod
+    public void setup()
+      {
+        presentationController = mock(DataManagerPresentationControl.class, CALLS_REAL_METHODS);
+        presentation = new MockDataManagerPresentation();
+        usageArgsInterpreter = mock(UsageArgsInterpreter.class);
+        underTest = new FindDuplicatesArgsInterpreter(presentationController, presentation, usageArgsInterpreter);
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_do_nothing_when_no_args()
+      {
+        // when
+        underTest.run(new DefaultApplicationArguments());
+        // then
+        assertThat(presentation.outputToString(), is(""));
+        verifyNoInteractions(presentationController);
+        verifyNoInteractions(usageArgsInterpreter);
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "argsAndOptions")
+    public void must_render_duplicates (@Nonnull final List<String> args, @Nonnull final Builder expectedOptions)
+      {
+        // when
+        underTest.run(new DefaultApplicationArguments(args.toArray(new String[0])));
+        // then
+        verify(presentationController).renderDuplicates(any(Builder.class));
+        verify(presentationController).renderDuplicates(expectedOptions.build());
+        verifyNoMoreInteractions(presentationController);
+        verify(usageArgsInterpreter).disableUsage();
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_emit_error_when_min_size_is_greater_than_max_size()
+      {
+        // when
+        underTest.run(new DefaultApplicationArguments("find-duplicates", "--min-size=2000", "--max-size=1000"));
+        // then
+        assertThat(presentation.errorToString(), is("--min-size cannot be greater than --max-size"));
+        verifyNoInteractions(presentationController);
+        verifyNoInteractions(usageArgsInterpreter);
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_emit_error_when_invalid_args()
+      {
+        // when
+        underTest.run(new DefaultApplicationArguments("find-duplicates", "--foobar"));
+        // then
+        assertThat(presentation.errorToString(), is("Invalid options: --foobar"));
+        verifyNoInteractions(presentationController);
+        verifyNoInteractions(usageArgsInterpreter);
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] argsAndOptions()
+      {
+        return new Object[][]
+          {
+            { List.of("find-duplicates"),                         withDefaultOptions()              },
+            { List.of("find-duplicates", "--min-size=1000"),      with().minSize(1000)              },
+            { List.of("find-duplicates", "--max-size=2000"),      with().maxSize(2000)              },
+            { List.of("find-duplicates", "--path-prefix=/foo"),   with().pathPrefix("/foo")         },
+            { List.of("find-duplicates", "--min-size=1000", "--max-size=2000", "--path-prefix=/foo"),
+              with().minSize(1000).maxSize(2000).pathPrefix("/foo") }
+          };
+      }
+  }
@@ -34,6 +34,8 @@ import it.tidalwave.datamanager.application.nogui.MockDataManagerPresentation;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
+import static it.tidalwave.datamanager.application.nogui.DataManagerPresentation.Format.CSV;
+import static it.tidalwave.datamanager.application.nogui.DataManagerPresentation.Format.NDJSON;
 import static it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl.BackupOptions.*;
 import static org.mockito.Mockito.*;
 import static org.hamcrest.CoreMatchers.is;
@@ -101,6 +103,18 @@ public class ListBackupsArgsInterpreterTest
         verifyNoInteractions(usageArgsInterpreter);
       }
 
+    /******************************************************************************************************************/
+    @Test
+    public void must_emit_error_when_invalid_format()
+      {
+        // when
+        underTest.run(new DefaultApplicationArguments("list-backups", "--format=xml"));
+        // then
+        assertThat(presentation.errorToString(), is("Invalid format: xml"));
+        verifyNoInteractions(presentationController);
+        verifyNoInteractions(usageArgsInterpreter);
+      }
+
     /******************************************************************************************************************/
     @DataProvider
     private static Object[][] argsAndOptions()
@@ -110,7 +124,10 @@ public class ListBackupsArgsInterpreterTest
             { List.of("list-backups"),                     withDefaultOptions()   },
             { List.of("list-backups", "--label=foo"),      with().label("foo")    },
             { List.of("list-backups", "--file-id=id"),     with().fileId("id")    },
-            { List.of("list-backups", "--volume-id=bar"),  with().volumeId("bar") }
+            { List.of("list-backups", "--volume-id=bar"),  with().volumeId("bar") },
+            { List.of("list-backups", "--format=ndjson"),  with().format(NDJSON)  },
+            { List.of("list-backups", "--count"),          with().count()         },
+            { List.of("list-backups", "--format=csv", "--files"), with().format(CSV).renderFiles() }
           };
       }
   }
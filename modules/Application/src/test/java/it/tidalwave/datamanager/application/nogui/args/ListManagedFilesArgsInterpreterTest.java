@@ -35,6 +35,8 @@ import it.tidalwave.datamanager.application.nogui.MockDataManagerPresentation;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
+import static it.tidalwave.datamanager.application.nogui.DataManagerPresentation.Format.CSV;
+import static it.tidalwave.datamanager.application.nogui.DataManagerPresentation.Format.NDJSON;
 import static it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl.ManagedFileOptions.*;
 import static org.mockito.Mockito.*;
 import static org.hamcrest.CoreMatchers.is;
@@ -92,12 +94,36 @@ public class ListManagedFilesArgsInterpreterTest
 
     /******************************************************************************************************************/
     @Test(dataProvider = "errorArgs")
-    public void must_emit_error_when_both_max_and_filter (@Nonnull final String[] args)
+    public void must_emit_error_when_both_max_and_missing (@Nonnull final String[] args)
       {
         // when
         underTest.run(new DefaultApplicationArguments(args));
         // then
-        assertThat(presentation.errorToString(), is("--max cannot be used with --regex or --missing"));
+        assertThat(presentation.errorToString(), is("--max cannot be used with --missing"));
+        verifyNoInteractions(presentationController);
+        verifyNoInteractions(usageArgsInterpreter);
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_emit_error_when_both_count_and_missing()
+      {
+        // when
+        underTest.run(new DefaultApplicationArguments("list-files", "--count", "--missing"));
+        // then
+        assertThat(presentation.errorToString(), is("--count cannot be used with --missing"));
+        verifyNoInteractions(presentationController);
+        verifyNoInteractions(usageArgsInterpreter);
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_emit_error_when_invalid_regex()
+      {
+        // when
+        underTest.run(new DefaultApplicationArguments("list-files", "--regex=foo[bar"));
+        // then
+        assertThat(presentation.errorToString(), is("Invalid regular expression: foo[bar (Unclosed character class)"));
         verifyNoInteractions(presentationController);
         verifyNoInteractions(usageArgsInterpreter);
       }
@@ -114,6 +140,18 @@ public class ListManagedFilesArgsInterpreterTest
         verifyNoInteractions(usageArgsInterpreter);
       }
 
+    /******************************************************************************************************************/
+    @Test
+    public void must_emit_error_when_invalid_format()
+      {
+        // when
+        underTest.run(new DefaultApplicationArguments("list-files", "--format=xml"));
+        // then
+        assertThat(presentation.errorToString(), is("Invalid format: xml"));
+        verifyNoInteractions(presentationController);
+        verifyNoInteractions(usageArgsInterpreter);
+      }
+
     /******************************************************************************************************************/
     @DataProvider
     private static Object[][] argsAndOptions()
@@ -123,9 +161,13 @@ public class ListManagedFilesArgsInterpreterTest
             { List.of("list-files"),                      withDefaultOptions()        },
             { List.of("list-files", "--max=1"),           with().max(1)               },
             { List.of("list-files", "--regex=.*2"),       with().regex(".*2")         },
+            { List.of("list-files", "--max=1", "--regex=.*2"), with().max(1).regex(".*2") },
             { List.of("list-files", "--fingerprints"),    with().renderFingerprints() },
             { List.of("list-files", "--fingerprint=fp"),  with().fingerprint("fp")    },
-            { List.of("list-files", "--missing"),         with().missingFiles()       }
+            { List.of("list-files", "--missing"),         with().missingFiles()       },
+            { List.of("list-files", "--format=ndjson"),   with().format(NDJSON)       },
+            { List.of("list-files", "--count", "--regex=.*2"), with().count().regex(".*2") },
+            { List.of("list-files", "--format=CSV", "--fingerprints"), with().format(CSV).renderFingerprints() }
           };
       }
 
@@ -136,7 +178,7 @@ public class ListManagedFilesArgsInterpreterTest
         return new Object[][]
           {
             {"list-files", "--max=10", "--missing"},
-            {"list-files", "--max=10", "--regex=foobar"}
+            {"list-files", "--max=10", "--regex=foobar", "--missing"}
           };
       }
   }
@@ -27,28 +27,47 @@
 package it.tidalwave.datamanager.application.nogui.impl;
 
 import jakarta.annotation.Nonnull;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import it.tidalwave.util.IdFactory;
 import it.tidalwave.util.Pair;
 import it.tidalwave.datamanager.model.DataManager;
+import it.tidalwave.datamanager.model.DuplicateCriteria;
+import it.tidalwave.datamanager.model.DuplicateGroup;
 import it.tidalwave.datamanager.model.Fingerprint;
 import it.tidalwave.datamanager.model.ManagedFile;
+import it.tidalwave.datamanager.model.ScanResult;
+import it.tidalwave.datamanager.model.TestModelFactory;
+import it.tidalwave.datamanager.model.VerificationIssue;
+import it.tidalwave.datamanager.model.VerificationResult;
 import it.tidalwave.datamanager.application.nogui.Holder;
 import it.tidalwave.datamanager.application.nogui.MockBackupFinder;
 import it.tidalwave.datamanager.application.nogui.MockDataManagerPresentation;
 import it.tidalwave.datamanager.application.nogui.MockManagedFileFinder;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import static it.tidalwave.datamanager.application.nogui.DataManagerPresentation.Format.CSV;
+import static it.tidalwave.datamanager.application.nogui.DataManagerPresentation.Format.NDJSON;
 import static it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl.*;
 import static it.tidalwave.datamanager.model.DataManager.BackupFinder.SortingKeys.LABEL;
+import static it.tidalwave.datamanager.model.DataManager.ScanMode.INCREMENTAL;
+import static it.tidalwave.datamanager.model.VerificationIssue.Kind.MISMATCH;
+import static it.tidalwave.datamanager.model.VerificationIssue.Kind.UNREADABLE;
 import static it.tidalwave.datamanager.model.DataManager.ManagedFileFinder.SortingKeys.PATH;
 import static it.tidalwave.util.Finder.SortDirection.ASCENDING;
 import static it.tidalwave.util.spring.jpa.JpaSpecificationFinder.by;
+import static it.tidalwave.datamanager.util.FileExistenceChecker.CHUNK_SIZE;
 import static org.mockito.Mockito.*;
+import static org.hamcrest.CoreMatchers.endsWith;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 /***********************************************************************************************************************
@@ -110,6 +129,19 @@ public class DefaultDataManagerPresentationControlTest
         assertThat(managedFileFinder.f.fingerprint, is(Optional.empty()));
       }
 
+    /******************************************************************************************************************/
+    @Test
+    public void must_export_data_with_fingerprints()
+      {
+        // when
+        underTest.renderManagedFiles(ManagedFileOptions.with().renderFingerprints().format(NDJSON));
+        // then
+        assertThat(managedFileFinder.f.sorters, is(List.of(Pair.of(by(PATH), ASCENDING))));
+        assertThat(presentation.exportFormat, is(NDJSON));
+        assertThat(presentation.getObjects(), is(List.of("/foo/bar/1", "1:f1", "1:f2",
+                                                         "/foo/bar/2", "2:f1", "2:f2", "2:f3")));
+      }
+
     /******************************************************************************************************************/
     @Test
     public void must_render_data_with_max()
@@ -132,6 +164,64 @@ public class DefaultDataManagerPresentationControlTest
         assertThat(managedFileFinder.f.sorters, is(List.of(Pair.of(by(PATH), ASCENDING))));
         assertThat(presentation.getObjects(), is(List.of("/foo/bar/2")));
         assertThat(managedFileFinder.f.fingerprint, is(Optional.empty()));
+        assertThat(managedFileFinder.f.pathRegex, is(Optional.of(".*2")));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_render_missing_data()
+            throws IOException
+      {
+        // given
+        final var folder = Files.createTempDirectory("missing");
+        final var paths = IntStream.range(0, 20).mapToObj(i -> folder.resolve("file-%02d".formatted(i))).toList();
+
+        for (int i = 0; i < paths.size(); i += 2)
+          {
+            Files.createFile(paths.get(i));
+          }
+
+        final var allPaths = Stream.concat(paths.stream(), Stream.of(Path.of("/foo/bar/1"))).toList();
+        managedFileFinder = Holder.of(h -> new MockManagedFileFinder(h,
+                allPaths.stream().map(p -> mockManagedFile(p.toString())).toList()));
+        when(dataManager.findManagedFiles()).thenReturn(managedFileFinder.f);
+        // when
+        underTest.renderManagedFiles(ManagedFileOptions.with().missingFiles());
+        // then
+        final var expectedObjects = IntStream.range(0, allPaths.size())
+                                             .filter(i -> i % 2 == 1 || i == paths.size())
+                                             .mapToObj(i -> allPaths.get(i).toString())
+                                             .toList();
+        assertThat(presentation.getObjects(), is(expectedObjects));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_render_missing_data_in_a_directory_spanning_many_chunks()
+            throws IOException
+      {
+        // given
+        final var folder = Files.createTempDirectory("missing");
+        final var paths = IntStream.range(0, CHUNK_SIZE * 2 + 10)
+                                   .mapToObj(i -> folder.resolve("file-%04d".formatted(i)))
+                                   .toList();
+
+        for (int i = 0; i < paths.size(); i += 3)
+          {
+            Files.createFile(paths.get(i));
+          }
+
+        managedFileFinder = Holder.of(h -> new MockManagedFileFinder(h,
+                paths.stream().map(p -> mockManagedFile(p.toString())).toList()));
+        when(dataManager.findManagedFiles()).thenReturn(managedFileFinder.f);
+        // when
+        underTest.renderManagedFiles(ManagedFileOptions.with().missingFiles());
+        // then
+        final var expectedObjects = IntStream.range(0, paths.size())
+                                             .filter(i -> i % 3 != 0)
+                                             .mapToObj(i -> paths.get(i).toString())
+                                             .toList();
+        assertThat(presentation.getObjects(), is(expectedObjects));
       }
 
     /******************************************************************************************************************/
@@ -146,6 +236,18 @@ public class DefaultDataManagerPresentationControlTest
         assertThat(managedFileFinder.f.fingerprint, is(Optional.of("2:f2")));
       }
 
+    /******************************************************************************************************************/
+    @Test
+    public void must_render_count_of_data()
+      {
+        // when
+        underTest.renderManagedFiles(ManagedFileOptions.with().regex(".*2").count());
+        // then
+        assertThat(managedFileFinder.f.pathRegex, is(Optional.of(".*2")));
+        assertThat(presentation.getObjects(), is(List.of()));
+        assertThat(presentation.outputToString(), is("1"));
+      }
+
     /******************************************************************************************************************/
     @Test
     public void must_render_backups()
@@ -168,6 +270,40 @@ public class DefaultDataManagerPresentationControlTest
         assertThat(backupFinder.f.volumeId, is(Optional.empty()));
       }
 
+    /******************************************************************************************************************/
+    @Test
+    public void must_export_backups_with_files()
+      {
+        // given
+        final var tmf = new TestModelFactory();
+        final var backup = tmf.createBackup(tmf.createManagedFile(1));
+        backupFinder = Holder.of(h -> new MockBackupFinder(h, List.of(backup)));
+        when(dataManager.findBackups()).thenReturn(backupFinder.f);
+        // when
+        underTest.renderBackups(BackupOptions.with().renderFiles().format(CSV));
+        // then
+        assertThat(backupFinder.f.sorters, is(List.of(Pair.of(by(LABEL), ASCENDING))));
+        assertThat(presentation.exportFormat, is(CSV));
+        assertThat(presentation.getObjects(),
+                   is(List.of(backup.getLabel(), backup.getBackupFiles().get(0).getPath().toString())));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_render_count_of_backups()
+      {
+        // given
+        final var tmf = new TestModelFactory();
+        backupFinder = Holder.of(h -> new MockBackupFinder(h, List.of(tmf.createBackup(tmf.createManagedFile(1)),
+                                                                      tmf.createBackup(tmf.createManagedFile(2)))));
+        when(dataManager.findBackups()).thenReturn(backupFinder.f);
+        // when
+        underTest.renderBackups(BackupOptions.with().count());
+        // then
+        assertThat(presentation.getObjects(), is(List.of()));
+        assertThat(presentation.outputToString(), is("2"));
+      }
+
     /******************************************************************************************************************/
     @Test
     public void must_render_backups_with_label()
@@ -204,6 +340,119 @@ public class DefaultDataManagerPresentationControlTest
         assertThat(backupFinder.f.fileId, is(Optional.of("id")));
       }
 
+    /******************************************************************************************************************/
+    @Test
+    public void must_scan_and_render_summary()
+      {
+        // given
+        final var folder = Path.of("/foo/bar");
+        when(dataManager.scan(folder, INCREMENTAL)).thenReturn(ScanResult.builder()
+                                                                         .fileCount(3)
+                                                                         .byteCount(3_000_000)
+                                                                         .skippedCount(5)
+                                                                         .newFingerprintCount(2)
+                                                                         .errorCount(1)
+                                                                         .elapsedTime(Duration.ofSeconds(2))
+                                                                         .build());
+        // when
+        underTest.scan(folder, INCREMENTAL);
+        // then
+        verify(dataManager).scan(folder, INCREMENTAL);
+        assertThat(presentation.outputToString(), startsWith("Scanned 3 files, 3000000 bytes in 2.0 seconds (1.5 MB/s)"));
+        assertThat(presentation.outputToString(),
+                   endsWith("5 unchanged files skipped, 2 new fingerprints, 1 errors"));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_verify_backup_and_render_issues()
+      {
+        // given
+        final var tmf = new TestModelFactory();
+        final var backup = tmf.createBackup(tmf.createManagedFile(1));
+        final var backupFile = backup.getBackupFiles().get(0);
+        backupFinder = Holder.of(h -> new MockBackupFinder(h, List.of(tmf.createBackup(tmf.createManagedFile(1)),
+                                                                      backup)));
+        when(dataManager.findBackups()).thenReturn(backupFinder.f);
+        when(dataManager.verifyBackup(eq(backup), any())).thenAnswer(invocation ->
+          {
+            final Consumer<VerificationIssue> consumer = invocation.getArgument(1);
+            consumer.accept(VerificationIssue.builder()
+                                             .kind(MISMATCH)
+                                             .backupFile(backupFile)
+                                             .path(Path.of("/backup/foo"))
+                                             .expectedFingerprint(Optional.of("1234"))
+                                             .actualFingerprint(Optional.of("5678"))
+                                             .build());
+            consumer.accept(VerificationIssue.builder()
+                                             .kind(UNREADABLE)
+                                             .backupFile(backupFile)
+                                             .path(Path.of("/backup/bar"))
+                                             .expectedFingerprint(Optional.of("1234"))
+                                             .cause(Optional.of("java.io.IOException: Input/output error"))
+                                             .build());
+            return VerificationResult.builder()
+                                     .fileCount(2)
+                                     .okCount(0)
+                                     .issueCount(2)
+                                     .elapsedTime(Duration.ofSeconds(3))
+                                     .build();
+          });
+        // when
+        underTest.verifyBackup(BackupOptions.with().label(backup.getLabel()));
+        // then
+        verify(dataManager).verifyBackup(eq(backup), any());
+        assertThat(presentation.output, is(List.of(
+                "Verifying %s in %s".formatted(backup.getLabel(), backup.getBasePath()),
+                "MISMATCH       /backup/foo (expected 1234, found 5678)",
+                "UNREADABLE     /backup/bar (java.io.IOException: Input/output error)",
+                "Verified 2 files in 3 seconds: 0 ok, 2 with issues")));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_emit_error_when_verifying_an_unknown_backup()
+      {
+        // when
+        underTest.verifyBackup(BackupOptions.with().label("foo"));
+        // then
+        assertThat(presentation.errorToString(), is("Backup not found"));
+        verify(dataManager, never()).verifyBackup(any(), any());
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_render_duplicates_and_summary()
+      {
+        // given
+        final var criteria = DuplicateCriteria.builder()
+                                              .minSize(Optional.of(1000L))
+                                              .pathPrefix(Optional.of("/foo"))
+                                              .build();
+        when(dataManager.findDuplicates(criteria)).thenReturn(Stream.of(
+                DuplicateGroup.builder()
+                              .algorithm("md5")
+                              .fingerprint("1234")
+                              .size(Optional.of(2000L))
+                              .managedFiles(List.of(mockManagedFile("/foo/1"), mockManagedFile("/foo/2"),
+                                                    mockManagedFile("/foo/3")))
+                              .build(),
+                DuplicateGroup.builder()
+                              .algorithm("md5")
+                              .fingerprint("5678")
+                              .size(Optional.empty())
+                              .managedFiles(List.of(mockManagedFile("/foo/4"), mockManagedFile("/foo/5")))
+                              .build()));
+        // when
+        underTest.renderDuplicates(DuplicateOptions.with().minSize(1000).pathPrefix("/foo"));
+        // then
+        verify(dataManager).findDuplicates(criteria);
+        assertThat(presentation.output, is(List.of(
+                "md5:1234 (2000 bytes)\n    /foo/1\n    /foo/2\n    /foo/3",
+                "md5:5678 (size unknown)\n    /foo/4\n    /foo/5",
+                "Found 2 groups of duplicates, 5 files, 4000 redundant bytes")));
+      }
+
     /******************************************************************************************************************/
     @Nonnull
     private ManagedFile mockManagedFile (@Nonnull final String path, @Nonnull final String ... fingerprints)
@@ -0,0 +1,172 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.impl;
+
+import jakarta.annotation.Nonnull;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.nio.file.Path;
+import it.tidalwave.util.Id;
+import it.tidalwave.datamanager.model.Backup;
+import it.tidalwave.datamanager.model.BackupFile;
+import it.tidalwave.datamanager.model.Fingerprint;
+import it.tidalwave.datamanager.model.ManagedFile;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import static it.tidalwave.datamanager.application.nogui.DataManagerPresentation.Format.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class RecordExporterTest
+  {
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2023, 4, 5, 6, 7, 8);
+
+    private List<String> output;
+
+    private ManagedFile managedFile1;
+
+    private ManagedFile managedFile2;
+
+    private Backup backup;
+
+    /******************************************************************************************************************/
+    @BeforeMethod
+    public void setup()
+      {
+        output = new ArrayList<>();
+        managedFile1 = new ManagedFile(Id.of("mf1"), Path.of("/foo/a \"quoted\", name"), () -> List.of(
+                createFingerprint("fp1", "a \"quoted\", name"),
+                createFingerprint("fp2", "a\\b\nc")));
+        managedFile2 = new ManagedFile(Id.of("mf2"), Path.of("/foo/bar"), List::of);
+        final var ref = new AtomicReference<Backup>();
+        backup = Backup.builder()
+                       .id(Id.of("b1"))
+                       .label("Label, 1")
+                       .volumeId(Id.of("v1"))
+                       .encrypted(true)
+                       .basePath(Path.of("/backup"))
+                       .creationDate(TIMESTAMP)
+                       .registrationDate(TIMESTAMP.plusDays(1))
+                       .latestCheckDate(Optional.empty())
+                       .backupFiles(() -> List.of(new BackupFile(Id.of("bf1"), Path.of("/backup/bar"), managedFile2,
+                                                                 ref.get())))
+                       .build();
+        ref.set(backup);
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_export_managed_files_as_ndjson()
+      {
+        // when
+        new RecordExporter(NDJSON, this::add).exportManagedFiles(Stream.of(managedFile1, managedFile2), true);
+        // then
+        assertThat(output, is(List.of(
+                "{\"id\":\"mf1\",\"path\":\"/foo/a \\\"quoted\\\", name\",\"fingerprints\":[" +
+                "{\"id\":\"fp1\",\"name\":\"a \\\"quoted\\\", name\",\"algorithm\":\"md5\",\"fingerprint\":\"1234\"," +
+                "\"timestamp\":\"2023-04-05T06:07:08\"}," +
+                "{\"id\":\"fp2\",\"name\":\"a\\\\b\\nc\",\"algorithm\":\"md5\",\"fingerprint\":\"1234\"," +
+                "\"timestamp\":\"2023-04-05T06:07:08\"}]}",
+                "{\"id\":\"mf2\",\"path\":\"/foo/bar\",\"fingerprints\":[]}")));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_export_managed_files_as_csv()
+      {
+        // when
+        new RecordExporter(CSV, this::add).exportManagedFiles(Stream.of(managedFile1, managedFile2), true);
+        // then
+        assertThat(output, is(List.of(
+                "id,path,fingerprint_id,name,algorithm,fingerprint,timestamp",
+                "mf1,\"/foo/a \"\"quoted\"\", name\",fp1,\"a \"\"quoted\"\", name\",md5,1234,2023-04-05T06:07:08",
+                "mf1,\"/foo/a \"\"quoted\"\", name\",fp2,\"a\\b\nc\",md5,1234,2023-04-05T06:07:08",
+                "mf2,/foo/bar,,,,,")));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_export_backups_as_ndjson()
+      {
+        // when
+        new RecordExporter(NDJSON, this::add).exportBackups(Stream.of(backup), true);
+        // then
+        assertThat(output, is(List.of(
+                "{\"id\":\"b1\",\"label\":\"Label, 1\",\"volume_id\":\"v1\",\"encrypted\":true," +
+                "\"base_path\":\"/backup\",\"creation_date\":\"2023-04-05T06:07:08\"," +
+                "\"registration_date\":\"2023-04-06T06:07:08\",\"latest_check_date\":null," +
+                "\"files\":[{\"id\":\"bf1\",\"path\":\"/backup/bar\",\"managed_file_id\":\"mf2\"}]}")));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_export_backups_as_csv()
+      {
+        // when
+        new RecordExporter(CSV, this::add).exportBackups(Stream.of(backup), false);
+        // then
+        assertThat(output, is(List.of(
+                "id,label,volume_id,encrypted,base_path,creation_date,registration_date,latest_check_date",
+                "b1,\"Label, 1\",v1,true,/backup,2023-04-05T06:07:08,2023-04-06T06:07:08,")));
+      }
+
+    /******************************************************************************************************************/
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void must_reject_text_format()
+      {
+        new RecordExporter(TEXT, this::add);
+      }
+
+    /******************************************************************************************************************/
+    private void add (@Nonnull final CharSequence line)
+      {
+        // The exporter reuses the same buffer for all the lines
+        output.add(line.toString());
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private static Fingerprint createFingerprint (@Nonnull final String id, @Nonnull final String name)
+      {
+        return Fingerprint.builder()
+                          .id(Id.of(id))
+                          .name(name)
+                          .algorithm("md5")
+                          .fingerprint("1234")
+                          .timestamp(TIMESTAMP)
+                          .build();
+      }
+  }
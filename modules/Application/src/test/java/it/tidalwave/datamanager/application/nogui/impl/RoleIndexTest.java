@@ -0,0 +1,132 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.impl;
+
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
+import it.tidalwave.dci.annotation.DciRole;
+import it.tidalwave.role.spi.SystemRoleFactoryProvider;
+import it.tidalwave.role.ui.Displayable;
+import it.tidalwave.datamanager.model.TestModelFactory;
+import org.testng.annotations.Test;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class RoleIndexTest
+  {
+    /******************************************************************************************************************/
+    @Test
+    public void must_include_all_the_annotated_roles()
+      {
+        // given
+        final var scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(DciRole.class));
+        final var annotatedRoles = scanner.findCandidateComponents(RoleIndex.class.getPackageName())
+                                          .stream()
+                                          .map(d -> ClassUtils.resolveClassName(d.getBeanClassName(), null))
+                                          .collect(Collectors.toSet());
+        // when
+        final var entries = RoleIndex.INSTANCE.getEntries();
+        // then
+        assertThat(entries.stream().map(RoleIndex.Entry::roleType).collect(Collectors.toSet()), is(annotatedRoles));
+
+        for (final var entry : entries)
+          {
+            final var annotation = entry.roleType().getAnnotation(DciRole.class);
+            assertThat(entry.roleType().getName(), List.of(annotation.datumType()),
+                       is(List.<Class<?>>of(entry.datumType())));
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_create_the_roles_of_a_datum()
+      {
+        // given
+        final var fingerprint = new TestModelFactory().createFingerprint();
+        // when
+        final var roles = RoleIndex.INSTANCE.createRolesFor(fingerprint);
+        // then
+        assertThat(roles.size(), is(2));
+        assertThat(roles.get(0), instanceOf(FingerprintDisplayable.class));
+        assertThat(roles.get(1), instanceOf(FingerprintPresentable.class));
+        assertThat(((FingerprintDisplayable)roles.get(0)).getDisplayName(),
+                   is(new FingerprintDisplayable(fingerprint).getDisplayName()));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_create_roles_registered_for_supertypes()
+      {
+        // given
+        final var underTest = new RoleIndex(List.of(new RoleIndex.Entry<>(Object.class, CharSequence.class, s -> s)));
+        // when
+        final var roles = underTest.createRolesFor("foo");
+        // then
+        assertThat(roles, is(List.of("foo")));
+        assertThat(underTest.createRolesFor(1), is(List.of()));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_create_the_roles_of_a_given_type()
+      {
+        // given
+        final var fingerprint = new TestModelFactory().createFingerprint();
+        // when
+        final var roles = RoleIndex.INSTANCE.createRolesFor(fingerprint, Displayable.class);
+        // then
+        assertThat(roles.size(), is(1));
+        assertThat(roles.get(0), instanceOf(FingerprintDisplayable.class));
+        assertThat(RoleIndex.INSTANCE.createRolesFor(fingerprint, String.class), is(List.of()));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_back_the_system_role_factory()
+      {
+        // given
+        final var fingerprint = new TestModelFactory().createFingerprint();
+        // when
+        final var providers = ServiceLoader.load(SystemRoleFactoryProvider.class).stream().toList();
+        // then
+        assertThat(providers.size(), is(1));
+        final var roles = providers.get(0).get().getSystemRoleFactory().findRoles(fingerprint, Displayable.class);
+        assertThat(roles.size(), is(1));
+        assertThat(roles.get(0), instanceOf(FingerprintDisplayable.class));
+      }
+  }
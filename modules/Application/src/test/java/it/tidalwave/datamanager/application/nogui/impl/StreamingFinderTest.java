@@ -0,0 +1,74 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.impl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.testng.annotations.Test;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class StreamingFinderTest
+  {
+    /******************************************************************************************************************/
+    @Test
+    public void must_create_items_while_streaming()
+      {
+        // given
+        final var created = new AtomicInteger();
+        final var underTest = new StreamingFinder<>(() -> IntStream.range(0, 10)
+                                                                   .peek(__ -> created.incrementAndGet())
+                                                                   .boxed());
+        // when
+        final var iterator = underTest.stream().iterator();
+        // then
+        assertThat(created.get(), is(0));
+        assertThat(iterator.next(), is(0));
+        assertThat(iterator.next(), is(1));
+        assertThat(created.get(), is(2));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_apply_the_range()
+      {
+        // given
+        final var underTest = new StreamingFinder<>(() -> IntStream.range(0, 10).boxed());
+        // when
+        final var streamed = underTest.from(2).max(3).stream().toList();
+        final var results = underTest.from(2).max(3).results();
+        // then
+        assertThat(streamed, is(List.of(2, 3, 4)));
+        assertThat(results, is(List.of(2, 3, 4)));
+      }
+  }
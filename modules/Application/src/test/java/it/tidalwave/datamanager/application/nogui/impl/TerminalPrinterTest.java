@@ -0,0 +1,142 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.application.nogui.impl;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+import java.io.ByteArrayOutputStream;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class TerminalPrinterTest
+  {
+    private static final String EOL = System.lineSeparator();
+
+    private ByteArrayOutputStream os;
+
+    private TerminalPrinter underTest;
+
+    /******************************************************************************************************************/
+    @BeforeMethod
+    public void setup()
+      {
+        os = new ByteArrayOutputStream();
+      }
+
+    /******************************************************************************************************************/
+    @AfterMethod
+    public void tearDown()
+      {
+        if (underTest != null)
+          {
+            underTest.close();
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void test_output_is_buffered_until_flush()
+      {
+        // given
+        underTest = new TerminalPrinter(os, 1024, Duration.ofHours(1));
+        // when
+        underTest.accept("line 1");
+        underTest.accept("line 2");
+        // then
+        assertThat(os.toString(), is(""));
+        // when
+        underTest.flush();
+        // then
+        assertThat(os.toString(), is("line 1" + EOL + "line 2" + EOL));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void test_output_is_written_when_the_buffer_is_full()
+      {
+        // given
+        underTest = new TerminalPrinter(os, 1024, Duration.ofHours(1));
+        // when
+        IntStream.range(0, 10_000).forEach(__ -> underTest.accept("0123456789"));
+        // then
+        assertThat(os.size() > 0, is(true));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void test_output_is_written_after_the_flush_interval()
+            throws InterruptedException
+      {
+        // given
+        underTest = new TerminalPrinter(os, 1024, Duration.ofMillis(10));
+        // when
+        Thread.sleep(20);
+        underTest.accept("line 1");
+        // then
+        assertThat(os.toString(), is("line 1" + EOL));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void test_output_is_written_after_the_flush_interval_even_when_nothing_else_is_printed()
+            throws InterruptedException
+      {
+        // given
+        underTest = new TerminalPrinter(os, 1024, Duration.ofMillis(10));
+        // when
+        underTest.accept("line 1");
+        final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+
+        while ((os.size() == 0) && (System.nanoTime() < deadline))
+          {
+            Thread.sleep(10);
+          }
+        // then
+        assertThat(os.toString(), is("line 1" + EOL));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void test_close_writes_out_the_buffered_lines()
+      {
+        // given
+        underTest = new TerminalPrinter(os, 1024, Duration.ofHours(1));
+        underTest.accept("line 1");
+        // when
+        underTest.close();
+        // then
+        assertThat(os.toString(), is("line 1" + EOL));
+      }
+  }
@@ -0,0 +1,55 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.benchmarks;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import it.tidalwave.datamanager.dao.impl.jpa.JpaDataManagerDao;
+import it.tidalwave.datamanager.dao.impl.jpa.TestConfiguration;
+import static org.springframework.context.annotation.FilterType.ASSIGNABLE_TYPE;
+
+/***********************************************************************************************************************
+ *
+ * The Spring configuration for benchmarks. It's the same as the application, but command line interpreters are left
+ * out; the test configuration of the DAO, which is in the classpath because of {@code TestEntityFactory}, is excluded.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@SpringBootApplication
+@ComponentScan(basePackages = {"it.tidalwave.datamanager.dao",
+                               "it.tidalwave.datamanager.model",
+                               "it.tidalwave.datamanager.application.nogui.impl",
+                               "it.tidalwave.util.spring.jpa"},
+               excludeFilters = @ComponentScan.Filter(type = ASSIGNABLE_TYPE, classes = TestConfiguration.class))
+@EnableJpaRepositories(basePackageClasses = JpaDataManagerDao.class)
+@EntityScan("it.tidalwave.datamanager.dao")
+public class BenchmarkConfiguration
+  {
+  }
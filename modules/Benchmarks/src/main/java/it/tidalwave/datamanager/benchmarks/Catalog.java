@@ -0,0 +1,217 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.benchmarks;
+
+import jakarta.annotation.Nonnull;
+import javax.annotation.Nonnegative;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import it.tidalwave.datamanager.model.DataManager;
+import it.tidalwave.datamanager.dao.impl.jpa.JpaDataManagerDao;
+import it.tidalwave.datamanager.dao.impl.jpa.ManagedFileEntity;
+import it.tidalwave.datamanager.dao.impl.jpa.TestEntityFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import static it.tidalwave.datamanager.util.Utilities.fingerprintToString;
+
+/***********************************************************************************************************************
+ *
+ * A catalog to run benchmarks against, made of {@link #catalogSize} files with one to three fingerprints each, and of
+ * a backup every {@value #CHUNK_SIZE} files. The catalog is populated by means of {@link TestEntityFactory} and stored
+ * in {@code target/benchmarks}; since populating a large catalog takes a long time, it's reused by later runs.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@State(Scope.Benchmark) @Getter @Slf4j
+public class Catalog
+  {
+    /** The number of files persisted in a single transaction; a backup is created for each chunk. */
+    public static final int CHUNK_SIZE = 10_000;
+
+    /** The number of files in each backup. */
+    public static final int BACKUP_FILE_COUNT = 1_000;
+
+    private static final int MAX_FINGERPRINTS = 3;
+
+    private static final Path FOLDER = Path.of("target/benchmarks");
+
+    @Param({"10000", "1000000", "10000000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+
+    private DataManager dataManager;
+
+    private JpaDataManagerDao dao;
+
+    private EntityManagerFactory emf;
+
+    /** The id of a file in the middle of the catalog, which is contained in a backup. */
+    private String sampleFileId;
+
+    /** The fingerprint of {@link #sampleFileId}. */
+    private String sampleFingerprint;
+
+    /*******************************************************************************************************************
+     *
+     * Starts the application context and populates the catalog, unless it was done by a previous run.
+     *
+     ******************************************************************************************************************/
+    @Setup(Level.Trial)
+    public void setUp()
+            throws IOException
+      {
+        Files.createDirectories(FOLDER);
+        final var dbFile = FOLDER.resolve("catalog-%d.db".formatted(catalogSize));
+        // Marks a completely populated catalog, so an interrupted run is started again from scratch
+        final var completedMarker = FOLDER.resolve("catalog-%d.completed".formatted(catalogSize));
+        final var populated = Files.exists(completedMarker);
+
+        if (!populated)
+          {
+            Files.deleteIfExists(dbFile);
+          }
+
+        System.setProperty("spring.config.name", "module,benchmark");
+        System.setProperty("spring.datasource.url", "jdbc:sqlite:" + dbFile.toAbsolutePath());
+        context = SpringApplication.run(BenchmarkConfiguration.class);
+        dataManager = context.getBean(DataManager.class);
+        dao = context.getBean(JpaDataManagerDao.class);
+        emf = context.getBean(EntityManagerFactory.class);
+
+        if (!populated)
+          {
+            populate();
+            Files.createFile(completedMarker);
+          }
+
+        findSample();
+        log.info("Catalog of {} files ready, sample file: {}, fingerprint: {}",
+                 catalogSize, sampleFileId, sampleFingerprint);
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @TearDown(Level.Trial)
+    public void tearDown()
+      {
+        context.close();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the path of the file with the given index. Paths are generated so that their order is the same as the
+     * order of indices.
+     *
+     * @param   index   the index
+     * @return          the path
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public static String pathOf (@Nonnegative final int index)
+      {
+        return "/catalog/%04x/%08x".formatted(index / 4096, index);
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private void populate()
+      {
+        log.info("Populating catalog with {} files...", catalogSize);
+        final var factory = new TestEntityFactory();
+
+        for (int first = 0, chunk = 1; first < catalogSize; first += CHUNK_SIZE, chunk++)
+          {
+            final var managedFiles = IntStream.range(first, Math.min(first + CHUNK_SIZE, catalogSize))
+                    .mapToObj(i -> factory.createManagedFileEntity(pathOf(i), 1 + i % MAX_FINGERPRINTS))
+                    .toList();
+            final var backup = factory.createBackupEntity(chunk, managedFiles, BACKUP_FILE_COUNT);
+            runInTx(em ->
+              {
+                managedFiles.forEach(em::persist);
+                em.persist(backup);
+              });
+
+            if (chunk % 100 == 0)
+              {
+                log.info(">>>> {} files persisted", first + managedFiles.size());
+              }
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private void findSample()
+      {
+        runInTx(em ->
+          {
+            final var managedFile = em.createQuery("SELECT f.managedFile FROM BackupFileEntity f " +
+                                                   "WHERE f.path >= :path ORDER BY f.path", ManagedFileEntity.class)
+                                      .setParameter("path", pathOf(catalogSize / 2))
+                                      .setMaxResults(1)
+                                      .getSingleResult();
+            sampleFileId = managedFile.getId().toString();
+            sampleFingerprint = fingerprintToString(managedFile.getFingerprints().get(0).getValue());
+          });
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private void runInTx (@Nonnull final Consumer<? super EntityManager> task)
+      {
+        final var em = emf.createEntityManager();
+
+        try
+          {
+            em.getTransaction().begin();
+            task.accept(em);
+            em.getTransaction().commit();
+          }
+        finally
+          {
+            em.close();
+          }
+      }
+  }
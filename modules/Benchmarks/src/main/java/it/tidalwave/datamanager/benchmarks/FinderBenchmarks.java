@@ -0,0 +1,67 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.benchmarks;
+
+import jakarta.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import it.tidalwave.datamanager.model.Backup;
+import it.tidalwave.datamanager.model.ManagedFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/***********************************************************************************************************************
+ *
+ * Benchmarks of the queries performed by finders.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dlogback.configurationFile=logback-benchmarks.xml"})
+@Warmup(iterations = 3, time = 5) @Measurement(iterations = 5, time = 5)
+public class FinderBenchmarks
+  {
+    /******************************************************************************************************************/
+    @Benchmark
+    public List<ManagedFile> findManagedFilesWithFingerprint (@Nonnull final Catalog catalog)
+      {
+        return catalog.getDataManager().findManagedFiles().withFingerprint(catalog.getSampleFingerprint()).results();
+      }
+
+    /******************************************************************************************************************/
+    @Benchmark
+    public List<Backup> findBackupsWithFileId (@Nonnull final Catalog catalog)
+      {
+        return catalog.getDataManager().findBackups().withFileId(catalog.getSampleFileId()).results();
+      }
+  }
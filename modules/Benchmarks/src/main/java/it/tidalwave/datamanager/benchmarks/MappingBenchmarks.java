@@ -0,0 +1,127 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.benchmarks;
+
+import jakarta.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import it.tidalwave.datamanager.dao.impl.jpa.BackupEntity;
+import it.tidalwave.datamanager.dao.impl.jpa.ManagedFileEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/***********************************************************************************************************************
+ *
+ * Benchmarks of the transformation of entities into model objects. Entities are completely loaded in advance, so the
+ * database is not accessed during measurements.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dlogback.configurationFile=logback-benchmarks.xml"})
+@Warmup(iterations = 3, time = 5) @Measurement(iterations = 5, time = 5)
+public class MappingBenchmarks
+  {
+    /** The number of {@link ManagedFileEntity} transformed in a single invocation. */
+    private static final int MANAGED_FILE_COUNT = 1_000;
+
+    /*******************************************************************************************************************
+     *
+     * The loaded entities, attached to a persistence context that lives as long as the trial.
+     *
+     ******************************************************************************************************************/
+    @State(Scope.Benchmark)
+    public static class Entities
+      {
+        private EntityManager em;
+
+        private List<ManagedFileEntity> managedFiles;
+
+        private BackupEntity backup;
+
+        @Setup(Level.Trial)
+        public void setUp (@Nonnull final Catalog catalog)
+          {
+            em = catalog.getEmf().createEntityManager();
+            em.getTransaction().begin();
+            managedFiles = em.createQuery("SELECT f FROM ManagedFileEntity f WHERE f.path >= :path ORDER BY f.path",
+                                          ManagedFileEntity.class)
+                             .setParameter("path", Catalog.pathOf(catalog.getCatalogSize() / 2))
+                             .setMaxResults(MANAGED_FILE_COUNT)
+                             .getResultList();
+            managedFiles.forEach(f -> Hibernate.initialize(f.getFingerprints()));
+            backup = em.createQuery("SELECT b FROM BackupEntity b ORDER BY b.label", BackupEntity.class)
+                       .setMaxResults(1)
+                       .getSingleResult();
+            Hibernate.initialize(backup.getBackupFiles());
+            backup.getBackupFiles().forEach(f -> Hibernate.initialize(f.getManagedFile().getFingerprints()));
+          }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+          {
+            em.getTransaction().rollback();
+            em.close();
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Benchmark
+    public void managedFileEntityToModel (@Nonnull final Catalog catalog,
+                                          @Nonnull final Entities entities,
+                                          @Nonnull final Blackhole blackhole)
+      {
+        for (final var entity : entities.managedFiles)
+          {
+            blackhole.consume(catalog.getDao().managedFileEntityToModel(entity).getFingerprints());
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Benchmark
+    public void backupEntityToModel (@Nonnull final Catalog catalog,
+                                     @Nonnull final Entities entities,
+                                     @Nonnull final Blackhole blackhole)
+      {
+        final var backup = catalog.getDao().backupEntityToModel(entities.backup);
+        backup.getBackupFiles().forEach(f -> blackhole.consume(f.getManagedFile().getFingerprints()));
+      }
+  }
@@ -0,0 +1,67 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.benchmarks;
+
+import jakarta.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+import it.tidalwave.datamanager.application.nogui.DataManagerPresentationControl.ManagedFileOptions;
+import it.tidalwave.datamanager.application.nogui.impl.DefaultDataManagerPresentationControl;
+import it.tidalwave.datamanager.application.nogui.impl.TerminalDataManagerPresentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/***********************************************************************************************************************
+ *
+ * Benchmarks of the whole pipeline for rendering managed files, from the query to the lines that would be printed to
+ * the terminal, which are sent to a {@link Blackhole} instead. Rendering is limited to the first
+ * {@value #MAX_RENDERED_FILES} files, so results for different catalog sizes can be compared.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dlogback.configurationFile=logback-benchmarks.xml"})
+@Warmup(iterations = 3, time = 10) @Measurement(iterations = 5, time = 10)
+public class RenderingBenchmarks
+  {
+    private static final int MAX_RENDERED_FILES = 10_000;
+
+    /******************************************************************************************************************/
+    @Benchmark
+    public void renderManagedFiles (@Nonnull final Catalog catalog, @Nonnull final Blackhole blackhole)
+      {
+        final var presentation = new TerminalDataManagerPresentation(blackhole::consume);
+        final var control = new DefaultDataManagerPresentationControl(catalog.getDataManager(), presentation);
+        control.renderManagedFiles(ManagedFileOptions.with().renderFingerprints().max(MAX_RENDERED_FILES));
+      }
+  }
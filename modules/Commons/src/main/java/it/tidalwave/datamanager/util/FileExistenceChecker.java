@@ -0,0 +1,270 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.util;
+
+import javax.annotation.Nonnegative;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.text.Normalizer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import static java.util.stream.Collectors.toSet;
+import static it.tidalwave.datamanager.util.Utilities.chunked;
+
+/***********************************************************************************************************************
+ *
+ * Checks whether files exist, performing the checks concurrently so that throughput scales with I/O parallelism (for
+ * instance on network volumes) rather than being bound by the latency of each check.
+ *
+ * Items are processed in chunks and the output preserves the input order. Within a chunk, files are grouped by
+ * directory: when a directory contains many of them, a single listing answers for all; otherwise they are checked
+ * one by one. Since the input is expected to be sorted by path, the listings of the directories in a chunk are kept
+ * for the next one, so a directory spanning many chunks is listed only once, and dropped afterwards, so memory doesn't
+ * depend on the size of the tree. If files of a directory are interleaved with those of its subdirectories, the
+ * directory might be listed again, which costs time but doesn't affect the result.
+ *
+ * Files not in a listing are considered missing without further I/O. Only if the name matches an entry of the listing
+ * once case and Unicode normalization are ignored, the file is checked on the filesystem, since it might exist with a
+ * differently spelled name on case-insensitive or normalizing filesystems.
+ *
+ * Instances must be closed after use to release their threads.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Slf4j
+public class FileExistenceChecker implements AutoCloseable
+  {
+    /** The number of items processed together. */
+    public static final int CHUNK_SIZE = 1000;
+
+    /** The minimum number of files in the same directory for which a directory listing is used. */
+    public static final int LISTING_THRESHOLD = 8;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    @Nonnull
+    private final ExecutorService executor;
+
+    /*******************************************************************************************************************
+     *
+     * Creates a new instance.
+     *
+     * @param   parallelism   the maximum number of concurrent I/O operations
+     *
+     ******************************************************************************************************************/
+    public FileExistenceChecker (@Nonnegative final int parallelism)
+      {
+        executor = Executors.newFixedThreadPool(parallelism, runnable ->
+          {
+            final var thread = new Thread(runnable, "existence-checker-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Filters a {@link Stream} of items, retaining only those whose file exists or not.
+     *
+     * @param   stream    the stream
+     * @param   pathOf    the function that extracts the path from an item
+     * @param   exists    {@code true} to retain existing files, {@code false} to retain missing files
+     * @return            the filtered stream
+     * @param   <T>       the static type of the items
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public <T> Stream<T> filter (@Nonnull final Stream<T> stream,
+                                 @Nonnull final Function<? super T, Path> pathOf,
+                                 final boolean exists)
+      {
+        final var listings = new ConcurrentHashMap<Path, Listing>();
+        return chunked(stream, CHUNK_SIZE).flatMap(chunk ->
+          {
+            final var paths = chunk.stream().map(pathOf).toList();
+            final var existing = findExisting(paths, listings);
+            // Chunks are processed sequentially, so listings can be dropped here
+            listings.keySet().retainAll(paths.stream().map(Path::getParent).collect(toSet()));
+            return chunk.stream().filter(item -> existing.contains(pathOf.apply(item)) == exists);
+          });
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    public void close()
+      {
+        executor.shutdownNow();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the paths, among the given ones, which exist.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private Set<Path> findExisting (@Nonnull final List<Path> paths, @Nonnull final Map<Path, Listing> listings)
+      {
+        final var pathsByDirectory = new LinkedHashMap<Path, List<Path>>();
+        paths.forEach(p -> pathsByDirectory.computeIfAbsent(p.getParent(), __ -> new ArrayList<>()).add(p));
+        final var futures = pathsByDirectory.entrySet()
+                .stream()
+                .map(e -> CompletableFuture.supplyAsync(() -> findExisting(e.getKey(), e.getValue(), listings),
+                                                        executor))
+                .toList();
+        final var result = new HashSet<Path>();
+        futures.forEach(f -> result.addAll(f.join()));
+        return result;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the paths, among the given ones contained in the same directory, which exist. The listing of the
+     * directory is used if it's already available or if there are enough paths to justify it.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static Set<Path> findExisting (@Nullable final Path directory,
+                                           @Nonnull final List<Path> paths,
+                                           @Nonnull final Map<Path, Listing> listings)
+      {
+        var listing = (directory != null) ? listings.get(directory) : null;
+
+        if ((listing == null) && (directory != null) && (paths.size() >= LISTING_THRESHOLD))
+          {
+            listing = list(directory);
+            listings.put(directory, listing);
+          }
+
+        final var finalListing = (listing != null) ? listing : Listing.UNAVAILABLE;
+        return paths.stream().filter(finalListing::exists).collect(toSet());
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Lists a directory.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static Listing list (@Nonnull final Path directory)
+      {
+        try (final var directoryStream = Files.newDirectoryStream(directory))
+          {
+            final var names = new HashSet<String>();
+            final var foldedNames = new HashSet<String>();
+
+            for (final var path : directoryStream)
+              {
+                final var name = path.getFileName().toString();
+                names.add(name);
+                foldedNames.add(fold(name));
+              }
+
+            return new Listing(true, names, foldedNames);
+          }
+        catch (NoSuchFileException | NotDirectoryException e)
+          {
+            return Listing.NO_DIRECTORY;
+          }
+        catch (IOException e)
+          {
+            log.warn("Cannot list {}, falling back to checking single files: {}", directory, e.toString());
+            return Listing.UNAVAILABLE;
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns a name with case and Unicode normalization differences removed.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static String fold (@Nonnull final String name)
+      {
+        return Normalizer.normalize(name, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * The listing of a directory.
+     *
+     * @param   directoryExists   {@code false} if the directory doesn't exist, so none of its files do
+     * @param   names             the names of the files in the directory, or {@code null} if they are unknown
+     * @param   foldedNames       the same names, passed through {@link #fold(String)}
+     *
+     ******************************************************************************************************************/
+    private record Listing (boolean directoryExists, @Nullable Set<String> names, @Nonnull Set<String> foldedNames)
+      {
+        /** A listing that couldn't be made, so files must be checked one by one. */
+        private static final Listing UNAVAILABLE = new Listing(true, null, Set.of());
+
+        /** The listing of a directory that doesn't exist. */
+        private static final Listing NO_DIRECTORY = new Listing(false, Set.of(), Set.of());
+
+        /***************************************************************************************************************
+         *
+         * Returns whether a file in this directory exists. A name not in the listing is only checked on the filesystem
+         * if it differs from one in the listing just by case or Unicode normalization.
+         *
+         **************************************************************************************************************/
+        public boolean exists (@Nonnull final Path path)
+          {
+            if (!directoryExists)
+              {
+                return false;
+              }
+
+            if (names == null)
+              {
+                return Files.exists(path);
+              }
+
+            final var name = path.getFileName().toString();
+            return names.contains(name) || (foldedNames.contains(fold(name)) && Files.exists(path));
+          }
+      }
+  }
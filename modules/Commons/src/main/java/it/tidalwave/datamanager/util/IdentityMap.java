@@ -0,0 +1,109 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.util;
+
+import javax.annotation.Nonnegative;
+import jakarta.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/***********************************************************************************************************************
+ *
+ * A bounded identity map, which makes it possible to share a single instance of an object per id. When the capacity
+ * is exceeded, the least recently used instances are evicted. This class is thread-safe.
+ *
+ * @param   <K>   the static type of the id
+ * @param   <V>   the static type of the object
+ * @author  Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class IdentityMap<K, V>
+  {
+    @Nonnull
+    private final Map<K, V> map;
+
+    /*******************************************************************************************************************
+     *
+     * Creates a new instance with the given capacity.
+     *
+     * @param   capacity    the maximum number of instances retained
+     *
+     ******************************************************************************************************************/
+    public IdentityMap (@Nonnegative final int capacity)
+      {
+        map = new LinkedHashMap<>(16, 0.75f, true)
+          {
+            @Override
+            protected boolean removeEldestEntry (@Nonnull final Map.Entry<K, V> eldest)
+              {
+                return size() > capacity;
+              }
+          };
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the instance associated to the given id, creating it if not present.
+     *
+     * @param   id        the id
+     * @param   factory   the factory of the instance
+     * @return            the instance
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public synchronized V computeIfAbsent (@Nonnull final K id, @Nonnull final Function<? super K, ? extends V> factory)
+      {
+        return map.computeIfAbsent(id, factory);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Associates an instance to the given id, unless another instance is already present.
+     *
+     * @param   id        the id
+     * @param   value     the instance
+     *
+     ******************************************************************************************************************/
+    public synchronized void putIfAbsent (@Nonnull final K id, @Nonnull final V value)
+      {
+        map.putIfAbsent(id, value);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns whether an instance is associated to the given id.
+     *
+     * @param   id        the id
+     * @return            {@code true} if an instance is present
+     *
+     ******************************************************************************************************************/
+    public synchronized boolean contains (@Nonnull final K id)
+      {
+        return map.containsKey(id);
+      }
+  }
@@ -0,0 +1,89 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.util;
+
+import jakarta.annotation.Nonnull;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.NoArgsConstructor;
+import static lombok.AccessLevel.PRIVATE;
+
+/***********************************************************************************************************************
+ *
+ * Factory methods for the meters of the application. Meters are registered in the Micrometer global registry, since
+ * they are also used by objects that are not managed by Spring, such as finders; they are exported by the registries
+ * that the application adds to it. Without registries, meters do nothing.
+ *
+ * Timers publish the 50th, 95th and 99th percentiles, as well as a histogram, so percentiles can be aggregated too.
+ * Meters are looked up by name and tags, so callers that record many times, e.g. per item, should keep a reference.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@NoArgsConstructor(access = PRIVATE)
+public final class Meters
+  {
+    /** The prefix of the names of all the meters. */
+    public static final String PREFIX = "solidblue3.";
+
+    private static final double[] PERCENTILES = { 0.5, 0.95, 0.99 };
+
+    /*******************************************************************************************************************
+     *
+     * Returns a timer.
+     *
+     * @param   name        the name, without {@link #PREFIX}
+     * @param   tags        the tags, as a sequence of keys and values
+     * @return              the timer
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public static Timer timer (@Nonnull final String name, @Nonnull final String ... tags)
+      {
+        return Timer.builder(PREFIX + name)
+                    .tags(tags)
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .register(Metrics.globalRegistry);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns a counter.
+     *
+     * @param   name        the name, without {@link #PREFIX}
+     * @param   tags        the tags, as a sequence of keys and values
+     * @return              the counter
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public static Counter counter (@Nonnull final String name, @Nonnull final String ... tags)
+      {
+        return Counter.builder(PREFIX + name).tags(tags).register(Metrics.globalRegistry);
+      }
+  }
@@ -25,11 +25,25 @@ package it.tidalwave.datamanager.util;/*
  * *********************************************************************************************************************
  */
 
+import javax.annotation.Nonnegative;
 import jakarta.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.math.BigInteger;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
 
 /***********************************************************************************************************************
  *
@@ -38,22 +52,143 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  **********************************************************************************************************************/
 public class Utilities
   {
+    /** Files at least this large are memory-mapped rather than read. */
+    public static final long MAPPING_THRESHOLD = 4 * 1024 * 1024;
+
+    /** The size of each memory-mapped region. */
+    public static final long MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+
+    /** The size of the buffer for reading small files. */
+    public static final int BUFFER_SIZE = 1024 * 1024;
+
+    // Direct buffers are expensive to allocate and not eagerly reclaimed, so each thread reuses its own.
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
     @Nonnull
     public static byte[] fingerprintOfString (@Nonnull final String algorithm, @Nonnull final String string)
       {
-        try
-          {
-            return MessageDigest.getInstance(algorithm).digest(string.getBytes(UTF_8));
-          }
-        catch (NoSuchAlgorithmException e)
+        return messageDigest(algorithm).digest(string.getBytes(UTF_8));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Computes the fingerprint of the contents of a file. Large files are memory-mapped a region at a time, so their
+     * contents are never copied to the Java heap; small files, for which mapping is more expensive than reading, are
+     * read into a reusable direct buffer. This method is thread-safe.
+     *
+     * @param   algorithm   the algorithm (e.g. {@code MD5})
+     * @param   path        the path of the file
+     * @return              the fingerprint
+     * @throws  IOException in case of I/O error
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public static byte[] fingerprintOfFile (@Nonnull final String algorithm, @Nonnull final Path path)
+            throws IOException
+      {
+        final var digest = messageDigest(algorithm);
+
+        try (final var channel = FileChannel.open(path, READ))
           {
-            throw new RuntimeException(e);
+            final var size = channel.size();
+
+            if (size >= MAPPING_THRESHOLD)
+              {
+                for (long position = 0; position < size; position += MAPPED_REGION_SIZE)
+                  {
+                    digest.update(channel.map(READ_ONLY, position, Math.min(MAPPED_REGION_SIZE, size - position)));
+                  }
+              }
+            else
+              {
+                final var buffer = BUFFER.get().clear();
+
+                while (channel.read(buffer) >= 0)
+                  {
+                    digest.update(buffer.flip());
+                    buffer.clear();
+                  }
+              }
           }
+
+        return digest.digest();
       }
 
     @Nonnull
     public static String fingerprintToString (@Nonnull final byte[] bytes)
       {
-        return ("%0" + (bytes.length * 2) + "x").formatted(new BigInteger(1, bytes));
+        return HexFormat.of().formatHex(bytes);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Converts the hexadecimal representation of a fingerprint back to bytes.
+     *
+     * @param   string    the hexadecimal representation
+     * @return            the bytes
+     * @throws            IllegalArgumentException  if the string is not a valid hexadecimal representation
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public static byte[] fingerprintFromString (@Nonnull final String string)
+      {
+        return HexFormat.of().parseHex(string);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Splits a {@link Stream} into lists of the given size, preserving laziness. Closing the returned {@code Stream}
+     * closes the original one.
+     *
+     * @param   stream    the stream
+     * @param   size      the size of each list (the last one can be shorter)
+     * @return            the stream of lists
+     * @param   <T>       the static type of the items
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public static <T> Stream<List<T>> chunked (@Nonnull final Stream<T> stream, @Nonnegative final int size)
+      {
+        final var iterator = stream.iterator();
+        final var spliterator = new Spliterators.AbstractSpliterator<List<T>>(Long.MAX_VALUE, Spliterator.ORDERED)
+          {
+            @Override
+            public boolean tryAdvance (@Nonnull final Consumer<? super List<T>> action)
+              {
+                final var chunk = new ArrayList<T>(size);
+
+                while ((chunk.size() < size) && iterator.hasNext())
+                  {
+                    chunk.add(iterator.next());
+                  }
+
+                if (chunk.isEmpty())
+                  {
+                    return false;
+                  }
+
+                action.accept(chunk);
+                return true;
+              }
+          };
+
+        return StreamSupport.stream(spliterator, false).onClose(stream::close);
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static MessageDigest messageDigest (@Nonnull final String algorithm)
+      {
+        try
+          {
+            return MessageDigest.getInstance(algorithm);
+          }
+        catch (NoSuchAlgorithmException e)
+          {
+            throw new RuntimeException(e);
+          }
       }
   }
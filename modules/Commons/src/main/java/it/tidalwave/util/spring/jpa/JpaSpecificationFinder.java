@@ -26,25 +26,34 @@
  */
 package it.tidalwave.util.spring.jpa;
 
+import javax.annotation.Nonnegative;
 import jakarta.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Stream;
 import java.io.Serial;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
 import it.tidalwave.util.Finder;
 import it.tidalwave.util.spi.HierarchicFinderSupport;
+import it.tidalwave.util.spring.jpa.impl.Streamer;
+import it.tidalwave.datamanager.util.Meters;
 import lombok.AllArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import static it.tidalwave.util.CollectionUtils.concat;
 import static lombok.AccessLevel.PRIVATE;
+import static it.tidalwave.datamanager.util.Utilities.chunked;
 
 /***********************************************************************************************************************
  *
@@ -64,15 +73,51 @@ public class JpaSpecificationFinder<M, E, F extends Finder<M>, R extends JpaSpec
   {
     @Serial private static final long serialVersionUID = 0L;
 
+    /** The name of the id attribute, used as a tie-breaker for sorting. */
+    protected static final String ID_ATTRIBUTE = "id";
+
+    /** The number of streamed entities that are transformed at a time. */
+    protected static final int BATCH_SIZE = 500;
+
+    /** The timer of queries, tagged by finder and operation. */
+    public static final String METER_QUERIES = "finder.queries";
+
+    /** The counter of rows read by queries, tagged by finder and operation. */
+    public static final String METER_ROWS = "finder.rows";
+
     @Nonnull
     protected final R repository;
 
     @Nonnull
-    protected final Function<E, M> entityToModel;
+    protected final Class<E> entityClass;
+
+    @Nonnull
+    protected final Streamer streamer;
+
+    @Nonnull
+    protected final Function<List<E>, List<M>> entitiesToModel;
+
+    @Nonnull
+    protected final Optional<Projection<M>> projection;
 
     @Nonnull
     protected final List<JpaSorter> sorters;
 
+    /*******************************************************************************************************************
+     *
+     * A projection on some attributes of the entity, used by {@link #stream()} to map rows straight into model objects,
+     * without instantiating entities. The mapper is applied to a chunk of rows at a time, so it can retrieve their
+     * related data in batches.
+     *
+     * @param   attributes    the names of the attributes
+     * @param   rowsToModel   the mapper of rows, which are made of the values of the attributes in the same order
+     *
+     ******************************************************************************************************************/
+    public record Projection<M> (@Nonnull List<String> attributes,
+                                 @Nonnull Function<List<Object[]>, List<M>> rowsToModel)
+      {
+      }
+
     /*******************************************************************************************************************
      *
      ******************************************************************************************************************/
@@ -88,8 +133,13 @@ public class JpaSpecificationFinder<M, E, F extends Finder<M>, R extends JpaSpec
         @Nonnull
         public Sort.Order toOrder()
           {
-            return new Sort.Order(direction == SortDirection.ASCENDING ? Sort.Direction.ASC : Sort.Direction.DESC,
-                                  getName(criterion.sortingKey));
+            return new Sort.Order(toDirection(direction), getAttributeName());
+          }
+
+        @Nonnull
+        public String getAttributeName()
+          {
+            return getName(criterion.sortingKey);
           }
 
         @Override @Nonnull
@@ -107,15 +157,42 @@ public class JpaSpecificationFinder<M, E, F extends Finder<M>, R extends JpaSpec
 
     /*******************************************************************************************************************
      *
-     * Creates a new instance given a repository and a model-to-entity transformer.
+     * Creates a new instance given a repository and an entity-to-model transformer. The transformer is applied to a
+     * page of entities at a time, so it can retrieve their related data in batches.
+     *
+     * @param     repository      the repository
+     * @param     entityClass     the class of the entity
+     * @param     streamer        the {@link Streamer} used by {@link #stream()}
+     * @param     entitiesToModel the transformer
+     *
+     ******************************************************************************************************************/
+    public JpaSpecificationFinder (@Nonnull final R repository,
+                                   @Nonnull final Class<E> entityClass,
+                                   @Nonnull final Streamer streamer,
+                                   @Nonnull final Function<List<E>, List<M>> entitiesToModel)
+      {
+        this(repository, entityClass, streamer, entitiesToModel, Optional.empty());
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Creates a new instance given a repository, an entity-to-model transformer and a {@link Projection} for
+     * {@link #stream()}.
      *
-     * @param     repository    the repository
-     * @param     entityToModel the transformer
+     * @param     repository      the repository
+     * @param     entityClass     the class of the entity
+     * @param     streamer        the {@link Streamer} used by {@link #stream()}
+     * @param     entitiesToModel the transformer
+     * @param     projection      the projection
      *
      ******************************************************************************************************************/
-    public JpaSpecificationFinder (@Nonnull final R repository, @Nonnull final Function<E, M> entityToModel)
+    public JpaSpecificationFinder (@Nonnull final R repository,
+                                   @Nonnull final Class<E> entityClass,
+                                   @Nonnull final Streamer streamer,
+                                   @Nonnull final Function<List<E>, List<M>> entitiesToModel,
+                                   @Nonnull final Optional<Projection<M>> projection)
       {
-        this(repository, entityToModel, List.of());
+        this(repository, entityClass, streamer, entitiesToModel, projection, List.of());
       }
 
     /*******************************************************************************************************************
@@ -129,7 +206,10 @@ public class JpaSpecificationFinder<M, E, F extends Finder<M>, R extends JpaSpec
         super(other, override);
         final var source = getSource(JpaSpecificationFinder.class, other, override);
         this.repository = (R)source.repository; // See https://stackoverflow.com/questions/76129388
-        this.entityToModel = source.entityToModel;
+        this.entityClass = source.entityClass;
+        this.streamer = source.streamer;
+        this.entitiesToModel = source.entitiesToModel;
+        this.projection = source.projection;
         this.sorters = source.sorters;
       }
 
@@ -142,7 +222,9 @@ public class JpaSpecificationFinder<M, E, F extends Finder<M>, R extends JpaSpec
         if (criterion instanceof final JpaSortCriterion jpaSortCriterion)
           {
             final var sorters = concat(this.sorters, new JpaSorter(jpaSortCriterion, direction));
-            return clonedWith(new JpaSpecificationFinder<>(repository, entityToModel, sorters));
+            final var finder = new JpaSpecificationFinder<>(repository, entityClass, streamer, entitiesToModel,
+                                                            projection, sorters);
+            return clonedWith(finder);
           }
 
         return super.sort(criterion, direction);
@@ -162,23 +244,244 @@ public class JpaSpecificationFinder<M, E, F extends Finder<M>, R extends JpaSpec
         return new JpaSortCriterion(sortingKey);
       }
 
+    /*******************************************************************************************************************
+     *
+     * {@inheritDoc}
+     *
+     * Results are read by means of a forward-only cursor, so memory usage doesn't depend on the size of the result and
+     * the first item is available as soon as it is retrieved from the database. If a {@link Projection} has been given,
+     * only its attributes are read and rows are mapped straight into model objects, without instantiating entities.
+     * The returned {@link Stream} holds database resources and must be closed after use; the time until it is closed
+     * is recorded by the {@link #METER_QUERIES} timer.
+     *
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    public Stream<M> stream()
+      {
+        final var sample = Timer.start();
+        final var rowCounter = rowCounter("stream");
+        final Stream<M> result;
+
+        if (projection.isPresent())
+          {
+            final var p = projection.get();
+            final var rows = streamer.stream(entityClass, p.attributes(), getSpecification(), getSort(),
+                                             firstResult, maxResults);
+            result = chunked(rows, BATCH_SIZE).peek(chunk -> rowCounter.increment(chunk.size()))
+                                              .flatMap(chunk -> p.rowsToModel().apply(chunk).stream());
+          }
+        else
+          {
+            final var entities = streamer.stream(entityClass, getSpecification(), getSort(), firstResult, maxResults);
+            result = chunked(entities, BATCH_SIZE).peek(chunk -> rowCounter.increment(chunk.size()))
+                                                  .flatMap(chunk -> entitiesToModel.apply(chunk).stream());
+          }
+
+        return result.onClose(() -> sample.stop(queryTimer("stream")));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * {@inheritDoc}
+     *
+     * The count is performed by the database with a {@code COUNT} query over the same specification, without loading
+     * results. The range set by {@link #from(int)} and {@link #max(int)} is taken into account.
+     *
+     ******************************************************************************************************************/
+    @Override @Nonnegative
+    public int count()
+      {
+        final var sample = Timer.start();
+        final var total = repository.count(getSpecification());
+        final var result = (int)Math.max(0, Math.min(total - firstResult, maxResults));
+        final var time = sample.stop(queryTimer("count"));
+        log.info("count() - {} items in {} msec", result, time / 1_000_000);
+        return result;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns whether there is at least one result. The check is performed by the database with an {@code EXISTS}-like
+     * query over the same specification, which stops at the first match, without loading results.
+     *
+     * @return                  {@code true} if there is at least one result
+     *
+     ******************************************************************************************************************/
+    public boolean exists()
+      {
+        if (firstResult > 0 || maxResults == 0)
+          {
+            return count() > 0;
+          }
+
+        final var sample = Timer.start();
+        final var result = repository.exists(getSpecification());
+        final var time = sample.stop(queryTimer("exists"));
+        log.info("exists() - {} in {} msec", result, time / 1_000_000);
+        return result;
+      }
+
     /*******************************************************************************************************************
      * {@inheritDoc}
      ******************************************************************************************************************/
     @Override @Nonnull
     protected final List<M> computeNeededResults()
       {
-        final var baseTime = System.currentTimeMillis();
+        final var sample = Timer.start();
         final var specification = getSpecification();
-        final var pageRequest = PageRequest.of(firstResult, maxResults,
-                                               Sort.by(sorters.stream().map(JpaSorter::toOrder).toList()));
+        final var pageRequest = PageRequest.of(firstResult, maxResults, getSort());
         log.info("computeNeededResults() - {}", pageRequest);
-        final var result = repository.findAll(specification, pageRequest).stream().map(entityToModel).toList();
-        log.info(">>>> returning {} items in {} msec", result.size(), System.currentTimeMillis() - baseTime);
+        final var entities = repository.findAll(specification, pageRequest).getContent();
+        final var result = entitiesToModel.apply(entities);
+        final var time = sample.stop(queryTimer("results"));
+        rowCounter("results").increment(entities.size());
+        log.info(">>>> returning {} items in {} msec", result.size(), time / 1_000_000);
         log.trace(">>>> returning {}", result);
         return result;
       }
 
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    protected Sort getSort()
+      {
+        if (isKeysetPaginated())
+          {
+            checkKeysetSorting(getKeysetAttribute().orElseThrow());
+          }
+
+        final var orders = new ArrayList<>(sorters.stream().map(JpaSorter::toOrder).toList());
+
+        // Unsorted results are ordered by the keyset attribute, so they can be paginated too
+        if (orders.isEmpty())
+          {
+            getKeysetAttribute().ifPresent(a -> orders.add(Sort.Order.asc(a)));
+          }
+
+        // Makes the order total, as required by keyset pagination
+        if (!orders.isEmpty() && orders.stream().noneMatch(o -> o.getProperty().equals(ID_ATTRIBUTE)))
+          {
+            orders.add(new Sort.Order(orders.get(orders.size() - 1).getDirection(), ID_ATTRIBUTE));
+          }
+
+        return Sort.by(orders);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the name of the attribute used by keyset pagination, if supported. Unsorted results are ordered by it.
+     *
+     * @return                      the name of the attribute
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    protected Optional<String> getKeysetAttribute()
+      {
+        return Optional.empty();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns whether results must follow a last seen item, by means of {@link #createKeysetPredicate}.
+     *
+     * @return                      {@code true} if keyset pagination is used
+     *
+     ******************************************************************************************************************/
+    protected boolean isKeysetPaginated()
+      {
+        return false;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Creates a keyset (a.k.a. seek) pagination predicate that selects the items following the one with the given
+     * values of a sorting attribute and of the id. Unlike {@link #from(int)}, which is translated into an SQL
+     * {@code OFFSET}, its cost doesn't grow with the position in the result, provided that the attribute is indexed.
+     * The finder must be either unsorted, in which case the order is ascending, or sorted by the attribute and
+     * possibly by the id in the same direction; this is checked by {@link #getSort()} if {@link #isKeysetPaginated()}.
+     *
+     * @param     root              the root of the query
+     * @param     criteriaBuilder   the criteria builder
+     * @param     attribute         the name of the sorting attribute
+     * @param     value             the value of the attribute of the last seen item
+     * @param     id                the id of the last seen item
+     * @return                      the predicate
+     * @param     <K>               the static type of the id
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    protected <K extends Comparable<? super K>> Predicate createKeysetPredicate (
+            @Nonnull final Root<E> root,
+            @Nonnull final CriteriaBuilder criteriaBuilder,
+            @Nonnull final String attribute,
+            @Nonnull final String value,
+            @Nonnull final K id)
+      {
+        final var ascending = sorters.isEmpty() || (sorters.get(0).direction() == SortDirection.ASCENDING);
+        final Path<String> key = root.get(attribute);
+        final Path<K> idKey = root.get(ID_ATTRIBUTE);
+        // The redundant range term lets the database perform an index range scan.
+        return ascending
+               ? criteriaBuilder.and(criteriaBuilder.greaterThanOrEqualTo(key, value),
+                                     criteriaBuilder.or(criteriaBuilder.greaterThan(key, value),
+                                                        criteriaBuilder.greaterThan(idKey, id)))
+               : criteriaBuilder.and(criteriaBuilder.lessThanOrEqualTo(key, value),
+                                     criteriaBuilder.or(criteriaBuilder.lessThan(key, value),
+                                                        criteriaBuilder.lessThan(idKey, id)));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Checks that the sorters are compatible with keyset pagination by the given attribute. This is done before the
+     * query is run, since exceptions thrown while the specification is evaluated are translated by the repository.
+     *
+     * @throws    IllegalStateException   if the finder is sorted otherwise
+     *
+     ******************************************************************************************************************/
+    private void checkKeysetSorting (@Nonnull final String attribute)
+      {
+        if (!sorters.isEmpty())
+          {
+            final var direction = sorters.get(0).direction();
+
+            if (!sorters.get(0).getAttributeName().equals(attribute)
+                || sorters.stream().skip(1).anyMatch(s -> !s.getAttributeName().equals(ID_ATTRIBUTE)
+                                                          || (s.direction() != direction)))
+              {
+                throw new IllegalStateException("Keyset pagination by %s requires sorting by it, not %s"
+                                                        .formatted(attribute, sorters));
+              }
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private Timer queryTimer (@Nonnull final String operation)
+      {
+        return Meters.timer(METER_QUERIES, "finder", getClass().getSimpleName(), "operation", operation);
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private Counter rowCounter (@Nonnull final String operation)
+      {
+        return Meters.counter(METER_ROWS, "finder", getClass().getSimpleName(), "operation", operation);
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static Sort.Direction toDirection (@Nonnull final SortDirection direction)
+      {
+        return direction == SortDirection.ASCENDING ? Sort.Direction.ASC : Sort.Direction.DESC;
+      }
+
     /*******************************************************************************************************************
      *
      ******************************************************************************************************************/
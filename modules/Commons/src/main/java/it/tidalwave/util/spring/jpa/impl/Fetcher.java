@@ -31,15 +31,17 @@ import java.util.Collection;
 import java.util.function.Function;
 import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import io.micrometer.core.instrument.Timer;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import jakarta.transaction.Transactional;
+import it.tidalwave.datamanager.util.Meters;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /***********************************************************************************************************************
  *
  * A convenience class to fetch relation collections of an Entity. Being a separate object, it is transactional even
- * if called from outside a transactional context.
+ * if called from outside a transactional context. Fetches are timed by the {@link #METER_FETCHES} timer.
  *
  * @stereotype  Repository
  * @author      Fabrizio Giudici
@@ -48,6 +50,12 @@ import lombok.extern.slf4j.Slf4j;
 @Component @AllArgsConstructor @Slf4j
 public class Fetcher
   {
+    /** The timer of fetches, tagged by entity. */
+    public static final String METER_FETCHES = "fetches";
+
+    /** The counter of fetched items, tagged by entity. */
+    public static final String METER_ROWS = "fetch.rows";
+
     @Nonnull
     private final EntityManager em;
 
@@ -63,17 +71,68 @@ public class Fetcher
      * @param   <R>           the static type of the collection of Q
      *
      ******************************************************************************************************************/
-    @Transactional
+    @Transactional(readOnly = true)
     @Nonnull @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_NO_SIDE_EFFECT")
     public <E, R extends Collection<Q>, Q> R fetch (@Nonnull final E entity,
                                                     @Nonnull final Function<? super E, R> function)
       {
+        final var sample = Timer.start();
         final var puUtil = em.getEntityManagerFactory().getPersistenceUnitUtil();
         log.info("fetch({}, id={})", entity.getClass().getSimpleName(), puUtil.getIdentifier(entity));
         final var result = function.apply(em.merge(entity));
         result.size(); // trigger fetch
-        log.info(">>>> returning {} items", result.size());
-        log.trace(">>>> returning {}", result);
+        record(sample, entity.getClass(), result);
+        return result;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Fetches elements in a lazy related collection of an entity given its id, in a transactional context. It's used
+     * when the entity has not been instantiated, e.g. it has been read by means of a projection.
+     *
+     * @param   entityClass   the class of the entity
+     * @param   id            the id of the entity
+     * @param   function      the function to extract the related collection
+     * @return                the related collection
+     * @param   <E>           the static type of the entity
+     * @param   <Q>           the static type of the related JPA entity
+     * @param   <R>           the static type of the collection of Q
+     *
+     ******************************************************************************************************************/
+    @Transactional(readOnly = true)
+    @Nonnull @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_NO_SIDE_EFFECT")
+    public <E, R extends Collection<Q>, Q> R fetch (@Nonnull final Class<E> entityClass,
+                                                    @Nonnull final Object id,
+                                                    @Nonnull final Function<? super E, R> function)
+      {
+        final var sample = Timer.start();
+        log.info("fetch({}, id={})", entityClass.getSimpleName(), id);
+        final var entity = em.find(entityClass, id);
+
+        if (entity == null)
+          {
+            throw new IllegalArgumentException("Unknown %s: %s".formatted(entityClass.getSimpleName(), id));
+          }
+
+        final var result = function.apply(entity);
+        result.size(); // trigger fetch
+        record(sample, entityClass, result);
         return result;
       }
+
+    /*******************************************************************************************************************
+     *
+     * Records the metrics of a fetch.
+     *
+     ******************************************************************************************************************/
+    private static void record (@Nonnull final Timer.Sample sample,
+                                @Nonnull final Class<?> entityClass,
+                                @Nonnull final Collection<?> result)
+      {
+        final var entityName = entityClass.getSimpleName();
+        final var time = sample.stop(Meters.timer(METER_FETCHES, "entity", entityName));
+        Meters.counter(METER_ROWS, "entity", entityName).increment(result.size());
+        log.info(">>>> returning {} items in {} msec", result.size(), time / 1_000_000);
+        log.trace(">>>> returning {}", result);
+      }
   }
@@ -28,6 +28,8 @@ package it.tidalwave.util.spring.jpa.impl;
 
 import javax.annotation.Nonnegative;
 import jakarta.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.io.Serial;
 import jakarta.persistence.EntityManagerFactory;
@@ -36,13 +38,18 @@ import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.support.DefaultTransactionStatus;
+import io.micrometer.core.instrument.Timer;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import it.tidalwave.datamanager.util.Meters;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /***********************************************************************************************************************
  *
  * A specialisation of Spring {@link JpaTransactionManager} that logs transaction demarcation and exposes some basic
- * metrics about transactions.
+ * metrics about transactions. Read-only transactions are given a connection from the read-only pool, if the
+ * {@code DataSource} is a {@link ReadOnlyRoutingDataSource}. The duration of transactions is recorded by the
+ * {@link #METER_TRANSACTIONS} timer, tagged by whether they are read-only and by their outcome.
  *
  * @author      Fabrizio Giudici
  *
@@ -53,10 +60,24 @@ public class LoggingJpaTransactionManager extends JpaTransactionManager
   {
     @Serial private static final long serialVersionUID = 0L;
 
+    /** The timer of transactions. */
+    public static final String METER_TRANSACTIONS = "transactions";
+
     private final AtomicInteger commitCount = new AtomicInteger();
 
     private final AtomicInteger rollbackCount = new AtomicInteger();
 
+    /** The samples of the running transactions, by transaction object. */
+    @SuppressFBWarnings("SE_BAD_FIELD")
+    private final Map<Object, TransactionSample> samples = new ConcurrentHashMap<>();
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private record TransactionSample (@Nonnull Timer.Sample sample, boolean readOnly)
+      {
+      }
+
     /*******************************************************************************************************************
      *
      ******************************************************************************************************************/
@@ -109,7 +130,9 @@ public class LoggingJpaTransactionManager extends JpaTransactionManager
     protected void doBegin (@Nonnull final Object transaction, @Nonnull final TransactionDefinition definition)
       {
         log.info("SQL: BEGIN - tx definition: {}", definition);
-        super.doBegin(transaction, definition);
+        final var sample = Timer.start();
+        ReadOnlyRoutingDataSource.route(definition.isReadOnly(), () -> super.doBegin(transaction, definition));
+        samples.put(transaction, new TransactionSample(sample, definition.isReadOnly()));
       }
 
     /*******************************************************************************************************************
@@ -121,6 +144,7 @@ public class LoggingJpaTransactionManager extends JpaTransactionManager
         log.info("SQL: COMMIT");
         super.doCommit(status);
         commitCount.incrementAndGet();
+        recordTransaction(status.getTransaction(), "commit");
       }
 
     /*******************************************************************************************************************
@@ -132,5 +156,33 @@ public class LoggingJpaTransactionManager extends JpaTransactionManager
         log.warn("SQL: ROLLBACK");
         super.doRollback(status);
         rollbackCount.incrementAndGet();
+        recordTransaction(status.getTransaction(), "rollback");
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    protected void doCleanupAfterCompletion (@Nonnull final Object transaction)
+      {
+        super.doCleanupAfterCompletion(transaction);
+        recordTransaction(transaction, "failure"); // only if neither committed nor rolled back
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Records the duration of the given transaction, if it hasn't been recorded yet.
+     *
+     ******************************************************************************************************************/
+    private void recordTransaction (@Nonnull final Object transaction, @Nonnull final String outcome)
+      {
+        final var sample = samples.remove(transaction);
+
+        if (sample != null)
+          {
+            sample.sample().stop(Meters.timer(METER_TRANSACTIONS,
+                                              "read.only", Boolean.toString(sample.readOnly()),
+                                              "outcome", outcome));
+          }
       }
   }
@@ -0,0 +1,145 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.util.spring.jpa.impl;
+
+import jakarta.annotation.Nonnull;
+import java.util.Map;
+import java.io.Closeable;
+import java.io.IOException;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+/***********************************************************************************************************************
+ *
+ * A {@link DataSource} that hands out connections from a read-only pool to read-only transactions, and from a
+ * read-write pool otherwise. With a database such as SQLite in WAL mode, this allows many readers to run in parallel
+ * without contending the lock held by the writer.
+ *
+ * The routing is decided when a connection is acquired, which happens as soon as a transaction begins: transactions
+ * demarcated by Spring are routed by {@link LoggingJpaTransactionManager}, according to their definition; other code
+ * can use {@link #route(boolean, Runnable)}. Transactions joining an existing one share its connection.
+ *
+ * Closing this object closes both pools.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Slf4j
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource implements Closeable
+  {
+    private static final ThreadLocal<Boolean> READ_ONLY = ThreadLocal.withInitial(() -> false);
+
+    @Nonnull
+    private final DataSource readWritePool;
+
+    @Nonnull
+    private final DataSource readOnlyPool;
+
+    /*******************************************************************************************************************
+     *
+     * Creates a new instance.
+     *
+     * @param   readWrite   the pool for read-write transactions, and for anything else
+     * @param   readOnly    the pool for read-only transactions
+     *
+     ******************************************************************************************************************/
+    public ReadOnlyRoutingDataSource (@Nonnull final DataSource readWrite, @Nonnull final DataSource readOnly)
+      {
+        readWritePool = readWrite;
+        readOnlyPool = readOnly;
+        setTargetDataSources(Map.of(false, readWrite, true, readOnly));
+        setDefaultTargetDataSource(readWrite);
+        afterPropertiesSet();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Runs a task that acquires connections from the read-only pool, or from the read-write pool.
+     *
+     * @param   readOnly    whether connections must be acquired from the read-only pool
+     * @param   task        the task
+     *
+     ******************************************************************************************************************/
+    public static void route (final boolean readOnly, @Nonnull final Runnable task)
+      {
+        final var previous = READ_ONLY.get();
+        READ_ONLY.set(readOnly);
+
+        try
+          {
+            task.run();
+          }
+        finally
+          {
+            READ_ONLY.set(previous);
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Closes both pools, if they are closeable.
+     *
+     ******************************************************************************************************************/
+    @Override
+    public void close()
+            throws IOException
+      {
+        try
+          {
+            closePool(readOnlyPool);
+          }
+        finally
+          {
+            closePool(readWritePool);
+          }
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    protected Object determineCurrentLookupKey()
+      {
+        final var readOnly = READ_ONLY.get();
+        log.trace("determineCurrentLookupKey(): readOnly={}", readOnly);
+        return readOnly;
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private static void closePool (@Nonnull final DataSource dataSource)
+            throws IOException
+      {
+        if (dataSource instanceof final Closeable closeable)
+          {
+            log.info("Closing {}", dataSource);
+            closeable.close();
+          }
+      }
+  }
@@ -0,0 +1,272 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.util.spring.jpa.impl;
+
+import javax.annotation.Nonnegative;
+import jakarta.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Component;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/***********************************************************************************************************************
+ *
+ * A convenience class to stream the results of a query by means of a forward-only cursor, so that memory usage doesn't
+ * depend on the size of the result. Since the returned {@link Stream} outlives the call, it is bound to its own
+ * {@link EntityManager} and transaction, which are released when the stream is closed. The transaction is read-only,
+ * so it doesn't hold the writer lock of the database while the stream is consumed. Queries are not cacheable on
+ * purpose: the query cache would collect the whole result into a single entry, defeating the forward-only cursor.
+ *
+ * @stereotype  Repository
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Component @RequiredArgsConstructor @Slf4j
+public class Streamer
+  {
+    /** The number of rows retrieved from the database in a single round trip. */
+    public static final int FETCH_SIZE = 1000;
+
+    /** The number of rows after which the persistence context is cleared. */
+    public static final int CLEAR_INTERVAL = 1000;
+
+    // Hibernate hints are referred by name because this module doesn't depend on Hibernate.
+    private static final String HINT_FETCH_SIZE = "org.hibernate.fetchSize";
+
+    private static final String HINT_READ_ONLY = "org.hibernate.readOnly";
+
+    @Nonnull
+    private final EntityManagerFactory emf;
+
+    /*******************************************************************************************************************
+     *
+     * Streams the entities matching the given specification. The returned {@link Stream} must be closed after use.
+     *
+     * @param   entityClass     the class of the entity
+     * @param   specification   the specification
+     * @param   sort            the sort order
+     * @param   firstResult     the index of the first result
+     * @param   maxResults      the maximum number of results
+     * @return                  the entities
+     * @param   <E>             the static type of the entity
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public <E> Stream<E> stream (@Nonnull final Class<E> entityClass,
+                                 @Nonnull final Specification<E> specification,
+                                 @Nonnull final Sort sort,
+                                 @Nonnegative final int firstResult,
+                                 @Nonnegative final int maxResults)
+      {
+        log.info("stream({}, {}, {}, {})", entityClass.getSimpleName(), sort, firstResult, maxResults);
+        return stream(entityClass, entityClass, (query, root) -> query.select(root),
+                      specification, sort, firstResult, maxResults);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Streams some attributes of the entities matching the given specification. Since no entity is instantiated, rows
+     * don't go through the persistence context. The returned {@link Stream} must be closed after use.
+     *
+     * @param   entityClass     the class of the entity
+     * @param   attributes      the names of the attributes
+     * @param   specification   the specification
+     * @param   sort            the sort order
+     * @param   firstResult     the index of the first result
+     * @param   maxResults      the maximum number of results
+     * @return                  the rows, made of the values of the attributes in the given order
+     * @param   <E>             the static type of the entity
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public <E> Stream<Object[]> stream (@Nonnull final Class<E> entityClass,
+                                        @Nonnull final List<String> attributes,
+                                        @Nonnull final Specification<E> specification,
+                                        @Nonnull final Sort sort,
+                                        @Nonnegative final int firstResult,
+                                        @Nonnegative final int maxResults)
+      {
+        log.info("stream({}, {}, {}, {}, {})", entityClass.getSimpleName(), attributes, sort, firstResult, maxResults);
+        return stream(entityClass,
+                      Object[].class,
+                      (query, root) -> query.multiselect(attributes.stream().<Selection<?>>map(root::get).toList()),
+                      specification, sort, firstResult, maxResults);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Streams the results of a JPQL query. The returned {@link Stream} must be closed after use.
+     *
+     * @param   resultClass     the class of the results
+     * @param   jpql            the query
+     * @param   parameters      the named parameters of the query
+     * @return                  the results
+     * @param   <T>             the static type of the results
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public <T> Stream<T> stream (@Nonnull final Class<T> resultClass,
+                                 @Nonnull final String jpql,
+                                 @Nonnull final Map<String, ?> parameters)
+      {
+        log.info("stream({}, {}, {})", resultClass.getSimpleName(), jpql, parameters);
+        final var em = emf.createEntityManager();
+
+        try
+          {
+            begin(em);
+            final var query = em.createQuery(jpql, resultClass);
+            parameters.forEach(query::setParameter);
+            return stream(em, query);
+          }
+        catch (RuntimeException e)
+          {
+            close(em, 0);
+            throw e;
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Streams the results of a criteria query on the given entity, whose selection is set by the given function.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private <E, T> Stream<T> stream (@Nonnull final Class<E> entityClass,
+                                     @Nonnull final Class<T> resultClass,
+                                     @Nonnull final BiConsumer<CriteriaQuery<T>, Root<E>> selector,
+                                     @Nonnull final Specification<E> specification,
+                                     @Nonnull final Sort sort,
+                                     @Nonnegative final int firstResult,
+                                     @Nonnegative final int maxResults)
+      {
+        final var em = emf.createEntityManager();
+
+        try
+          {
+            begin(em);
+            final var criteriaBuilder = em.getCriteriaBuilder();
+            final var criteriaQuery = criteriaBuilder.createQuery(resultClass);
+            final var root = criteriaQuery.from(entityClass);
+            final var predicate = specification.toPredicate(root, criteriaQuery, criteriaBuilder);
+
+            if (predicate != null)
+              {
+                criteriaQuery.where(predicate);
+              }
+
+            selector.accept(criteriaQuery, root);
+            criteriaQuery.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+            final var query = em.createQuery(criteriaQuery).setFirstResult(firstResult);
+
+            if (maxResults < Integer.MAX_VALUE)
+              {
+                query.setMaxResults(maxResults);
+              }
+
+            return stream(em, query);
+          }
+        catch (RuntimeException e)
+          {
+            close(em, 0);
+            throw e;
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static <T> Stream<T> stream (@Nonnull final EntityManager em, @Nonnull final TypedQuery<T> query)
+      {
+        final var count = new AtomicInteger();
+        return query.setHint(HINT_FETCH_SIZE, FETCH_SIZE)
+                    .setHint(HINT_READ_ONLY, true)
+                    .getResultStream()
+                    .peek(__ -> clearIfNeeded(em, count.incrementAndGet()))
+                    .onClose(() -> close(em, count.get()));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Begins a read-only transaction, which is given a connection from the read-only pool.
+     *
+     ******************************************************************************************************************/
+    private static void begin (@Nonnull final EntityManager em)
+      {
+        ReadOnlyRoutingDataSource.route(true, () -> em.getTransaction().begin());
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Periodically detaches streamed entities, so the persistence context doesn't grow with the result.
+     *
+     ******************************************************************************************************************/
+    private static void clearIfNeeded (@Nonnull final EntityManager em, @Nonnegative final int count)
+      {
+        if (count % CLEAR_INTERVAL == 0)
+          {
+            log.debug(">>>> clearing persistence context after {} items", count);
+            em.clear();
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private static void close (@Nonnull final EntityManager em, @Nonnegative final int count)
+      {
+        log.info(">>>> closing stream after {} items", count);
+
+        try
+          {
+            final var tx = em.getTransaction();
+
+            if (tx.isActive())
+              {
+                tx.commit();
+              }
+          }
+        finally
+          {
+            em.close();
+          }
+      }
+  }
@@ -0,0 +1,155 @@
+package it.tidalwave.datamanager.util;/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.util;
+
+import jakarta.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import static it.tidalwave.datamanager.util.FileExistenceChecker.CHUNK_SIZE;
+import static it.tidalwave.datamanager.util.FileExistenceChecker.LISTING_THRESHOLD;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class FileExistenceCheckerTest
+  {
+    private Path folder;
+
+    private FileExistenceChecker underTest;
+
+    /******************************************************************************************************************/
+    @BeforeMethod
+    public void setup()
+            throws IOException
+      {
+        folder = Files.createTempDirectory("existence");
+        underTest = new FileExistenceChecker(4);
+      }
+
+    /******************************************************************************************************************/
+    @AfterMethod
+    public void cleanUp()
+      {
+        underTest.close();
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_preserve_order()
+            throws IOException
+      {
+        // given
+        final var names = new ArrayList<String>();
+        final var expectedExisting = new ArrayList<String>();
+        final var expectedMissing = new ArrayList<String>();
+        // Large directories span many chunks, the small one is below the threshold, the last one doesn't exist
+        final var fileCounts = List.of(CHUNK_SIZE * 2 + 1, CHUNK_SIZE / 2, LISTING_THRESHOLD - 1, 10);
+
+        for (int d = 0; d < fileCounts.size(); d++)
+          {
+            final var directory = folder.resolve("dir-%d".formatted(d));
+
+            if (d < fileCounts.size() - 1)
+              {
+                Files.createDirectories(directory);
+              }
+
+            for (int f = 0; f < fileCounts.get(d); f++)
+              {
+                final var path = directory.resolve("file-%05d".formatted(f));
+                final var exists = Files.exists(directory) && (f % 3 != 0);
+
+                if (exists)
+                  {
+                    Files.createFile(path);
+                  }
+
+                names.add(path.toString());
+                (exists ? expectedExisting : expectedMissing).add(path.toString());
+              }
+          }
+        // when
+        final var actualExisting = underTest.filter(names.stream(), Path::of, true).toList();
+        final var actualMissing = underTest.filter(names.stream(), Path::of, false).toList();
+        // then
+        assertThat(actualExisting, is(expectedExisting));
+        assertThat(actualMissing, is(expectedMissing));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_list_directories_only_when_they_contain_enough_files()
+            throws IOException
+      {
+        // given
+        // A dangling link is in the listing, but Files.exists() doesn't see it: it tells which check was used
+        final var listed = createFilesAndDanglingLink("listed", LISTING_THRESHOLD);
+        final var notListed = createFilesAndDanglingLink("not-listed", LISTING_THRESHOLD - 1);
+        final var paths = new ArrayList<Path>();
+        paths.addAll(listed);
+        paths.addAll(notListed);
+        // when
+        final var actual = underTest.filter(paths.stream(), p -> p, true).toList();
+        // then
+        final var expected = new ArrayList<Path>();
+        expected.addAll(listed);
+        expected.addAll(notListed.subList(0, notListed.size() - 1));
+        assertThat(actual, is(expected));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Creates a directory with the given number of entries, the last one being a dangling symbolic link.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private List<Path> createFilesAndDanglingLink (@Nonnull final String name, final int count)
+            throws IOException
+      {
+        final var directory = Files.createDirectory(folder.resolve(name));
+        final var paths = IntStream.range(0, count).mapToObj(i -> directory.resolve("file-%d".formatted(i))).toList();
+
+        for (final var path : paths.subList(0, count - 1))
+          {
+            Files.createFile(path);
+          }
+
+        Files.createSymbolicLink(paths.get(count - 1), directory.resolve("missing"));
+        return paths;
+      }
+  }
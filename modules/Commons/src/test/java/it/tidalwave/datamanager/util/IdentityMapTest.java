@@ -0,0 +1,92 @@
+package it.tidalwave.datamanager.util;/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.util;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class IdentityMapTest
+  {
+    private IdentityMap<Integer, Object> underTest;
+
+    /******************************************************************************************************************/
+    @BeforeMethod
+    public void setup()
+      {
+        underTest = new IdentityMap<>(3);
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_share_instances_with_the_same_id()
+      {
+        // given
+        final var first = underTest.computeIfAbsent(1, __ -> new Object());
+        // when
+        final var second = underTest.computeIfAbsent(1, __ -> new Object());
+        // then
+        assertThat(second, is(sameInstance(first)));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_not_replace_present_instances()
+      {
+        // given
+        final var first = underTest.computeIfAbsent(1, __ -> new Object());
+        // when
+        underTest.putIfAbsent(1, new Object());
+        // then
+        assertThat(underTest.computeIfAbsent(1, __ -> new Object()), is(sameInstance(first)));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_evict_the_least_recently_used_instance_when_full()
+      {
+        // given
+        underTest.putIfAbsent(1, new Object());
+        underTest.putIfAbsent(2, new Object());
+        underTest.putIfAbsent(3, new Object());
+        underTest.computeIfAbsent(1, __ -> new Object());
+        // when
+        underTest.putIfAbsent(4, new Object());
+        // then
+        assertThat(underTest.contains(1), is(true));
+        assertThat(underTest.contains(2), is(false));
+        assertThat(underTest.contains(3), is(true));
+        assertThat(underTest.contains(4), is(true));
+      }
+  }
@@ -0,0 +1,125 @@
+package it.tidalwave.datamanager.util;/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.util;
+
+import javax.annotation.Nonnegative;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import static it.tidalwave.datamanager.util.Utilities.BUFFER_SIZE;
+import static it.tidalwave.datamanager.util.Utilities.MAPPED_REGION_SIZE;
+import static it.tidalwave.datamanager.util.Utilities.MAPPING_THRESHOLD;
+import static it.tidalwave.datamanager.util.Utilities.chunked;
+import static it.tidalwave.datamanager.util.Utilities.fingerprintOfFile;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class UtilitiesTest
+  {
+    /******************************************************************************************************************/
+    @Test(dataProvider = "fileSizes")
+    public void fingerprintOfFile_must_digest_the_whole_file (@Nonnegative final long size)
+            throws IOException, NoSuchAlgorithmException
+      {
+        // given
+        final var bytes = new byte[Math.toIntExact(size)];
+        new Random(size).nextBytes(bytes);
+        final var file = Files.write(Files.createTempFile("fingerprint", ".bin"), bytes);
+
+        try
+          {
+            // when
+            final var actual = fingerprintOfFile("MD5", file);
+            // then
+            assertThat(actual, is(MessageDigest.getInstance("MD5").digest(bytes)));
+          }
+        finally
+          {
+            Files.delete(file);
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void chunked_must_return_a_shorter_last_chunk()
+      {
+        // when
+        final var actual = chunked(IntStream.range(0, 10).boxed(), 4).toList();
+        // then
+        assertThat(actual, is(List.of(List.of(0, 1, 2, 3), List.of(4, 5, 6, 7), List.of(8, 9))));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void chunked_must_return_no_chunks_for_an_empty_stream()
+      {
+        // when
+        final var actual = chunked(IntStream.range(0, 0).boxed(), 4).toList();
+        // then
+        assertThat(actual, is(List.of()));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void chunked_must_close_the_original_stream()
+      {
+        // given
+        final var closed = new AtomicBoolean();
+        final var stream = IntStream.range(0, 10).boxed().onClose(() -> closed.set(true));
+        // when
+        try (final var underTest = chunked(stream, 4))
+          {
+            underTest.findFirst();
+          }
+        // then
+        assertThat(closed.get(), is(true));
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] fileSizes()
+      {
+        // Read into the buffer (also in more than one pass), mapped in a single region or in more regions
+        return new Object[][]
+          {
+            { 0L }, { 1L }, { BUFFER_SIZE + 1L }, { MAPPING_THRESHOLD - 1 }, { MAPPING_THRESHOLD },
+            { MAPPED_REGION_SIZE - 1 }, { MAPPED_REGION_SIZE }, { MAPPED_REGION_SIZE + 1 }
+          };
+      }
+  }
@@ -31,6 +31,8 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -41,12 +43,18 @@ import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.Cascade;
 import org.hibernate.annotations.CascadeType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
+import static it.tidalwave.datamanager.dao.impl.jpa.SecondLevelCacheConfiguration.BACKUP_FILE_REGION;
+import static it.tidalwave.datamanager.dao.impl.jpa.SecondLevelCacheConfiguration.BACKUP_REGION;
 
 /***********************************************************************************************************************
  *
@@ -56,7 +64,7 @@ import lombok.Setter;
  * @author      Fabrizio Giudici
  *
  **********************************************************************************************************************/
-@Entity
+@Entity @Cacheable @Cache(usage = READ_WRITE, region = BACKUP_REGION)
 @Table(name="backups", indexes = { @Index(name = "backups__id", columnList = "id"),
                                    @Index(name = "backups__label", columnList = "label"),
                                    @Index(name = "backups__volume_id", columnList = "volume_id")})
@@ -65,8 +73,8 @@ import lombok.Setter;
 public class BackupEntity
   {
     @Id
-    @Column(length = 36)
-    private String id;
+    @JdbcTypeCode(SqlTypes.BINARY) @Column(columnDefinition = "blob")
+    private UUID id;
 
     @Column(unique = true, nullable = false, columnDefinition = "text")
     private String label;
@@ -85,10 +93,12 @@ public class BackupEntity
     @Column(name = "registration_date", nullable = false)
     private LocalDateTime registrationDate;
 
+    @Setter
     @Column(name = "latest_check_date")
     private LocalDateTime latestCheckDate;
 
     @Setter
+    @Cache(usage = READ_WRITE, region = BACKUP_FILE_REGION)
     @OneToMany(mappedBy = "backup", fetch = FetchType.LAZY)
     @OrderBy("path asc")
     @Cascade(CascadeType.PERSIST)
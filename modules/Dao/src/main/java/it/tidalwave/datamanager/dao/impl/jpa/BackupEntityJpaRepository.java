@@ -26,8 +26,17 @@
  */
 package it.tidalwave.datamanager.dao.impl.jpa;
 
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.UUID;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
 
 /***********************************************************************************************************************
  *
@@ -38,6 +47,22 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
  *
  **********************************************************************************************************************/
 public interface BackupEntityJpaRepository
-        extends JpaRepository<BackupEntity, String>, JpaSpecificationExecutor<BackupEntity>
+        extends JpaRepository<BackupEntity, UUID>, JpaSpecificationExecutor<BackupEntity>
   {
+    /*******************************************************************************************************************
+     *
+     * Redeclared to put the results in the query cache.
+     *
+     ******************************************************************************************************************/
+    @Override @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true")) @Nonnull
+    public Page<BackupEntity> findAll (@Nullable Specification<BackupEntity> specification,
+                                       @Nonnull Pageable pageable);
+
+    /*******************************************************************************************************************
+     *
+     * Redeclared to put the results in the query cache.
+     *
+     ******************************************************************************************************************/
+    @Override @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    public long count (@Nullable Specification<BackupEntity> specification);
   }
@@ -28,6 +28,8 @@ package it.tidalwave.datamanager.dao.impl.jpa;
 
 import jakarta.annotation.Nonnull;
 import java.util.Objects;
+import java.util.UUID;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -37,9 +39,14 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
+import static it.tidalwave.datamanager.dao.impl.jpa.SecondLevelCacheConfiguration.BACKUP_FILE_REGION;
 
 /***********************************************************************************************************************
  *
@@ -47,7 +54,7 @@ import lombok.NoArgsConstructor;
  * @author      Fabrizio Giudici
  *
  **********************************************************************************************************************/
-@Entity
+@Entity @Cacheable @Cache(usage = READ_WRITE, region = BACKUP_FILE_REGION)
 @Table(name="backup_files", indexes = { @Index(name = "backup_files__id", columnList = "id"),
                                         @Index(name = "backup_files__file_id", columnList = "file_id")})
 @NoArgsConstructor @AllArgsConstructor @Getter
@@ -55,15 +62,15 @@ import lombok.NoArgsConstructor;
 public class BackupFileEntity
   {
     @Id
-    @Column(length = 36)
-    private String id;
+    @JdbcTypeCode(SqlTypes.BINARY) @Column(columnDefinition = "blob")
+    private UUID id;
 
     @ManyToOne(optional = false, fetch = FetchType.EAGER)
-    @JoinColumn(name = "backup_id", nullable = false)
+    @JoinColumn(name = "backup_id", nullable = false, columnDefinition = "blob")
     private BackupEntity backup;
 
     @ManyToOne(optional = false, fetch = FetchType.EAGER)
-    @JoinColumn(name = "file_id", nullable = false)
+    @JoinColumn(name = "file_id", nullable = false, columnDefinition = "blob")
     private ManagedFileEntity managedFile;
 
     @Column(name = "path", nullable = false, columnDefinition = "text")
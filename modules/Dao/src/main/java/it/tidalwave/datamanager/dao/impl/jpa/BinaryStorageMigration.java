@@ -0,0 +1,359 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.dao.impl.jpa;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.sqlite.SQLiteConnection;
+import lombok.extern.slf4j.Slf4j;
+
+/***********************************************************************************************************************
+ *
+ * Migrates a catalog in which ids and fingerprints are stored as text (36-character UUIDs and 32-character hexadecimal
+ * digests) to the binary storage format, in which they are 16-byte BLOBs and raw digests. Tables are rebuilt with
+ * the same DDL that Hibernate would generate, within a single transaction; then the database is vacuumed to reclaim
+ * space. Tables that don't exist or that have been already migrated are left untouched, so it's safe to run the
+ * migration more than once. Values are checked before being copied: if any of them is malformed, the migration fails
+ * reporting the table, the column and the value, and the database is left unchanged.
+ *
+ * The migration, and in particular the {@code VACUUM}, which rewrites the whole database into a temporary copy, needs
+ * free disk space about twice the size of the database.
+ *
+ * The migration is automatically performed at startup, as soon as the {@link DataSource} is available and before
+ * Hibernate updates the schema. It can also be run from the command line, passing the path of the database:
+ *
+ * <pre>
+ * java -cp ... it.tidalwave.datamanager.dao.impl.jpa.BinaryStorageMigration ~/.../db/fingerprints.db
+ * </pre>
+ *
+ * Volume ids are left as text, since they come from the filesystem and are not guaranteed to be UUIDs.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Component @Slf4j
+public class BinaryStorageMigration implements BeanPostProcessor
+  {
+    /*******************************************************************************************************************
+     * A column of a migrated table, with the SQL expression that converts its old value and, if it's converted, the
+     * SQL condition that is true for old values that can't be converted.
+     ******************************************************************************************************************/
+    private record Column (@Nonnull String name, @Nonnull String conversion, @Nullable String malformed)
+      {
+        @Nonnull
+        static Column asIs (@Nonnull final String name)
+          {
+            return new Column(name, name, null);
+          }
+
+        @Nonnull
+        static Column uuid (@Nonnull final String name)
+          {
+            final var hex = "replace(%s, '-', '')".formatted(name);
+            return new Column(name, "unhex(%s)".formatted(hex),
+                              "%s IS NULL OR length(%2$s) <> 32 OR unhex(%2$s) IS NULL".formatted(name, hex));
+          }
+
+        @Nonnull
+        static Column hex (@Nonnull final String name)
+          {
+            return new Column(name, "unhex(%s)".formatted(name),
+                              "%1$s IS NULL OR length(%1$s) = 0 OR unhex(%1$s) IS NULL".formatted(name));
+          }
+      }
+
+    /*******************************************************************************************************************
+     * A migrated table.
+     ******************************************************************************************************************/
+    private record Table (@Nonnull String name, @Nonnull String ddl, @Nonnull List<Column> columns)
+      {
+      }
+
+    // The DDL must be kept in sync with the one generated by Hibernate, see expected-schema.sql in tests.
+    private static final List<Table> TABLES = List.of(
+      new Table("backup_files",
+                "CREATE TABLE backup_files (id blob not null, path text not null, backup_id blob not null, " +
+                "file_id blob not null, primary key (id))",
+                List.of(Column.uuid("id"), Column.asIs("path"), Column.uuid("backup_id"), Column.uuid("file_id"))),
+      new Table("backups",
+                "CREATE TABLE backups (id blob not null, base_path text not null, creation_date timestamp not null, " +
+                "encrypted boolean not null, label text not null unique, latest_check_date timestamp, " +
+                "registration_date timestamp not null, volume_id varchar(36) not null unique, primary key (id))",
+                List.of(Column.uuid("id"), Column.asIs("base_path"), Column.asIs("creation_date"),
+                        Column.asIs("encrypted"), Column.asIs("label"), Column.asIs("latest_check_date"),
+                        Column.asIs("registration_date"), Column.asIs("volume_id"))),
+      new Table("files",
+                "CREATE TABLE files (id blob not null, file_key text, last_modified bigint, path text not null, " +
+                "size bigint, primary key (id))",
+                List.of(Column.uuid("id"), Column.asIs("file_key"), Column.asIs("last_modified"), Column.asIs("path"),
+                        Column.asIs("size"))),
+      new Table("fingerprints",
+                "CREATE TABLE fingerprints (id blob not null, algorithm varchar(16) not null, file_id blob not null, " +
+                "name text not null, timestamp timestamp not null, fingerprint blob not null, primary key (id))",
+                List.of(Column.uuid("id"), Column.asIs("algorithm"), Column.uuid("file_id"), Column.asIs("name"),
+                        Column.asIs("timestamp"), Column.hex("fingerprint"))));
+
+    private static final List<String> INDEXES = List.of(
+      "CREATE INDEX backup_files__id on backup_files (id)",
+      "CREATE INDEX backup_files__file_id on backup_files (file_id)",
+      "CREATE INDEX backups__id on backups (id)",
+      "CREATE INDEX backups__label on backups (label)",
+      "CREATE INDEX backups__volume_id on backups (volume_id)",
+      "CREATE INDEX files__id on files (id)",
+      "CREATE INDEX files__path on files (path)",
+      "CREATE INDEX fingerprints__id on fingerprints (id)",
+      "CREATE INDEX fingerprints__name on fingerprints (name)",
+      "CREATE INDEX fingerprints__timestamp on fingerprints (timestamp)",
+      "CREATE INDEX fingerprints__fingerprint on fingerprints (fingerprint)",
+      "CREATE INDEX fingerprints__file_id on fingerprints (file_id)");
+
+    /*******************************************************************************************************************
+     *
+     * Migrates the database at the given path.
+     *
+     * @param   args          the path of the database
+     * @throws  SQLException  in case of error
+     *
+     ******************************************************************************************************************/
+    public static void main (@Nonnull final String ... args)
+            throws SQLException
+      {
+        if (args.length != 1)
+          {
+            System.err.println("Usage: BinaryStorageMigration <path of the database>");
+            System.exit(1);
+          }
+
+        try (final var connection = DriverManager.getConnection("jdbc:sqlite:" + args[0]))
+          {
+            System.out.println(migrate(connection) ? "Migration completed" : "Nothing to migrate");
+          }
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    public Object postProcessAfterInitialization (@Nonnull final Object bean, @Nonnull final String beanName)
+      {
+        if (bean instanceof final DataSource dataSource)
+          {
+            try (final var connection = dataSource.getConnection())
+              {
+                if (connection.isWrapperFor(SQLiteConnection.class))
+                  {
+                    migrate(connection);
+                  }
+              }
+            catch (SQLException e)
+              {
+                throw new BeanInitializationException("Cannot migrate the catalog to the binary storage format", e);
+              }
+          }
+
+        return bean;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Migrates a database, if needed.
+     *
+     * @param   connection    the connection to the database
+     * @return                {@code true} if something has been migrated
+     * @throws  SQLException  in case of error; the database is left unchanged
+     *
+     ******************************************************************************************************************/
+    public static boolean migrate (@Nonnull final Connection connection)
+            throws SQLException
+      {
+        final var tables = new ArrayList<Table>();
+
+        for (final var table : TABLES)
+          {
+            if (isTextFormat(connection, table.name()))
+              {
+                tables.add(table);
+              }
+          }
+
+        if (tables.isEmpty())
+          {
+            return false;
+          }
+
+        log.info("Migrating {} to the binary storage format...", tables.stream().map(Table::name).toList());
+        final var autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (final var statement = connection.createStatement())
+          {
+            for (final var table : tables)
+              {
+                migrate(connection, statement, table);
+              }
+
+            for (final var index : INDEXES)
+              {
+                if (tables.stream().anyMatch(t -> index.contains(" on %s ".formatted(t.name()))))
+                  {
+                    statement.executeUpdate(index);
+                  }
+              }
+
+            connection.commit();
+          }
+        catch (SQLException | RuntimeException e)
+          {
+            connection.rollback();
+            throw e;
+          }
+        finally
+          {
+            connection.setAutoCommit(autoCommit);
+          }
+
+        log.info(">>>> reclaiming space...");
+
+        try (final var statement = connection.createStatement())
+          {
+            statement.executeUpdate("VACUUM");
+          }
+
+        log.info(">>>> migration completed");
+        return true;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Rebuilds a table, converting its contents. Columns missing in the old table, because it was created by an older
+     * version, are left empty.
+     *
+     ******************************************************************************************************************/
+    private static void migrate (@Nonnull final Connection connection,
+                                 @Nonnull final Statement statement,
+                                 @Nonnull final Table table)
+            throws SQLException
+      {
+        log.info(">>>> migrating {}...", table.name());
+        final var oldColumns = columnNames(connection, table.name());
+        final var columns = table.columns().stream().filter(c -> oldColumns.contains(c.name())).toList();
+        checkValues(statement, table.name(), columns);
+        final var oldTable = table.name() + "__text";
+        statement.executeUpdate("ALTER TABLE %s RENAME TO %s".formatted(table.name(), oldTable));
+        statement.executeUpdate(table.ddl());
+        statement.executeUpdate("INSERT INTO %s (%s) SELECT %s FROM %s".formatted(
+                table.name(),
+                columns.stream().map(Column::name).collect(Collectors.joining(", ")),
+                columns.stream().map(Column::conversion).collect(Collectors.joining(", ")),
+                oldTable));
+        statement.executeUpdate("DROP TABLE " + oldTable);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Checks that the values of the converted columns can be converted, otherwise they would be copied as NULLs and
+     * the migration would fail with an opaque constraint violation.
+     *
+     ******************************************************************************************************************/
+    private static void checkValues (@Nonnull final Statement statement,
+                                     @Nonnull final String table,
+                                     @Nonnull final List<Column> columns)
+            throws SQLException
+      {
+        for (final var column : columns.stream().filter(c -> c.malformed() != null).toList())
+          {
+            final var query = "SELECT %s FROM %s WHERE %s LIMIT 1".formatted(column.name(), table, column.malformed());
+
+            try (final var resultSet = statement.executeQuery(query))
+              {
+                if (resultSet.next())
+                  {
+                    throw new SQLException("Cannot migrate %s.%s, malformed value: '%s'".formatted(
+                            table, column.name(), resultSet.getString(1)));
+                  }
+              }
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Tells whether the table exists and ids are stored as text.
+     *
+     ******************************************************************************************************************/
+    private static boolean isTextFormat (@Nonnull final Connection connection, @Nonnull final String table)
+            throws SQLException
+      {
+        try (final var statement = connection.prepareStatement(
+                "SELECT type FROM pragma_table_info(?) WHERE name = 'id'"))
+          {
+            statement.setString(1, table);
+
+            try (final var resultSet = statement.executeQuery())
+              {
+                return resultSet.next() && !resultSet.getString(1).equalsIgnoreCase("blob");
+              }
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static Set<String> columnNames (@Nonnull final Connection connection, @Nonnull final String table)
+            throws SQLException
+      {
+        try (final var statement = connection.prepareStatement("SELECT name FROM pragma_table_info(?)"))
+          {
+            statement.setString(1, table);
+
+            try (final var resultSet = statement.executeQuery())
+              {
+                final var result = new HashSet<String>();
+
+                while (resultSet.next())
+                  {
+                    result.add(resultSet.getString(1));
+                  }
+
+                return result;
+              }
+          }
+      }
+  }
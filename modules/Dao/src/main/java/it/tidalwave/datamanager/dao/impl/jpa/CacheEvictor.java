@@ -0,0 +1,162 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.dao.impl.jpa;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/***********************************************************************************************************************
+ *
+ * Evicts the second-level and query caches when the database has been changed by other processes, which the caches
+ * are not aware of. A long-running process must call {@link #evictIfDatabaseChanged()} before it serves a request.
+ *
+ * Changes are detected by polling {@code PRAGMA data_version}, whose value changes whenever another connection commits
+ * a change. Since the value is specific to a connection, it's polled on a dedicated read-only connection, which is not
+ * taken from the pools and is never in a transaction, so it doesn't hold any lock. If the database is not SQLite, or
+ * the value can't be read, caches are conservatively evicted every time.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Component @RequiredArgsConstructor @Slf4j
+public class CacheEvictor
+  {
+    @Nonnull
+    private final EntityManagerFactory emf;
+
+    @Nonnull
+    private final DataSourceProperties dataSourceProperties;
+
+    @Nullable
+    private Connection connection;
+
+    /** The latest value of {@code data_version}, -1 if unknown. */
+    private long dataVersion = -1;
+
+    /*******************************************************************************************************************
+     *
+     * Evicts all the entities, collections and query results if the database has changed since the previous call. The
+     * first call always evicts, since the caches might have been populated before.
+     *
+     ******************************************************************************************************************/
+    public synchronized void evictIfDatabaseChanged()
+      {
+        final var previous = dataVersion;
+        dataVersion = readDataVersion();
+
+        if ((dataVersion < 0) || (dataVersion != previous))
+          {
+            log.debug("Database changed (data_version: {} -> {})", previous, dataVersion);
+            evictAll();
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Evicts all the entities, collections and query results.
+     *
+     ******************************************************************************************************************/
+    public void evictAll()
+      {
+        log.debug("evictAll()");
+        emf.unwrap(SessionFactory.class).getCache().evictAllRegions();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Closes the dedicated connection.
+     *
+     ******************************************************************************************************************/
+    @PreDestroy
+    public synchronized void close()
+      {
+        if (connection != null)
+          {
+            try
+              {
+                connection.close();
+              }
+            catch (SQLException e)
+              {
+                log.warn("While closing the connection: {}", e.toString());
+              }
+
+            connection = null;
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the current value of {@code data_version}, or -1 if it can't be read.
+     *
+     ******************************************************************************************************************/
+    private long readDataVersion()
+      {
+        final var url = dataSourceProperties.getUrl();
+
+        if ((url == null) || !url.startsWith("jdbc:") || !url.contains(":sqlite:"))
+          {
+            return -1;
+          }
+
+        try
+          {
+            if (connection == null)
+              {
+                final var config = new SQLiteConfig();
+                config.setReadOnly(true);
+                final var dataSource = new SQLiteDataSource(config);
+                // Straight to the driver, without proxies such as P6Spy
+                dataSource.setUrl("jdbc:sqlite:" + url.substring(url.indexOf(":sqlite:") + ":sqlite:".length()));
+                connection = dataSource.getConnection();
+              }
+
+            try (final var statement = connection.createStatement();
+                 final var resultSet = statement.executeQuery("PRAGMA data_version"))
+              {
+                return resultSet.next() ? resultSet.getLong(1) : -1;
+              }
+          }
+        catch (SQLException e)
+          {
+            log.warn("Cannot read data_version: {}", e.toString());
+            close();
+            return -1;
+          }
+      }
+  }
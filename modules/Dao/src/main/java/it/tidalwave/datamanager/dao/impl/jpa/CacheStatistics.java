@@ -0,0 +1,113 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.dao.impl.jpa;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/***********************************************************************************************************************
+ *
+ * Exposes the hit/miss statistics of the second-level and query caches. They are also logged at shutdown. Statistics
+ * are only collected while the caches are enabled.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Component @RequiredArgsConstructor @Slf4j
+public class CacheStatistics
+  {
+    @Nonnull
+    private final EntityManagerFactory emf;
+
+    /*******************************************************************************************************************
+     *
+     * Returns the number of hits in the second-level cache.
+     *
+     ******************************************************************************************************************/
+    public long getHitCount()
+      {
+        return statistics().getSecondLevelCacheHitCount();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the number of misses in the second-level cache.
+     *
+     ******************************************************************************************************************/
+    public long getMissCount()
+      {
+        return statistics().getSecondLevelCacheMissCount();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the number of hits in the query cache.
+     *
+     ******************************************************************************************************************/
+    public long getQueryHitCount()
+      {
+        return statistics().getQueryCacheHitCount();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the number of misses in the query cache.
+     *
+     ******************************************************************************************************************/
+    public long getQueryMissCount()
+      {
+        return statistics().getQueryCacheMissCount();
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @PreDestroy
+    public void logStatistics()
+      {
+        if (statistics().isStatisticsEnabled())
+          {
+            log.info("Second-level cache: {} hits, {} misses; query cache: {} hits, {} misses",
+                     getHitCount(), getMissCount(), getQueryHitCount(), getQueryMissCount());
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private Statistics statistics()
+      {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+      }
+  }
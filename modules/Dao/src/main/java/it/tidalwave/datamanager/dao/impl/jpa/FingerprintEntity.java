@@ -26,18 +26,26 @@
  */
 package it.tidalwave.datamanager.dao.impl.jpa;
 
+import jakarta.annotation.Nonnull;
 import java.time.LocalDateTime;
 import java.util.Objects;
+import java.util.UUID;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.ToString;
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
+import static it.tidalwave.datamanager.dao.impl.jpa.SecondLevelCacheConfiguration.FINGERPRINT_REGION;
+import static it.tidalwave.datamanager.util.Utilities.fingerprintToString;
 
 /***********************************************************************************************************************
  *
@@ -47,19 +55,19 @@ import lombok.ToString;
  * @author      Fabrizio Giudici
  *
  **********************************************************************************************************************/
-@Entity
+@Entity @Cacheable @Cache(usage = READ_WRITE, region = FINGERPRINT_REGION)
 @Table(name="fingerprints", indexes = {@Index(name = "fingerprints__id", columnList = "id"),
                                        @Index(name = "fingerprints__name", columnList = "name"),
                                        @Index(name = "fingerprints__timestamp", columnList = "timestamp"),
                                        @Index(name = "fingerprints__fingerprint", columnList = "fingerprint"),
                                        @Index(name = "fingerprints__file_id", columnList = "file_id")})
-@NoArgsConstructor @AllArgsConstructor @Getter @ToString
+@NoArgsConstructor @AllArgsConstructor @Getter
 @SuppressFBWarnings({"EI_EXPOSE_REP", "EI_EXPOSE_REP2"})
 public class FingerprintEntity
   {
     @Id
-    @Column(length = 36)
-    private String id;
+    @JdbcTypeCode(SqlTypes.BINARY) @Column(columnDefinition = "blob")
+    private UUID id;
 
     @Column(nullable = false, columnDefinition = "text")
     private String name;
@@ -67,14 +75,14 @@ public class FingerprintEntity
     @Column(nullable = false, length = 16)
     private String algorithm;
 
-    @Column(name = "fingerprint", nullable = false, length = 32)
-    private String value;
+    @Column(name = "fingerprint", nullable = false, columnDefinition = "blob")
+    private byte[] value;
 
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
-    @Column(name = "file_id", nullable = false, length = 36)
-    private String fileId;
+    @JdbcTypeCode(SqlTypes.BINARY) @Column(name = "file_id", nullable = false, columnDefinition = "blob")
+    private UUID fileId;
 
     // See https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
     @Override
@@ -98,4 +106,12 @@ public class FingerprintEntity
       {
         return getClass().hashCode();
       }
+
+    // The fingerprint is rendered in hexadecimal form, as it would be by Lombok for a String
+    @Override @Nonnull
+    public String toString()
+      {
+        return "FingerprintEntity(id=%s, name=%s, algorithm=%s, value=%s, timestamp=%s, fileId=%s)"
+                .formatted(id, name, algorithm, value == null ? null : fingerprintToString(value), timestamp, fileId);
+      }
   }
@@ -0,0 +1,56 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.dao.impl.jpa;
+
+import jakarta.annotation.Nonnull;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+/***********************************************************************************************************************
+ *
+ * The repository for {@link FingerprintEntity}.
+ *
+ * @stereotype  Repository
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public interface FingerprintEntityJpaRepository extends JpaRepository<FingerprintEntity, UUID>
+  {
+    /*******************************************************************************************************************
+     *
+     * Finds the fingerprints of many files in a single query.
+     *
+     * @param   fileIds   the ids of the files
+     * @return            the fingerprints, sorted by timestamp
+     *
+     ******************************************************************************************************************/
+    @Transactional(readOnly = true) @Nonnull
+    public List<FingerprintEntity> findByFileIdInOrderByTimestampAsc (@Nonnull Collection<UUID> fileIds);
+  }
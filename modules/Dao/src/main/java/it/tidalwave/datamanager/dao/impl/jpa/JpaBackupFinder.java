@@ -36,6 +36,7 @@ import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import it.tidalwave.util.spring.jpa.JpaSpecificationFinder;
+import it.tidalwave.util.spring.jpa.impl.Streamer;
 import it.tidalwave.datamanager.model.Backup;
 import it.tidalwave.datamanager.model.DataManager.BackupFinder;
 
@@ -54,34 +55,45 @@ public class JpaBackupFinder
   {
     @Serial private static final long serialVersionUID = 0L;
 
+    private static final String KEYSET_ATTRIBUTE = "label";
+
     private final Optional<String> label;
 
     private final Optional<String> volumeId;
 
     private final Optional<String> fileId;
 
+    private final Optional<Backup> lastSeen;
+
     /*******************************************************************************************************************
      *
      ******************************************************************************************************************/
     public JpaBackupFinder (@Nonnull final BackupEntityJpaRepository repository,
-                            @Nonnull final Function<BackupEntity, Backup> transformer)
+                            @Nonnull final Streamer streamer,
+                            @Nonnull final Function<List<BackupEntity>, List<Backup>> transformer,
+                            @Nonnull final Optional<Projection<Backup>> projection)
       {
-        this(repository, transformer, Optional.empty(), Optional.empty(), Optional.empty());
+        this(repository, streamer, transformer, projection,
+             Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
       }
 
     /*******************************************************************************************************************
      *
      ******************************************************************************************************************/
     public JpaBackupFinder (@Nonnull final BackupEntityJpaRepository repository,
-                            @Nonnull final Function<BackupEntity, Backup> transformer,
+                            @Nonnull final Streamer streamer,
+                            @Nonnull final Function<List<BackupEntity>, List<Backup>> transformer,
+                            @Nonnull final Optional<Projection<Backup>> projection,
                             @Nonnull final Optional<String> label,
                             @Nonnull final Optional<String> volumeId,
-                            @Nonnull final Optional<String> fileId)
+                            @Nonnull final Optional<String> fileId,
+                            @Nonnull final Optional<Backup> lastSeen)
       {
-        super(repository, transformer);
+        super(repository, BackupEntity.class, streamer, transformer, projection);
         this.label = label;
         this.volumeId = volumeId;
         this.fileId = fileId;
+        this.lastSeen = lastSeen;
       }
 
     /*******************************************************************************************************************
@@ -94,6 +106,7 @@ public class JpaBackupFinder
         this.label = source.label;
         this.volumeId = source.volumeId;
         this.fileId = source.fileId;
+        this.lastSeen = source.lastSeen;
       }
 
     /*******************************************************************************************************************
@@ -102,7 +115,8 @@ public class JpaBackupFinder
     @Override @Nonnull
     public BackupFinder withLabel (@Nonnull final Optional<String> label)
       {
-        return clonedWith(new JpaBackupFinder(repository, entityToModel, label, volumeId, fileId));
+        return clonedWith(new JpaBackupFinder(repository, streamer, entitiesToModel, projection,
+                                              label, volumeId, fileId, lastSeen));
       }
 
     /*******************************************************************************************************************
@@ -111,7 +125,8 @@ public class JpaBackupFinder
     @Override @Nonnull
     public BackupFinder withVolumeId (@Nonnull final Optional<String> volumeId)
       {
-        return clonedWith(new JpaBackupFinder(repository, entityToModel, label, volumeId, fileId));
+        return clonedWith(new JpaBackupFinder(repository, streamer, entitiesToModel, projection,
+                                              label, volumeId, fileId, lastSeen));
       }
 
     /*******************************************************************************************************************
@@ -120,7 +135,36 @@ public class JpaBackupFinder
     @Override @Nonnull
     public BackupFinder withFileId (@Nonnull final Optional<String> fileId)
       {
-        return clonedWith(new JpaBackupFinder(repository, entityToModel, label, volumeId, fileId));
+        return clonedWith(new JpaBackupFinder(repository, streamer, entitiesToModel, projection,
+                                              label, volumeId, fileId, lastSeen));
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    public BackupFinder startingAfter (@Nonnull final Optional<Backup> lastSeen)
+      {
+        return clonedWith(new JpaBackupFinder(repository, streamer, entitiesToModel, projection,
+                                              label, volumeId, fileId, lastSeen));
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    protected Optional<String> getKeysetAttribute()
+      {
+        return Optional.of(KEYSET_ATTRIBUTE);
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    protected boolean isKeysetPaginated()
+      {
+        return lastSeen.isPresent();
       }
 
     /*******************************************************************************************************************
@@ -132,8 +176,14 @@ public class JpaBackupFinder
       {
         label.ifPresent(l -> predicates.add(criteriaBuilder.equal(root.get("label"), l)));
         volumeId.ifPresent(v -> predicates.add(criteriaBuilder.equal(root.get("volumeId"), v)));
-        fileId.ifPresent(i -> predicates.add(criteriaBuilder.equal(root.join("backupFiles")
-                                                                       .join("managedFile")
-                                                                       .get("id"), i)));
+        fileId.ifPresent(i -> predicates.add(
+                JpaDataManagerDao.parseId(i)
+                                 .map(u -> criteriaBuilder.equal(root.join("backupFiles")
+                                                                     .join("managedFile")
+                                                                     .get("id"), u))
+                                 .orElseGet(criteriaBuilder::disjunction)));
+        lastSeen.ifPresent(b -> predicates.add(createKeysetPredicate(root, criteriaBuilder, KEYSET_ATTRIBUTE,
+                                                                     b.getLabel(),
+                                                                     JpaDataManagerDao.toUuid(b.getId()))));
       }
   }
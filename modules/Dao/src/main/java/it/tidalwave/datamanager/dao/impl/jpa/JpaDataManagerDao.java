@@ -27,22 +27,56 @@
 package it.tidalwave.datamanager.dao.impl.jpa;
 
 import jakarta.annotation.Nonnull;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import it.tidalwave.util.Id;
+import it.tidalwave.util.LazySupplier;
+import it.tidalwave.util.spring.jpa.JpaSpecificationFinder.Projection;
 import it.tidalwave.util.spring.jpa.impl.Fetcher;
+import it.tidalwave.util.spring.jpa.impl.Streamer;
 import it.tidalwave.datamanager.model.Backup;
 import it.tidalwave.datamanager.model.BackupFile;
+import it.tidalwave.datamanager.model.BackupRegistration;
 import it.tidalwave.datamanager.model.DataManager.BackupFinder;
 import it.tidalwave.datamanager.model.DataManager.ManagedFileFinder;
+import it.tidalwave.datamanager.model.DuplicateCriteria;
+import it.tidalwave.datamanager.model.DuplicateGroup;
+import it.tidalwave.datamanager.model.FileState;
 import it.tidalwave.datamanager.model.Fingerprint;
 import it.tidalwave.datamanager.model.ManagedFile;
+import it.tidalwave.datamanager.model.ScannedFile;
 import it.tidalwave.datamanager.dao.DataManagerDao;
+import it.tidalwave.datamanager.util.IdentityMap;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import static java.util.stream.Collectors.toMap;
+import static it.tidalwave.datamanager.util.Utilities.fingerprintFromString;
+import static it.tidalwave.datamanager.util.Utilities.fingerprintToString;
 
 /***********************************************************************************************************************
  *
@@ -55,44 +89,386 @@ import lombok.extern.slf4j.Slf4j;
 @Component @AllArgsConstructor @Slf4j
 public class JpaDataManagerDao implements DataManagerDao
   {
+    /** The maximum number of file ids or paths in a single query. */
+    private static final int MAX_IDS_PER_QUERY = 500;
+
+    /** The hint for not putting entities in the second-level cache. */
+    private static final String HINT_CACHE_STORE_MODE = "jakarta.persistence.cache.storeMode";
+
+    /** The maximum number of {@link ManagedFile}s shared among the {@link BackupFile}s of a query. */
+    private static final int MANAGED_FILE_IDENTITY_MAP_CAPACITY = 10_000;
+
+    /** The attributes of {@link ManagedFileEntity} read when streaming {@link ManagedFile}s. */
+    private static final List<String> MANAGED_FILE_ATTRIBUTES = List.of("id", "path");
+
+    /** The attributes of {@link BackupEntity} read when streaming {@link Backup}s. */
+    private static final List<String> BACKUP_ATTRIBUTES = List.of("id", "label", "volumeId", "encrypted", "basePath",
+                                                                  "creationDate", "registrationDate",
+                                                                  "latestCheckDate");
+
+    /** The query for duplicates; the placeholders are for the conditions on files, see {@link #duplicateConditions}. */
+    private static final String DUPLICATES_QUERY = """
+            SELECT f.algorithm, f.value, m FROM FingerprintEntity f, ManagedFileEntity m
+            WHERE m.id = f.fileId AND %s AND EXISTS
+              (SELECT f2 FROM FingerprintEntity f2, ManagedFileEntity m2
+               WHERE m2.id = f2.fileId AND f2.value = f.value AND f2.algorithm = f.algorithm
+               AND f2.fileId <> f.fileId AND %s)
+            ORDER BY f.algorithm, f.value, m.path""";
+
     @Nonnull
     private final ManagedFileEntityJpaRepository managedFileRepo;
 
     @Nonnull
     private final BackupEntityJpaRepository backupRepo;
 
+    @Nonnull
+    private final FingerprintEntityJpaRepository fingerprintRepo;
+
     @Nonnull
     private final Fetcher fetcher;
 
+    @Nonnull
+    private final Streamer streamer;
+
+    @Nonnull
+    private final EntityManager em;
+
     /*******************************************************************************************************************
      * {@inheritDoc}
+     *
+     * When streamed, only the {@link #MANAGED_FILE_ATTRIBUTES} are read and no entity is instantiated.
      ******************************************************************************************************************/
     @Override @Nonnull
     public ManagedFileFinder findManagedFiles()
       {
-        return new JpaManagedFileFinder(managedFileRepo, this::managedFileEntityToModel);
+        final var projection = new Projection<>(MANAGED_FILE_ATTRIBUTES, this::managedFileRowsToModel);
+        return new JpaManagedFileFinder(managedFileRepo, streamer, this::managedFileEntitiesToModel,
+                                        Optional.of(projection));
       }
 
     /*******************************************************************************************************************
      * {@inheritDoc}
+     *
+     * When streamed, only the {@link #BACKUP_ATTRIBUTES} are read and no entity is instantiated.
      ******************************************************************************************************************/
     @Override @Nonnull
     public BackupFinder findBackups()
       {
-        return new JpaBackupFinder(backupRepo, this::backupEntityToModel);
+        // The same file is usually contained in many backups: share a single instance per query.
+        final var managedFiles = new IdentityMap<UUID, ManagedFile>(MANAGED_FILE_IDENTITY_MAP_CAPACITY);
+        final var projection = new Projection<>(BACKUP_ATTRIBUTES, rows -> backupRowsToModel(rows, managedFiles));
+        return new JpaBackupFinder(backupRepo, streamer, entities -> backupEntitiesToModel(entities, managedFiles),
+                                   Optional.of(projection));
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     *
+     * The groups are computed by the database in a single query, which is streamed: a fingerprint is selected if
+     * another file has the same value with the same algorithm, which is checked by a subquery on the fingerprint
+     * index, so only the rows of duplicates are retrieved; they are sorted by algorithm and fingerprint and adjacent
+     * rows are collected into a group. Equal values computed by different algorithms are not duplicates.
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    public Stream<DuplicateGroup> findDuplicates (@Nonnull final DuplicateCriteria criteria)
+      {
+        log.debug("findDuplicates({})", criteria);
+        final var parameters = new HashMap<String, Object>();
+        criteria.getMinSize().ifPresent(s -> parameters.put("minSize", s));
+        criteria.getMaxSize().ifPresent(s -> parameters.put("maxSize", s));
+        criteria.getPathPrefix().ifPresent(p ->
+          {
+            parameters.put("pathPrefix", p);
+            JpaManagedFileFinder.prefixUpperBound(p).ifPresent(b -> parameters.put("pathPrefixUpperBound", b));
+          });
+        final var jpql = DUPLICATES_QUERY.formatted(duplicateConditions(criteria, "f", "m"),
+                                                    duplicateConditions(criteria, "f2", "m2"));
+        return groupAdjacent(streamer.stream(Object[].class, jpql, parameters),
+                             row -> List.of(row[0], ByteBuffer.wrap((byte[])row[1])))
+                .map(this::duplicateRowsToModel);
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Transactional(readOnly = true) @Nonnull
+    public Map<Path, FileState> findFileStates (@Nonnull final Collection<Path> paths)
+      {
+        log.debug("findFileStates({} paths)", paths.size());
+        final var result = new HashMap<Path, FileState>();
+        chunks(paths.stream().map(Path::toString).toList())
+                .map(managedFileRepo::findByPathIn)
+                .flatMap(Collection::stream)
+                .forEach(e -> fileStateOf(e).ifPresent(s -> result.put(Path.of(e.getPath()), s)));
+        return result;
       }
 
     /*******************************************************************************************************************
      * {@inheritDoc}
      ******************************************************************************************************************/
+    @Override @Transactional
+    public int registerScannedFiles (@Nonnull final List<ScannedFile> scannedFiles)
+      {
+        log.debug("registerScannedFiles({} files)", scannedFiles.size());
+        final var paths = scannedFiles.stream().map(f -> f.getPath().toString()).distinct().toList();
+        final var managedFilesByPath = new HashMap<String, ManagedFileEntity>();
+        chunks(paths).map(managedFileRepo::findByPathIn)
+                     .flatMap(Collection::stream)
+                     .forEach(e -> managedFilesByPath.put(e.getPath(), e));
+        final var existingIds = managedFilesByPath.values().stream().map(ManagedFileEntity::getId).toList();
+        final var fingerprintsById = findFingerprints(existingIds);
+        var count = 0;
+
+        for (final var scannedFile : scannedFiles)
+          {
+            final var managedFile = managedFilesByPath.computeIfAbsent(scannedFile.getPath().toString(), path ->
+              {
+                final var entity = new ManagedFileEntity(UUID.randomUUID(), path, new ArrayList<>());
+                em.persist(entity);
+                return entity;
+              });
+            final var state = scannedFile.getState();
+            managedFile.setSize(state.getSize());
+            managedFile.setLastModified(state.getLastModified().toEpochMilli());
+            managedFile.setFileKey(state.getFileKey().orElse(null));
+            final var fingerprints = fingerprintsById.computeIfAbsent(managedFile.getId(), __ -> new ArrayList<>());
+            final var value = fingerprintFromString(scannedFile.getFingerprint());
+
+            if (!isLatestFingerprint(fingerprints, scannedFile.getAlgorithm(), value))
+              {
+                final var fingerprint = new FingerprintEntity(UUID.randomUUID(),
+                                                              scannedFile.getPath().getFileName().toString(),
+                                                              scannedFile.getAlgorithm(),
+                                                              value,
+                                                              scannedFile.getTimestamp(),
+                                                              managedFile.getId());
+                // Also keeps the cached collection consistent; since it's the inverse side, it is not loaded for this.
+                managedFile.getFingerprints().add(fingerprint);
+                em.persist(fingerprint);
+                fingerprints.add(fingerprint);
+                count++;
+              }
+          }
+
+        return count;
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     *
+     * Files are processed in chunks: the managed files of a chunk are retrieved with a single query, then all the new
+     * rows are flushed together, so JDBC batching can be used (see {@code hibernate.jdbc.batch_size}), and the
+     * persistence context is cleared, so it doesn't grow with the size of the backup. New entities are not put in the
+     * second-level cache, as they would evict more useful ones.
+     *
+     * Chunks are deliberately not committed one by one: the whole registration is a single transaction, so a failure
+     * leaves nothing behind. Otherwise a partially registered backup would remain, and since its label and volume id
+     * are taken, it could neither be registered again nor resumed without tracking which items were done. The price
+     * is that the database is locked for writing during the whole registration.
+     ******************************************************************************************************************/
+    @Override @Transactional @Nonnull
+    public Id registerBackup (@Nonnull final BackupRegistration registration)
+      {
+        log.debug("registerBackup({}, {} items)", registration, registration.getItems().size());
+        final var volumeId = registration.getVolumeId().stringValue();
+        final var existing = em.createQuery("SELECT COUNT(b) FROM BackupEntity b " +
+                                            "WHERE b.label = :label OR b.volumeId = :volumeId", Long.class)
+                               .setParameter("label", registration.getLabel())
+                               .setParameter("volumeId", volumeId)
+                               .getSingleResult();
+
+        if (existing > 0)
+          {
+            throw new IllegalArgumentException("A backup with the same label or volume id already exists: "
+                                               + registration.getLabel() + ", " + volumeId);
+          }
+
+        em.setProperty(HINT_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        final var backupId = UUID.randomUUID();
+        em.persist(new BackupEntity(backupId,
+                                    registration.getLabel(),
+                                    volumeId,
+                                    registration.isEncrypted(),
+                                    registration.getBasePath().toString(),
+                                    registration.getCreationDate(),
+                                    LocalDateTime.now(),
+                                    null,
+                                    new ArrayList<>()));
+        chunks(registration.getItems()).forEach(chunk ->
+          {
+            // After the persistence context has been cleared, a reference is enough and doesn't hit the database
+            final var backup = em.getReference(BackupEntity.class, backupId);
+            final var paths = chunk.stream().map(i -> i.getManagedFilePath().toString()).distinct().toList();
+            final var managedFilesByPath = new HashMap<String, ManagedFileEntity>();
+            managedFileRepo.findByPathIn(paths).forEach(e -> managedFilesByPath.put(e.getPath(), e));
+
+            for (final var item : chunk)
+              {
+                final var path = item.getManagedFilePath().toString();
+                var managedFile = managedFilesByPath.get(path);
+
+                if (managedFile == null)
+                  {
+                    managedFile = new ManagedFileEntity(UUID.randomUUID(), path, new ArrayList<>());
+                    em.persist(managedFile);
+                    managedFilesByPath.put(path, managedFile);
+                  }
+
+                em.persist(new BackupFileEntity(UUID.randomUUID(), backup, managedFile, item.getPath().toString()));
+              }
+
+            em.flush();
+            em.clear();
+          });
+
+        return toId(backupId);
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Transactional
+    public void updateLatestCheckDate (@Nonnull final Id backupId, @Nonnull final LocalDateTime checkDate)
+      {
+        log.debug("updateLatestCheckDate({}, {})", backupId, checkDate);
+        backupRepo.findById(toUuid(backupId))
+                  .orElseThrow(() -> new IllegalArgumentException("Unknown backup: " + backupId))
+                  .setLatestCheckDate(checkDate);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Transforms a single {@link ManagedFileEntity} into a {@link ManagedFile}.
+     *
+     ******************************************************************************************************************/
     @Nonnull
     public ManagedFile managedFileEntityToModel (@Nonnull final ManagedFileEntity entity)
       {
-        return new ManagedFile(Id.of(entity.getId()),
+        return managedFileEntitiesToModel(List.of(entity)).get(0);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Transforms a list of {@link ManagedFileEntity} into {@link ManagedFile}s. Fingerprints that haven't been loaded
+     * yet are retrieved, all together, the first time any of them is requested, rather than with a query per file.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public List<ManagedFile> managedFileEntitiesToModel (@Nonnull final List<? extends ManagedFileEntity> entities)
+      {
+        final var pendingIds = entities.stream().filter(e -> !e.isInitialized()).map(ManagedFileEntity::getId).toList();
+        final var fingerprintsById = LazySupplier.of(() -> findFingerprints(pendingIds));
+        return entities.stream().map(e -> managedFileEntityToModel(e, fingerprintsById)).toList();
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static ManagedFile managedFileEntityToModel (
+            @Nonnull final ManagedFileEntity entity,
+            @Nonnull final Supplier<Map<UUID, List<FingerprintEntity>>> fingerprintsById)
+      {
+        return new ManagedFile(toId(entity.getId()),
              Path.of(entity.getPath()),
              entity.isInitialized()
              ? () -> fingerprintEntitiesToModel(entity.getFingerprints())
-             : () -> fingerprintEntitiesToModel(fetcher.fetch(entity, ManagedFileEntity::getFingerprints)));
+             : () -> fingerprintEntitiesToModel(fingerprintsById.get().getOrDefault(entity.getId(), List.of())));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Transforms rows made of the {@link #MANAGED_FILE_ATTRIBUTES} into {@link ManagedFile}s. Fingerprints are
+     * retrieved, all together, the first time any of them is requested.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private List<ManagedFile> managedFileRowsToModel (@Nonnull final List<Object[]> rows)
+      {
+        final var ids = rows.stream().map(r -> (UUID)r[0]).toList();
+        final var fingerprintsById = LazySupplier.of(() -> findFingerprints(ids));
+        return rows.stream().map(r -> managedFileRowToModel(r, fingerprintsById)).toList();
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static ManagedFile managedFileRowToModel (
+            @Nonnull final Object[] row,
+            @Nonnull final Supplier<Map<UUID, List<FingerprintEntity>>> fingerprintsById)
+      {
+        final var id = (UUID)row[0];
+        return new ManagedFile(toId(id),
+                               Path.of((String)row[1]),
+                               () -> fingerprintEntitiesToModel(fingerprintsById.get().getOrDefault(id, List.of())));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Retrieves the fingerprints of the given files, splitting the ids so that queries don't get too large.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private Map<UUID, List<FingerprintEntity>> findFingerprints (@Nonnull final List<UUID> fileIds)
+      {
+        log.debug("findFingerprints({} ids)", fileIds.size());
+        final var result = new HashMap<UUID, List<FingerprintEntity>>();
+        chunks(fileIds).map(fingerprintRepo::findByFileIdInOrderByTimestampAsc)
+                       .flatMap(Collection::stream)
+                       .forEach(f -> result.computeIfAbsent(f.getFileId(), __ -> new ArrayList<>()).add(f));
+        return result;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Tells whether the given fingerprint is the same as the latest one with the same algorithm.
+     *
+     ******************************************************************************************************************/
+    private static boolean isLatestFingerprint (@Nonnull final List<? extends FingerprintEntity> fingerprints,
+                                                @Nonnull final String algorithm,
+                                                @Nonnull final byte[] value)
+      {
+        for (int i = fingerprints.size() - 1; i >= 0; i--)
+          {
+            final var fingerprint = fingerprints.get(i);
+
+            if (fingerprint.getAlgorithm().equals(algorithm))
+              {
+                return Arrays.equals(fingerprint.getValue(), value);
+              }
+          }
+
+        return false;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the state of a file recorded by the latest scan, if any.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static Optional<FileState> fileStateOf (@Nonnull final ManagedFileEntity entity)
+      {
+        return (entity.getSize() == null || entity.getLastModified() == null)
+               ? Optional.empty()
+               : Optional.of(FileState.builder()
+                                      .size(entity.getSize())
+                                      .lastModified(Instant.ofEpochMilli(entity.getLastModified()))
+                                      .fileKey(Optional.ofNullable(entity.getFileKey()))
+                                      .build());
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Splits a list of query parameters, so that queries don't get too large.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static <T> Stream<List<T>> chunks (@Nonnull final List<T> parameters)
+      {
+        return IntStream.iterate(0, i -> i < parameters.size(), i -> i + MAX_IDS_PER_QUERY)
+                        .mapToObj(i -> parameters.subList(i, Math.min(i + MAX_IDS_PER_QUERY, parameters.size())));
       }
 
     /*******************************************************************************************************************
@@ -111,58 +487,288 @@ public class JpaDataManagerDao implements DataManagerDao
     private static Fingerprint fingerprintEntityToModel (@Nonnull final FingerprintEntity entity)
       {
         return Fingerprint.builder()
-                          .id(Id.of(entity.getId()))
+                          .id(toId(entity.getId()))
                           .name(entity.getName())
                           .algorithm(entity.getAlgorithm())
-                          .fingerprint(entity.getValue())
+                          .fingerprint(fingerprintToString(entity.getValue()))
                           .timestamp(entity.getTimestamp())
                           .build();
       }
 
     /*******************************************************************************************************************
-     * {@inheritDoc}
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private List<Backup> backupEntitiesToModel (@Nonnull final List<? extends BackupEntity> entities,
+                                                @Nonnull final IdentityMap<UUID, ManagedFile> managedFiles)
+      {
+        return entities.stream().map(e -> backupEntityToModel(e, managedFiles)).toList();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Transforms a {@link BackupEntity} into a {@link Backup}.
+     *
      ******************************************************************************************************************/
     @Nonnull
     public Backup backupEntityToModel (@Nonnull final BackupEntity entity)
+      {
+        return backupEntityToModel(entity, new IdentityMap<>(MANAGED_FILE_IDENTITY_MAP_CAPACITY));
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private Backup backupEntityToModel (@Nonnull final BackupEntity entity,
+                                        @Nonnull final IdentityMap<UUID, ManagedFile> managedFiles)
+      {
+        final var row = new Object[] { entity.getId(), entity.getLabel(), entity.getVolumeId(), entity.isEncrypted(),
+                                       entity.getBasePath(), entity.getCreationDate(), entity.getRegistrationDate(),
+                                       entity.getLatestCheckDate() };
+        return backupRowToModel(row,
+                                entity.isInitialized()
+                                ? entity::getBackupFiles
+                                : () -> fetcher.fetch(entity, BackupEntity::getBackupFiles),
+                                managedFiles);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Transforms rows made of the {@link #BACKUP_ATTRIBUTES} into {@link Backup}s. Their files are retrieved by id the
+     * first time they are requested.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private List<Backup> backupRowsToModel (@Nonnull final List<Object[]> rows,
+                                            @Nonnull final IdentityMap<UUID, ManagedFile> managedFiles)
+      {
+        return rows.stream()
+                   .map(r -> backupRowToModel(r, () -> fetcher.fetch(BackupEntity.class,
+                                                                     r[0],
+                                                                     BackupEntity::getBackupFiles), managedFiles))
+                   .toList();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Transforms a row made of the {@link #BACKUP_ATTRIBUTES} into a {@link Backup}, whose files are retrieved by the
+     * given supplier.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private Backup backupRowToModel (@Nonnull final Object[] row,
+                                     @Nonnull final Supplier<List<BackupFileEntity>> backupFileEntities,
+                                     @Nonnull final IdentityMap<UUID, ManagedFile> managedFiles)
       {
         final var ref = new AtomicReference<Backup>();
         final var backup = Backup.builder()
-                     .id(Id.of(entity.getId()))
-                     .label(entity.getLabel())
-                     .volumeId(Id.of(entity.getVolumeId()))
-                     .encrypted(entity.isEncrypted())
-                     .basePath(Path.of(entity.getBasePath()))
-                     .creationDate(entity.getCreationDate())
-                     .registrationDate(entity.getRegistrationDate())
-                     .latestCheckDate(Optional.ofNullable(entity.getLatestCheckDate()))
-                     .backupFiles(entity.isInitialized()
-                          ? () -> backupFileEntitiesToModel(ref.get(), entity.getBackupFiles())
-                          : () -> backupFileEntitiesToModel(ref.get(), fetcher.fetch(entity, BackupEntity::getBackupFiles)))
+                     .id(toId((UUID)row[0]))
+                     .label((String)row[1])
+                     .volumeId(Id.of((String)row[2]))
+                     .encrypted((Boolean)row[3])
+                     .basePath(Path.of((String)row[4]))
+                     .creationDate((LocalDateTime)row[5])
+                     .registrationDate((LocalDateTime)row[6])
+                     .latestCheckDate(Optional.ofNullable((LocalDateTime)row[7]))
+                     .backupFiles(() -> backupFileEntitiesToModel(ref.get(), backupFileEntities.get(), managedFiles))
                      .build();
         ref.set(backup);
         return backup;
       }
 
     /*******************************************************************************************************************
+     *
+     * Transforms a list of {@link BackupFileEntity} into {@link BackupFile}s. The related {@link ManagedFile}s are
+     * taken from the identity map, if present; the missing ones are transformed together, so their fingerprints are
+     * retrieved in batch.
      *
      ******************************************************************************************************************/
     @Nonnull
     private List<BackupFile> backupFileEntitiesToModel (@Nonnull final Backup backup,
-                                                        @Nonnull final List<? extends BackupFileEntity> entities)
+                                                        @Nonnull final List<? extends BackupFileEntity> entities,
+                                                        @Nonnull final IdentityMap<UUID, ManagedFile> managedFiles)
       {
-        return entities.stream().map(e -> backupFileEntityToModel(e, backup)).toList();
+        final var missing = entities.stream()
+                                    .map(BackupFileEntity::getManagedFile)
+                                    .filter(mfe -> !managedFiles.contains(mfe.getId()))
+                                    .collect(toMap(ManagedFileEntity::getId, Function.identity(), (a, b) -> a,
+                                                   LinkedHashMap::new));
+        managedFileEntitiesToModel(List.copyOf(missing.values()))
+                .forEach(mf -> managedFiles.putIfAbsent(toUuid(mf.getId()), mf));
+        // computeIfAbsent() covers the case in which an instance has been evicted in the meantime
+        return entities.stream()
+                       .map(e -> backupFileEntityToModel(e, managedFiles.computeIfAbsent(
+                               e.getManagedFile().getId(), __ -> managedFileEntityToModel(e.getManagedFile())), backup))
+                       .toList();
       }
 
     /*******************************************************************************************************************
      *
      ******************************************************************************************************************/
     @Nonnull
-    private BackupFile backupFileEntityToModel (@Nonnull final BackupFileEntity entity,
-                                                @Nonnull final Backup backup)
+    private static BackupFile backupFileEntityToModel (@Nonnull final BackupFileEntity entity,
+                                                       @Nonnull final ManagedFile managedFile,
+                                                       @Nonnull final Backup backup)
       {
-        return new BackupFile(Id.of(entity.getId()),
+        return new BackupFile(toId(entity.getId()),
                               Path.of(entity.getPath()),
-                              managedFileEntityToModel(entity.getManagedFile()), // TODO: use flyweight? Needed?
+                              managedFile,
                               backup); // TODO: use flyweight? Needed?
       }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the JPQL conditions on a fingerprint and its file for {@link #DUPLICATES_QUERY}: the fingerprint must be
+     * the latest one of the file with that algorithm, and the file must satisfy the criteria.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static String duplicateConditions (@Nonnull final DuplicateCriteria criteria,
+                                               @Nonnull final String f,
+                                               @Nonnull final String m)
+      {
+        final var conditions = new ArrayList<String>();
+        conditions.add(("NOT EXISTS (SELECT %1$sl FROM FingerprintEntity %1$sl WHERE %1$sl.fileId = %1$s.fileId " +
+                        "AND %1$sl.algorithm = %1$s.algorithm AND %1$sl.timestamp > %1$s.timestamp)").formatted(f));
+        criteria.getMinSize().ifPresent(__ -> conditions.add(m + ".size >= :minSize"));
+        criteria.getMaxSize().ifPresent(__ -> conditions.add(m + ".size <= :maxSize"));
+        // A range predicate, like the one for the literal prefix of --regex, so the index on the path can be used
+        criteria.getPathPrefix().ifPresent(p ->
+          {
+            conditions.add(m + ".path >= :pathPrefix");
+            JpaManagedFileFinder.prefixUpperBound(p)
+                                .ifPresent(__ -> conditions.add(m + ".path < :pathPrefixUpperBound"));
+          });
+        return String.join(" AND ", conditions);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Transforms the rows of a group of duplicates, made of algorithm, fingerprint and {@link ManagedFileEntity}, into
+     * a {@link DuplicateGroup}.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private DuplicateGroup duplicateRowsToModel (@Nonnull final List<Object[]> rows)
+      {
+        final var entities = rows.stream().map(r -> (ManagedFileEntity)r[2]).toList();
+        final var size = entities.stream().map(ManagedFileEntity::getSize).filter(Objects::nonNull).findFirst();
+        return DuplicateGroup.builder()
+                             .algorithm((String)rows.get(0)[0])
+                             .fingerprint(fingerprintToString((byte[])rows.get(0)[1]))
+                             .size(size)
+                             .managedFiles(managedFileEntitiesToModel(entities))
+                             .build();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Collects adjacent items with the same key into lists. Items are consumed lazily, so the source is read only once
+     * and never held in memory as a whole. Closing the returned {@link Stream} closes the source.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static <T> Stream<List<T>> groupAdjacent (@Nonnull final Stream<T> stream,
+                                                      @Nonnull final Function<? super T, ?> key)
+      {
+        final var iterator = stream.iterator();
+        final var characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+        final var spliterator = new Spliterators.AbstractSpliterator<List<T>>(Long.MAX_VALUE, characteristics)
+          {
+            // The first item of the next group, already taken from the iterator
+            private T pending;
+
+            @Override
+            public boolean tryAdvance (@Nonnull final Consumer<? super List<T>> action)
+              {
+                if ((pending == null) && !iterator.hasNext())
+                  {
+                    return false;
+                  }
+
+                final var group = new ArrayList<T>();
+                group.add((pending != null) ? pending : iterator.next());
+                pending = null;
+                final var groupKey = key.apply(group.get(0));
+
+                while (iterator.hasNext())
+                  {
+                    final var item = iterator.next();
+
+                    if (!key.apply(item).equals(groupKey))
+                      {
+                        pending = item;
+                        break;
+                      }
+
+                    group.add(item);
+                  }
+
+                action.accept(group);
+                return true;
+              }
+          };
+
+        return StreamSupport.stream(spliterator, false).onClose(stream::close);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Converts the binary form of an id, as it is stored in the database, to an {@link Id}.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    static Id toId (@Nonnull final UUID uuid)
+      {
+        return Id.of(uuid.toString());
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Converts an {@link Id} to the binary form stored in the database.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    static UUID toUuid (@Nonnull final Id id)
+      {
+        return UUID.fromString(id.stringValue());
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Parses an id used as a query parameter. An invalid id is not an error, since it just can't match anything.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    static Optional<UUID> parseId (@Nonnull final String string)
+      {
+        try
+          {
+            return Optional.of(UUID.fromString(string));
+          }
+        catch (IllegalArgumentException e)
+          {
+            return Optional.empty();
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Parses a fingerprint used as a query parameter. An invalid fingerprint is not an error, since it just can't match
+     * anything.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    static Optional<byte[]> parseFingerprint (@Nonnull final String string)
+      {
+        try
+          {
+            return Optional.of(fingerprintFromString(string));
+          }
+        catch (IllegalArgumentException e)
+          {
+            return Optional.empty();
+          }
+      }
   }
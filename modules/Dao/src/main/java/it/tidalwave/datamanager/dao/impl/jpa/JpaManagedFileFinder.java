@@ -30,12 +30,16 @@ import jakarta.annotation.Nonnull;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.io.Serial;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import it.tidalwave.util.spring.jpa.JpaSpecificationFinder;
+import it.tidalwave.util.spring.jpa.impl.Streamer;
 import it.tidalwave.datamanager.model.DataManager.ManagedFileFinder;
 import it.tidalwave.datamanager.model.ManagedFile;
 
@@ -54,26 +58,44 @@ public class JpaManagedFileFinder
   {
     @Serial private static final long serialVersionUID = 0L;
 
+    private static final String KEYSET_ATTRIBUTE = "path";
+
+    private static final String METACHARACTERS = "\\.[]{}()<>*+-=!?^$|";
+
+    private static final String QUANTIFIERS = "*+?{";
+
     private final Optional<String> fingerprint;
 
+    private final Optional<String> pathRegex;
+
+    private final Optional<ManagedFile> lastSeen;
+
     /*******************************************************************************************************************
      *
      ******************************************************************************************************************/
     public JpaManagedFileFinder (@Nonnull final ManagedFileEntityJpaRepository repository,
-                                 @Nonnull final Function<ManagedFileEntity, ManagedFile> transformer)
+                                 @Nonnull final Streamer streamer,
+                                 @Nonnull final Function<List<ManagedFileEntity>, List<ManagedFile>> transformer,
+                                 @Nonnull final Optional<Projection<ManagedFile>> projection)
       {
-        this(repository, transformer, Optional.empty());
+        this(repository, streamer, transformer, projection, Optional.empty(), Optional.empty(), Optional.empty());
       }
 
     /*******************************************************************************************************************
      *
      ******************************************************************************************************************/
     private JpaManagedFileFinder (@Nonnull final ManagedFileEntityJpaRepository repository,
-                                  @Nonnull final Function<ManagedFileEntity, ManagedFile> transformer,
-                                  @Nonnull final Optional<String> fingerprint)
+                                  @Nonnull final Streamer streamer,
+                                  @Nonnull final Function<List<ManagedFileEntity>, List<ManagedFile>> transformer,
+                                  @Nonnull final Optional<Projection<ManagedFile>> projection,
+                                  @Nonnull final Optional<String> fingerprint,
+                                  @Nonnull final Optional<String> pathRegex,
+                                  @Nonnull final Optional<ManagedFile> lastSeen)
       {
-        super(repository, transformer);
+        super(repository, ManagedFileEntity.class, streamer, transformer, projection);
         this.fingerprint = fingerprint;
+        this.pathRegex = pathRegex;
+        this.lastSeen = lastSeen;
       }
 
     /*******************************************************************************************************************
@@ -84,6 +106,8 @@ public class JpaManagedFileFinder
         super(other, override);
         final var source = getSource(JpaManagedFileFinder.class, other, override);
         this.fingerprint = source.fingerprint;
+        this.pathRegex = source.pathRegex;
+        this.lastSeen = source.lastSeen;
       }
 
     /*******************************************************************************************************************
@@ -92,7 +116,52 @@ public class JpaManagedFileFinder
     @Override @Nonnull
     public ManagedFileFinder withFingerprint (@Nonnull final Optional<String> fingerprint)
       {
-        return clonedWith(new JpaManagedFileFinder(repository, entityToModel, fingerprint));
+        return clonedWith(new JpaManagedFileFinder(repository, streamer, entitiesToModel, projection,
+                                                   fingerprint, pathRegex, lastSeen));
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     *
+     * The regular expression is validated here, since errors in the database would be reported as opaque SQL errors.
+     *
+     * @throws  PatternSyntaxException  if the regular expression is not valid
+     *
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    public ManagedFileFinder withPathMatching (@Nonnull final Optional<String> pathRegex)
+      {
+        pathRegex.ifPresent(Pattern::compile);
+        return clonedWith(new JpaManagedFileFinder(repository, streamer, entitiesToModel, projection,
+                                                   fingerprint, pathRegex, lastSeen));
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    public ManagedFileFinder startingAfter (@Nonnull final Optional<ManagedFile> lastSeen)
+      {
+        return clonedWith(new JpaManagedFileFinder(repository, streamer, entitiesToModel, projection,
+                                                   fingerprint, pathRegex, lastSeen));
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    protected Optional<String> getKeysetAttribute()
+      {
+        return Optional.of(KEYSET_ATTRIBUTE);
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    protected boolean isKeysetPaginated()
+      {
+        return lastSeen.isPresent();
       }
 
     /*******************************************************************************************************************
@@ -102,7 +171,96 @@ public class JpaManagedFileFinder
                                          @Nonnull final CriteriaBuilder criteriaBuilder,
                                          @Nonnull final List<? super Predicate> predicates)
       {
-        fingerprint.ifPresent(f -> predicates.add(criteriaBuilder.equal(root.join("fingerprints").get("value"), f)));
+        fingerprint.ifPresent(f -> predicates.add(
+                JpaDataManagerDao.parseFingerprint(f)
+                                 .map(v -> criteriaBuilder.equal(root.join("fingerprints").get("value"), v))
+                                 .orElseGet(criteriaBuilder::disjunction)));
+        pathRegex.ifPresent(r -> addPathMatchingPredicates(root, criteriaBuilder, predicates, r));
+        lastSeen.ifPresent(m -> predicates.add(createKeysetPredicate(root, criteriaBuilder, KEYSET_ATTRIBUTE,
+                                                                     m.getPath().toString(),
+                                                                     JpaDataManagerDao.toUuid(m.getId()))));
       }
-  }
 
+    /*******************************************************************************************************************
+     *
+     * Adds the predicates for matching the path with a regular expression, which is evaluated in the database by the
+     * {@code regexp()} function (see {@link RegexpFunction}). If the regular expression starts with a literal prefix,
+     * a range predicate on the path is also added, so the index can be used to narrow the scan.
+     *
+     ******************************************************************************************************************/
+    private static void addPathMatchingPredicates (@Nonnull final Root<ManagedFileEntity> root,
+                                                   @Nonnull final CriteriaBuilder criteriaBuilder,
+                                                   @Nonnull final List<? super Predicate> predicates,
+                                                   @Nonnull final String regex)
+      {
+        final Path<String> path = root.get("path");
+        final var prefix = literalPrefix(regex);
+
+        if (!prefix.isEmpty())
+          {
+            predicates.add(criteriaBuilder.greaterThanOrEqualTo(path, prefix));
+            prefixUpperBound(prefix).ifPresent(b -> predicates.add(criteriaBuilder.lessThan(path, b)));
+          }
+
+        final var matches = criteriaBuilder.function(RegexpFunction.NAME, Integer.class,
+                                                     criteriaBuilder.literal(regex), path);
+        predicates.add(criteriaBuilder.equal(matches, 1));
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the lowest string greater than all the strings starting with the given prefix, so that they can be
+     * selected by a range predicate, which can use an index. There's no such bound if the last character of the prefix
+     * can't be incremented without changing its encoding length, in which case only the lower bound can be used.
+     *
+     * @param   prefix    the prefix
+     * @return            the upper bound
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    static Optional<String> prefixUpperBound (@Nonnull final String prefix)
+      {
+        if (prefix.isEmpty())
+          {
+            return Optional.empty();
+          }
+
+        final var last = prefix.charAt(prefix.length() - 1);
+        final var next = (char)(last + 1);
+        return ((last < Character.MAX_VALUE) && !Character.isSurrogate(last) && !Character.isSurrogate(next))
+               ? Optional.of(prefix.substring(0, prefix.length() - 1) + next)
+               : Optional.empty();
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns the literal prefix of a regular expression, that is the initial part that can only match itself. It's
+     * conservative: any construct that is not plainly literal ends the prefix, and regular expressions with
+     * alternatives have no prefix.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    static String literalPrefix (@Nonnull final String regex)
+      {
+        if (regex.contains("|"))
+          {
+            return "";
+          }
+
+        final var start = regex.startsWith("^") ? 1 : 0;
+        var end = start;
+
+        while ((end < regex.length()) && (METACHARACTERS.indexOf(regex.charAt(end)) < 0))
+          {
+            end++;
+          }
+
+        // A quantifier applies to the previous character, which is not part of the prefix
+        if ((end < regex.length()) && (QUANTIFIERS.indexOf(regex.charAt(end)) >= 0) && (end > start))
+          {
+            end--;
+          }
+
+        return regex.substring(start, end);
+      }
+  }
@@ -27,9 +27,12 @@
 package it.tidalwave.datamanager.dao.impl.jpa;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -40,11 +43,16 @@ import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.hibernate.Hibernate;
-import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import static jakarta.persistence.CascadeType.PERSIST;
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
+import static it.tidalwave.datamanager.dao.impl.jpa.SecondLevelCacheConfiguration.FINGERPRINT_REGION;
+import static it.tidalwave.datamanager.dao.impl.jpa.SecondLevelCacheConfiguration.MANAGED_FILE_REGION;
 
 /***********************************************************************************************************************
  *
@@ -54,26 +62,47 @@ import static jakarta.persistence.CascadeType.PERSIST;
  * @author      Fabrizio Giudici
  *
  **********************************************************************************************************************/
-@Entity
+@Entity @Cacheable @Cache(usage = READ_WRITE, region = MANAGED_FILE_REGION)
 @Table(name="files", indexes = { @Index(name = "files__id", columnList = "id"),
                                  @Index(name = "files__path", columnList = "path")})
-@NoArgsConstructor @AllArgsConstructor @Getter
+@NoArgsConstructor @Getter
 @SuppressFBWarnings({"EI_EXPOSE_REP", "EI_EXPOSE_REP2"})
 public class ManagedFileEntity
   {
     @Id
-    @Column(length = 36)
-
-    private String id;
+    @JdbcTypeCode(SqlTypes.BINARY) @Column(columnDefinition = "blob")
+    private UUID id;
 
     @Column(nullable = false, columnDefinition = "text")
     private String path;
 
+    /** The size in bytes recorded by the latest scan. */
+    @Setter @Nullable
+    private Long size;
+
+    /** The last modification time, in milliseconds since the epoch, recorded by the latest scan. */
+    @Setter @Nullable
+    private Long lastModified;
+
+    /** The file key (e.g. device and inode) recorded by the latest scan. */
+    @Setter @Nullable @Column(columnDefinition = "text")
+    private String fileKey;
+
     @Setter
+    @Cache(usage = READ_WRITE, region = FINGERPRINT_REGION)
     @OneToMany(mappedBy = "fileId", fetch = FetchType.LAZY, cascade = PERSIST)
     @OrderBy("timestamp asc")
     private List<FingerprintEntity> fingerprints = new ArrayList<>();
 
+    public ManagedFileEntity (@Nonnull final UUID id,
+                              @Nonnull final String path,
+                              @Nonnull final List<FingerprintEntity> fingerprints)
+      {
+        this.id = id;
+        this.path = path;
+        this.fingerprints = fingerprints;
+      }
+
     public boolean isInitialized()
       {
         return Hibernate.isInitialized(fingerprints);
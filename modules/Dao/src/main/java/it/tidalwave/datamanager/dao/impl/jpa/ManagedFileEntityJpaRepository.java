@@ -26,9 +26,20 @@
  */
 package it.tidalwave.datamanager.dao.impl.jpa;
 
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
 
 /***********************************************************************************************************************
  *
@@ -40,6 +51,33 @@ import org.springframework.stereotype.Repository;
  **********************************************************************************************************************/
 @Repository
 public interface ManagedFileEntityJpaRepository
-        extends JpaRepository<ManagedFileEntity, String>, JpaSpecificationExecutor<ManagedFileEntity>
+        extends JpaRepository<ManagedFileEntity, UUID>, JpaSpecificationExecutor<ManagedFileEntity>
   {
+    /*******************************************************************************************************************
+     *
+     * Redeclared to put the results in the query cache.
+     *
+     ******************************************************************************************************************/
+    @Override @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true")) @Nonnull
+    public Page<ManagedFileEntity> findAll (@Nullable Specification<ManagedFileEntity> specification,
+                                            @Nonnull Pageable pageable);
+
+    /*******************************************************************************************************************
+     *
+     * Redeclared to put the results in the query cache.
+     *
+     ******************************************************************************************************************/
+    @Override @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    public long count (@Nullable Specification<ManagedFileEntity> specification);
+
+    /*******************************************************************************************************************
+     *
+     * Finds many files by path in a single query.
+     *
+     * @param   paths     the paths
+     * @return            the files
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public List<ManagedFileEntity> findByPathIn (@Nonnull Collection<String> paths);
   }
@@ -30,30 +30,45 @@ import jakarta.annotation.Nonnull;
 import java.io.IOException;
 import java.nio.file.Files;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import javax.sql.DataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.sqlite.SQLiteOpenMode;
 import it.tidalwave.util.PreferencesHandler;
+import it.tidalwave.util.spring.jpa.impl.ReadOnlyRoutingDataSource;
 
 /***********************************************************************************************************************
  *
- * Instantiates a production {@code DataSource} with the proper path for the database.
+ * Instantiates a production {@code DataSource} with the proper path for the database. It's made of two pools: one for
+ * read-write transactions and one, whose connections are opened in read-only mode, for read-only transactions (see
+ * {@link ReadOnlyRoutingDataSource}). Since the database is in WAL mode, readers run in parallel with the writer.
  *
  * @author Fabrizio Giudici
  *
  **********************************************************************************************************************/
-@Configuration @Profile("production")
+@Configuration @Profile("production") @EnableConfigurationProperties(SQLiteProperties.class)
 public class ProductionDataSourceFactory
   {
     @Bean
     public DataSource getDataSource (@Nonnull final DataSourceProperties properties,
-                                     @Nonnull final PreferencesHandler preferencesHandler)
+                                     @Nonnull final PreferencesHandler preferencesHandler,
+                                     @Nonnull final SQLiteProperties sqliteProperties)
             throws IOException
       {
         final var dbPath = preferencesHandler.getAppFolder().resolve("db/fingerprints.db");
         Files.createDirectories(dbPath.getParent());
         properties.setUrl("jdbc:p6spy:sqlite:" + dbPath.toAbsolutePath());
-        return properties.initializeDataSourceBuilder().build();
+        final var readWrite = properties.initializeDataSourceBuilder().build();
+        // The pool is started lazily, so the database has been already created by the read-write pool
+        final var readOnly = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        readOnly.setPoolName("SQLiteReaders");
+        readOnly.setMaximumPoolSize(sqliteProperties.getReaderPoolSize());
+        readOnly.setReadOnly(true);
+        readOnly.addDataSourceProperty("open_mode", Integer.toString(SQLiteOpenMode.READONLY.flag));
+        readOnly.setConnectionInitSql("PRAGMA query_only = true");
+        return new ReadOnlyRoutingDataSource(readWrite, readOnly);
       }
   }
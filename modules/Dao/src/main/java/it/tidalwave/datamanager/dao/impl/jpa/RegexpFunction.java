@@ -0,0 +1,92 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.dao.impl.jpa;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.sql.SQLException;
+import org.sqlite.Function;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/***********************************************************************************************************************
+ *
+ * The implementation of the SQLite {@code regexp(pattern, text)} function, which returns {@code 1} if the text matches
+ * the whole pattern, according to the semantics of {@link java.util.regex.Matcher#matches()}. It also backs the
+ * {@code text REGEXP pattern} operator. Compiled patterns are cached, since the same pattern is evaluated for many rows;
+ * the least recently used ones are evicted. Callers should validate patterns in advance, since a syntax error can only
+ * be reported as a {@link SQLException}.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class RegexpFunction extends Function
+  {
+    /** The name of the function. */
+    public static final String NAME = "regexp";
+
+    private static final int PATTERN_CACHE_CAPACITY = 100;
+
+    private static final Cache<String, Pattern> PATTERN_CACHE =
+            Caffeine.newBuilder().maximumSize(PATTERN_CACHE_CAPACITY).build();
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    protected void xFunc()
+            throws SQLException
+      {
+        if (args() != 2)
+          {
+            throw new SQLException("%s() requires 2 arguments, got %d".formatted(NAME, args()));
+          }
+
+        final var regex = value_text(0);
+        final var text = value_text(1);
+
+        if ((regex == null) || (text == null))
+          {
+            result();
+          }
+        else
+          {
+            final Pattern pattern;
+
+            try
+              {
+                pattern = PATTERN_CACHE.get(regex, Pattern::compile);
+              }
+            catch (PatternSyntaxException e)
+              {
+                throw new SQLException("Invalid regular expression: %s".formatted(e.getMessage()), e);
+              }
+
+            result(pattern.matcher(text).matches() ? 1 : 0);
+          }
+      }
+  }
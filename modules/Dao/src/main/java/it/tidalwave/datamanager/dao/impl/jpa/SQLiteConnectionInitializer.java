@@ -0,0 +1,222 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.dao.impl.jpa;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.AbstractDriverBasedDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+import com.zaxxer.hikari.HikariDataSource;
+import org.sqlite.Function;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+/***********************************************************************************************************************
+ *
+ * Decorates the {@link DataSource} so that each SQLite connection, the first time it's handed out, is initialised
+ * with the user functions needed by queries (see {@link RegexpFunction}) and tuned with the pragmas configured by
+ * {@link SQLiteProperties}. Only {@code DataSource}s whose JDBC URL refers to SQLite are decorated; connections to
+ * other databases are left untouched.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Component @Slf4j
+public class SQLiteConnectionInitializer implements BeanPostProcessor, EnvironmentAware
+  {
+    // Bound here rather than injected, since a BeanPostProcessor is instantiated before properties beans
+    private Map<String, String> pragmas = Map.of();
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override
+    public void setEnvironment (@Nonnull final Environment environment)
+      {
+        final var properties = Binder.get(environment)
+                                     .bind(SQLiteProperties.PREFIX, SQLiteProperties.class)
+                                     .orElseGet(SQLiteProperties::new);
+        log.info("SQLite tuning: {}", properties);
+        pragmas = properties.getPragmas();
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    public Object postProcessAfterInitialization (@Nonnull final Object bean, @Nonnull final String beanName)
+      {
+        if ((bean instanceof final DataSource dataSource) && !(bean instanceof InitializingDataSource))
+          {
+            if (isSQLite(dataSource))
+              {
+                log.info("Decorating DataSource {} for SQLite connections", beanName);
+                return new InitializingDataSource(dataSource, pragmas);
+              }
+
+            log.info("Not decorating DataSource {}, since it's not for SQLite", beanName);
+          }
+
+        return bean;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns whether a {@link DataSource} is for SQLite, according to its JDBC URL. A routing {@code DataSource} is
+     * for SQLite if all its targets are.
+     *
+     ******************************************************************************************************************/
+    static boolean isSQLite (@Nonnull final DataSource dataSource)
+      {
+        if (dataSource instanceof SQLiteDataSource)
+          {
+            return true;
+          }
+
+        if (dataSource instanceof final HikariDataSource hikariDataSource)
+          {
+            return isSQLiteUrl(hikariDataSource.getJdbcUrl());
+          }
+
+        if (dataSource instanceof final AbstractDriverBasedDataSource driverBasedDataSource)
+          {
+            return isSQLiteUrl(driverBasedDataSource.getUrl());
+          }
+
+        if (dataSource instanceof final AbstractRoutingDataSource routingDataSource)
+          {
+            final var targets = routingDataSource.getResolvedDataSources().values();
+            return !targets.isEmpty() && targets.stream().allMatch(SQLiteConnectionInitializer::isSQLite);
+          }
+
+        return false;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Returns whether a JDBC URL refers to SQLite, possibly through a proxy driver such as P6Spy.
+     *
+     ******************************************************************************************************************/
+    private static boolean isSQLiteUrl (@Nullable final String url)
+      {
+        return (url != null) && url.startsWith("jdbc:") && url.contains(":sqlite:");
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Initialises a connection, unless it has been already done.
+     *
+     ******************************************************************************************************************/
+    private static void initialize (@Nonnull final SQLiteConnection connection,
+                                    @Nonnull final Map<String, String> pragmas)
+            throws SQLException
+      {
+        log.debug("Initialising {} with {}", connection, pragmas);
+        Function.create(connection, RegexpFunction.NAME, new RegexpFunction());
+
+        try (final var statement = connection.createStatement())
+          {
+            for (final var pragma : pragmas.entrySet())
+              {
+                // The journal mode is persistent and can't be changed by a read-only connection
+                if (connection.isReadOnly() && pragma.getKey().equals("journal_mode"))
+                  {
+                    continue;
+                  }
+
+                // Pragmas can't be bound as parameters, so they are checked before being embedded in the statement
+                SQLiteProperties.checkPragma(pragma.getKey(), pragma.getValue());
+                // Not executeUpdate(), since some pragmas, such as journal_mode, return a result
+                statement.execute("PRAGMA %s = %s".formatted(pragma.getKey(), pragma.getValue()));
+              }
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    static class InitializingDataSource extends DelegatingDataSource
+      {
+        // Pooled connections are handed out many times, but they must be initialised only once
+        private final Set<SQLiteConnection> initialized = Collections.synchronizedSet(
+                Collections.newSetFromMap(new WeakHashMap<>()));
+
+        @Nonnull
+        private final Map<String, String> pragmas;
+
+        public InitializingDataSource (@Nonnull final DataSource delegate, @Nonnull final Map<String, String> pragmas)
+          {
+            super(delegate);
+            this.pragmas = pragmas;
+          }
+
+        @Override @Nonnull
+        public Connection getConnection()
+                throws SQLException
+          {
+            return initializeIfNeeded(super.getConnection());
+          }
+
+        @Override @Nonnull
+        public Connection getConnection (@Nonnull final String username, @Nonnull final String password)
+                throws SQLException
+          {
+            return initializeIfNeeded(super.getConnection(username, password));
+          }
+
+        @Nonnull
+        private Connection initializeIfNeeded (@Nonnull final Connection connection)
+                throws SQLException
+          {
+            if (connection.isWrapperFor(SQLiteConnection.class))
+              {
+                final var sqliteConnection = connection.unwrap(SQLiteConnection.class);
+
+                if (initialized.add(sqliteConnection))
+                  {
+                    initialize(sqliteConnection, pragmas);
+                  }
+              }
+
+            return connection;
+          }
+      }
+  }
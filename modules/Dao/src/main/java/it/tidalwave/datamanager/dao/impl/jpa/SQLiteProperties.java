@@ -0,0 +1,226 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.dao.impl.jpa;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import javax.annotation.Nonnegative;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/***********************************************************************************************************************
+ *
+ * The tuning of SQLite connections, bound to the {@code solidblue3.sqlite} properties. A preset provides the values of
+ * all the pragmas, each of which can be individually overridden. Since pragmas can't be passed as statement parameters,
+ * only known pragmas with values in the expected format are accepted.
+ *
+ * @see     <a href="https://www.sqlite.org/pragma.html">SQLite pragmas</a>
+ * @author  Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@ConfigurationProperties(prefix = SQLiteProperties.PREFIX)
+@Getter @Setter @ToString
+public class SQLiteProperties
+  {
+    public static final String PREFIX = "solidblue3.sqlite";
+
+    /*******************************************************************************************************************
+     * The presets.
+     ******************************************************************************************************************/
+    public enum Preset
+      {
+        /** For interactive queries: a large memory map, so most reads don't need a system call. */
+        READ_HEAVY("wal", "normal", DataSize.ofMegabytes(64), DataSize.ofGigabytes(1), "memory", Duration.ofSeconds(5),
+                   null, null),
+
+        /** For scans: a large page cache and WAL checkpoints ten times less frequent, so pages being updated stay in
+         *  memory and aren't written back many times; after a checkpoint the WAL is truncated to a bounded size. */
+        BULK_INGEST("wal", "normal", DataSize.ofMegabytes(256), DataSize.ofBytes(0), "memory", Duration.ofSeconds(30),
+                    10_000, DataSize.ofMegabytes(64)),
+
+        /** No pragma is applied, so the defaults of the driver are used. */
+        DRIVER_DEFAULTS(null, null, null, null, null, null, null, null);
+
+        private final Map<String, String> pragmas;
+
+        Preset (@Nullable final String journalMode,
+                @Nullable final String synchronous,
+                @Nullable final DataSize cacheSize,
+                @Nullable final DataSize mmapSize,
+                @Nullable final String tempStore,
+                @Nullable final Duration busyTimeout,
+                @Nullable final Integer walAutocheckpoint,
+                @Nullable final DataSize journalSizeLimit)
+          {
+            pragmas = toPragmas(journalMode, synchronous, cacheSize, mmapSize, tempStore, busyTimeout,
+                                walAutocheckpoint, journalSizeLimit);
+          }
+      }
+
+    // The accepted format of the value of each pragma
+    private static final Map<String, Pattern> PRAGMA_FORMATS = Map.of(
+            "journal_mode",       Pattern.compile("(?i)delete|truncate|persist|memory|wal|off"),
+            "synchronous",        Pattern.compile("(?i)off|normal|full|extra|[0-3]"),
+            "cache_size",         Pattern.compile("-?[0-9]+"),
+            "mmap_size",          Pattern.compile("[0-9]+"),
+            "temp_store",         Pattern.compile("(?i)default|file|memory|[0-2]"),
+            "busy_timeout",       Pattern.compile("[0-9]+"),
+            "wal_autocheckpoint", Pattern.compile("-?[0-9]+"),
+            "journal_size_limit", Pattern.compile("-?[0-9]+"));
+
+    /** The preset. */
+    @Nonnull
+    private Preset preset = Preset.READ_HEAVY;
+
+    /** Overrides the journal mode of the preset: {@code delete}, {@code truncate}, {@code wal}, etc. */
+    @Nullable
+    private String journalMode;
+
+    /** Overrides the synchronous level of the preset: {@code off}, {@code normal}, {@code full} or {@code extra}. */
+    @Nullable
+    private String synchronous;
+
+    /** Overrides the size of the page cache of the preset. */
+    @Nullable
+    private DataSize cacheSize;
+
+    /** Overrides the size of the memory map of the preset; zero disables memory mapping. */
+    @Nullable
+    private DataSize mmapSize;
+
+    /** Overrides where temporary tables and indices are stored: {@code default}, {@code file} or {@code memory}. */
+    @Nullable
+    private String tempStore;
+
+    /** Overrides how long to wait for a lock held by another connection before failing. */
+    @Nullable
+    private Duration busyTimeout;
+
+    /** Overrides the number of pages in the WAL after which it's checkpointed; zero or less disables checkpoints. */
+    @Nullable
+    private Integer walAutocheckpoint;
+
+    /** Overrides the size to which the WAL is truncated after a checkpoint; negative means no limit. */
+    @Nullable
+    private DataSize journalSizeLimit;
+
+    /** The maximum number of connections of the pool for read-only transactions. */
+    @Nonnegative
+    private int readerPoolSize = 4;
+
+    /*******************************************************************************************************************
+     *
+     * Returns the pragmas to apply to each new connection, in the order in which they must be applied.
+     *
+     * @return    the values of the pragmas, by name
+     * @throws    IllegalArgumentException  if the value of a pragma is not in the expected format
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public Map<String, String> getPragmas()
+      {
+        final var result = new LinkedHashMap<>(preset.pragmas);
+        result.putAll(toPragmas(journalMode, synchronous, cacheSize, mmapSize, tempStore, busyTimeout,
+                                walAutocheckpoint, journalSizeLimit));
+        result.forEach(SQLiteProperties::checkPragma);
+        return Collections.unmodifiableMap(result);
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Checks that a pragma is known and that its value is in the expected format, so it can be safely embedded in a
+     * SQL statement.
+     *
+     * @param     name                      the name of the pragma
+     * @param     value                     the value
+     * @throws    IllegalArgumentException  if the pragma is unknown or the value is not in the expected format
+     *
+     ******************************************************************************************************************/
+    public static void checkPragma (@Nonnull final String name, @Nonnull final String value)
+      {
+        final var format = PRAGMA_FORMATS.get(name);
+
+        if (format == null)
+          {
+            throw new IllegalArgumentException("Unknown pragma: " + name);
+          }
+
+        if (!format.matcher(value).matches())
+          {
+            throw new IllegalArgumentException("Invalid value for pragma %s: %s".formatted(name, value));
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Null values are not included.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static Map<String, String> toPragmas (@Nullable final String journalMode,
+                                                  @Nullable final String synchronous,
+                                                  @Nullable final DataSize cacheSize,
+                                                  @Nullable final DataSize mmapSize,
+                                                  @Nullable final String tempStore,
+                                                  @Nullable final Duration busyTimeout,
+                                                  @Nullable final Integer walAutocheckpoint,
+                                                  @Nullable final DataSize journalSizeLimit)
+      {
+        final var result = new LinkedHashMap<String, String>();
+        putIfNotNull(result, "journal_mode", journalMode);
+        putIfNotNull(result, "synchronous", synchronous);
+        // A negative value is in KiB rather than in pages, so it doesn't depend on the page size
+        putIfNotNull(result, "cache_size", (cacheSize == null) ? null : -cacheSize.toKilobytes());
+        putIfNotNull(result, "mmap_size", (mmapSize == null) ? null : mmapSize.toBytes());
+        putIfNotNull(result, "temp_store", tempStore);
+        putIfNotNull(result, "busy_timeout", (busyTimeout == null) ? null : busyTimeout.toMillis());
+        putIfNotNull(result, "wal_autocheckpoint", walAutocheckpoint);
+        putIfNotNull(result, "journal_size_limit", (journalSizeLimit == null) ? null : journalSizeLimit.toBytes());
+        return result;
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private static void putIfNotNull (@Nonnull final Map<String, String> map,
+                                      @Nonnull final String name,
+                                      @Nullable final Object value)
+      {
+        if (value != null)
+          {
+            map.put(name, value.toString());
+          }
+      }
+  }
@@ -0,0 +1,153 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.dao.impl.jpa;
+
+import javax.annotation.Nonnegative;
+import jakarta.annotation.Nonnull;
+import java.util.List;
+import java.util.OptionalLong;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import lombok.extern.slf4j.Slf4j;
+import static org.hibernate.cache.jcache.ConfigSettings.CACHE_MANAGER;
+import static org.hibernate.cfg.AvailableSettings.CACHE_REGION_FACTORY;
+import static org.hibernate.cfg.AvailableSettings.GENERATE_STATISTICS;
+import static org.hibernate.cfg.AvailableSettings.USE_QUERY_CACHE;
+import static org.hibernate.cfg.AvailableSettings.USE_SECOND_LEVEL_CACHE;
+
+/***********************************************************************************************************************
+ *
+ * Configures the Hibernate second-level and query caches, backed by Caffeine. Since the catalog is mostly read-only
+ * once registered, repeated lookups don't need to hit the database.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Configuration @EnableConfigurationProperties(SecondLevelCacheProperties.class) @Slf4j
+public class SecondLevelCacheConfiguration
+  {
+    /** The prefix of the names of the entity regions, followed by the key of the region in the configuration. */
+    public static final String REGION_PREFIX = "solidblue3.";
+
+    /** The cache region of {@link ManagedFileEntity}. */
+    public static final String MANAGED_FILE_REGION = REGION_PREFIX + "managed-file";
+
+    /** The cache region of {@link FingerprintEntity} and of the collections of fingerprints. */
+    public static final String FINGERPRINT_REGION = REGION_PREFIX + "fingerprint";
+
+    /** The cache region of {@link BackupEntity}. */
+    public static final String BACKUP_REGION = REGION_PREFIX + "backup";
+
+    /** The cache region of {@link BackupFileEntity} and of the collections of backup files. */
+    public static final String BACKUP_FILE_REGION = REGION_PREFIX + "backup-file";
+
+    private static final List<String> ENTITY_REGIONS =
+            List.of(MANAGED_FILE_REGION, FINGERPRINT_REGION, BACKUP_REGION, BACKUP_FILE_REGION);
+
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    /*******************************************************************************************************************
+     *
+     * Creates the {@link CacheManager} with all the regions used by Hibernate, so their bounds are under our control.
+     * Each entity type has its own region, so it can be sized independently and doesn't evict the others.
+     *
+     ******************************************************************************************************************/
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager (@Nonnull final SecondLevelCacheProperties properties)
+      {
+        log.info("Second-level cache: {}", properties);
+        final var provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        final var cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        ENTITY_REGIONS.forEach(region -> createCacheIfMissing(
+                cacheManager, region, boundedConfiguration(properties, properties.getMaximumSize(region))));
+        createCacheIfMissing(cacheManager, QUERY_RESULTS_REGION,
+                             boundedConfiguration(properties, properties.getMaximumSize()));
+        // Must not be evicted before the query results it refers to
+        createCacheIfMissing(cacheManager, UPDATE_TIMESTAMPS_REGION, new CaffeineConfiguration<>());
+        return cacheManager;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Passes the cache configuration to Hibernate.
+     *
+     ******************************************************************************************************************/
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer (
+            @Nonnull final SecondLevelCacheProperties properties,
+            @Nonnull final CacheManager cacheManager)
+      {
+        return hibernateProperties ->
+          {
+            hibernateProperties.put(USE_SECOND_LEVEL_CACHE, properties.isEnabled());
+            hibernateProperties.put(USE_QUERY_CACHE, properties.isEnabled());
+            hibernateProperties.put(GENERATE_STATISTICS, properties.isEnabled());
+
+            if (properties.isEnabled())
+              {
+                hibernateProperties.put(CACHE_REGION_FACTORY, "jcache");
+                hibernateProperties.put(CACHE_MANAGER, cacheManager);
+              }
+          };
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static CaffeineConfiguration<Object, Object> boundedConfiguration (
+            @Nonnull final SecondLevelCacheProperties properties,
+            @Nonnegative final long maximumSize)
+      {
+        final var configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterAccess(OptionalLong.of(properties.getExpireAfterAccess().toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    private static void createCacheIfMissing (@Nonnull final CacheManager cacheManager,
+                                              @Nonnull final String name,
+                                              @Nonnull final CaffeineConfiguration<Object, Object> configuration)
+      {
+        if (cacheManager.getCache(name) == null)
+          {
+            cacheManager.createCache(name, configuration);
+          }
+      }
+  }
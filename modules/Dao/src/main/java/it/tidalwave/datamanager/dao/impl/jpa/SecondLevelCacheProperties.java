@@ -0,0 +1,74 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.dao.impl.jpa;
+
+import jakarta.annotation.Nonnull;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import static it.tidalwave.datamanager.dao.impl.jpa.SecondLevelCacheConfiguration.REGION_PREFIX;
+
+/***********************************************************************************************************************
+ *
+ * The configuration of the second-level cache, bound to the {@code solidblue3.cache} properties.
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@ConfigurationProperties(prefix = "solidblue3.cache")
+@Getter @Setter @ToString
+public class SecondLevelCacheProperties
+  {
+    /** Whether the second-level and query caches are enabled. */
+    private boolean enabled = true;
+
+    /** The maximum number of items in each cache region. */
+    private long maximumSize = 100_000;
+
+    /** The maximum number of items of some entity regions, such as {@code fingerprint}, overriding the default. */
+    private Map<String, Long> regionMaximumSize = new HashMap<>();
+
+    /** The time after which an item that hasn't been accessed is evicted. */
+    private Duration expireAfterAccess = Duration.ofHours(1);
+
+    /*******************************************************************************************************************
+     *
+     * Returns the maximum number of items of an entity region.
+     *
+     * @param   region      the name of the region
+     * @return              the maximum number of items
+     *
+     ******************************************************************************************************************/
+    public long getMaximumSize (@Nonnull final String region)
+      {
+        return regionMaximumSize.getOrDefault(region.substring(REGION_PREFIX.length()), maximumSize);
+      }
+  }
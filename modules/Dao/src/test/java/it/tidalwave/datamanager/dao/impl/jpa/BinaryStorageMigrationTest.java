@@ -0,0 +1,192 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.dao.impl.jpa;
+
+import jakarta.annotation.Nonnull;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.testng.Assert.expectThrows;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class BinaryStorageMigrationTest
+  {
+    private static final String FILE_ID = "00000001-0000-0000-0000-000000000000";
+
+    private static final String FINGERPRINT_ID = "00000002-0000-0000-0000-000000000000";
+
+    private static final String FINGERPRINT = "b068931cc450442b63f5b3d276ea4297";
+
+    private Connection connection;
+
+    /******************************************************************************************************************/
+    @BeforeMethod
+    public void prepare()
+            throws IOException, SQLException
+      {
+        final var dbFile = Path.of("target/migration-test.db");
+        Files.deleteIfExists(dbFile);
+        connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile);
+
+        try (final var statement = connection.createStatement())
+          {
+            statement.executeUpdate("CREATE TABLE files (id varchar(36) not null, path text not null, " +
+                                    "primary key (id))");
+            statement.executeUpdate("CREATE TABLE fingerprints (id varchar(36) not null, " +
+                                    "algorithm varchar(16) not null, file_id varchar(36) not null, " +
+                                    "name text not null, timestamp timestamp not null, " +
+                                    "fingerprint varchar(32) not null, primary key (id))");
+            statement.executeUpdate("INSERT INTO files VALUES ('%s', '/foo/bar')".formatted(FILE_ID));
+            statement.executeUpdate("INSERT INTO fingerprints VALUES ('%s', 'md5', '%s', 'bar', '2023-03-15', '%s')"
+                                            .formatted(FINGERPRINT_ID, FILE_ID, FINGERPRINT));
+          }
+      }
+
+    /******************************************************************************************************************/
+    @AfterMethod
+    public void cleanUp()
+            throws SQLException
+      {
+        connection.close();
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void test_migrate()
+            throws SQLException
+      {
+        // when
+        final var migrated = BinaryStorageMigration.migrate(connection);
+        // then
+        assertThat(migrated, is(true));
+
+        try (final var statement = connection.createStatement();
+             final var resultSet = statement.executeQuery("SELECT f.id, f.path, p.id, p.file_id, p.fingerprint " +
+                                                          "FROM files f, fingerprints p WHERE p.file_id = f.id"))
+          {
+            assertThat(resultSet.next(), is(true));
+            assertThat(toUuid(resultSet.getBytes(1)), is(UUID.fromString(FILE_ID)));
+            assertThat(resultSet.getString(2), is("/foo/bar"));
+            assertThat(toUuid(resultSet.getBytes(3)), is(UUID.fromString(FINGERPRINT_ID)));
+            assertThat(toUuid(resultSet.getBytes(4)), is(UUID.fromString(FILE_ID)));
+            assertThat(HexFormat.of().formatHex(resultSet.getBytes(5)), is(FINGERPRINT));
+            assertThat(resultSet.next(), is(false));
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void test_migrate_twice()
+            throws SQLException
+      {
+        // given
+        BinaryStorageMigration.migrate(connection);
+        // when
+        final var migrated = BinaryStorageMigration.migrate(connection);
+        // then
+        assertThat(migrated, is(false));
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "malformedRows")
+    public void must_fail_and_roll_back_when_a_value_is_malformed (@Nonnull final String insert,
+                                                                   @Nonnull final String expectedMessage)
+            throws SQLException
+      {
+        // given
+        try (final var statement = connection.createStatement())
+          {
+            statement.executeUpdate(insert);
+          }
+
+        final var fileCount = queryString("SELECT COUNT(*) FROM files");
+        final var fingerprintCount = queryString("SELECT COUNT(*) FROM fingerprints");
+        // when
+        final var exception = expectThrows(SQLException.class, () -> BinaryStorageMigration.migrate(connection));
+        // then
+        assertThat(exception.getMessage(), is(expectedMessage));
+        assertThat(queryString("SELECT type FROM pragma_table_info('files') WHERE name = 'id'"), is("varchar(36)"));
+        assertThat(queryString("SELECT type FROM pragma_table_info('fingerprints') WHERE name = 'id'"),
+                   is("varchar(36)"));
+        assertThat(queryString("SELECT COUNT(*) FROM files"), is(fileCount));
+        assertThat(queryString("SELECT COUNT(*) FROM fingerprints"), is(fingerprintCount));
+        assertThat(queryString("SELECT COUNT(*) FROM sqlite_master WHERE name GLOB '*__text'"), is("0"));
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] malformedRows()
+      {
+        return new Object[][]
+          {
+            { "INSERT INTO files VALUES ('not-a-uuid', '/foo/baz')",
+              "Cannot migrate files.id, malformed value: 'not-a-uuid'" },
+            { ("INSERT INTO fingerprints VALUES ('00000003-0000-0000-0000-000000000000', 'md5', '%s', 'baz', " +
+               "'2023-03-15', 'zz68931cc450442b63f5b3d276ea4297')").formatted(FILE_ID),
+              "Cannot migrate fingerprints.fingerprint, malformed value: 'zz68931cc450442b63f5b3d276ea4297'" }
+          };
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private String queryString (@Nonnull final String query)
+            throws SQLException
+      {
+        try (final var statement = connection.createStatement();
+             final var resultSet = statement.executeQuery(query))
+          {
+            assertThat(resultSet.next(), is(true));
+            return resultSet.getString(1);
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private static UUID toUuid (@Nonnull final byte[] bytes)
+      {
+        assertThat(bytes.length, is(16));
+        final var hex = HexFormat.of().formatHex(bytes);
+        return UUID.fromString("%s-%s-%s-%s-%s".formatted(hex.substring(0, 8), hex.substring(8, 12),
+                                                          hex.substring(12, 16), hex.substring(16, 20),
+                                                          hex.substring(20)));
+      }
+  }
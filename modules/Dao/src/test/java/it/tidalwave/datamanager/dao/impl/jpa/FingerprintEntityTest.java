@@ -26,6 +26,7 @@
  */
 package it.tidalwave.datamanager.dao.impl.jpa;
 
+import java.util.UUID;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -50,6 +51,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 @Slf4j
 public class FingerprintEntityTest extends EntityTestSupport
   {
+    private static final UUID FILE_ID = UUID.fromString("0000ffff-0000-0000-0000-000000000000");
+
     private TestEntityFactory tef;
 
     /******************************************************************************************************************/
@@ -64,7 +67,7 @@ public class FingerprintEntityTest extends EntityTestSupport
     public void test_equals_and_hashcode()
       {
         // given
-        final var underTest = tef.createFingerprintEntity("fileId");
+        final var underTest = tef.createFingerprintEntity(FILE_ID);
         // then
         assertEqualityConsistency(FingerprintEntity.class, underTest);
       }
@@ -74,16 +77,16 @@ public class FingerprintEntityTest extends EntityTestSupport
     public void test_toString()
       {
         // given
-        final var underTest = tef.createFingerprintEntity("fileId");
+        final var underTest = tef.createFingerprintEntity(FILE_ID);
         // when
         final var actualResult = underTest.toString();
         // then
         final var expectedResult = "FingerprintEntity(id=00000000-0000-0000-0000-000000000000, " +
                                    "name=name, " +
                                    "algorithm=md5, " +
-                                   "value=fingerprint, " +
+                                   "value=b068931cc450442b63f5b3d276ea4297, " +
                                    "timestamp=2023-03-15T07:41:36, " +
-                                   "fileId=fileId)";
+                                   "fileId=0000ffff-0000-0000-0000-000000000000)";
         assertThat(actualResult, is(expectedResult));
       }
   }
@@ -28,37 +28,60 @@ package it.tidalwave.datamanager.dao.impl.jpa;
 
 import jakarta.annotation.Nonnull;
 import jakarta.inject.Inject;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Consumer;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.sql.SQLException;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
 import jakarta.transaction.Transactional;
+import org.sqlite.SQLiteDataSource;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.tidalwave.util.Id;
 import it.tidalwave.util.LazySupplier;
 import it.tidalwave.util.spring.jpa.impl.LoggingJpaTransactionManager;
+import it.tidalwave.datamanager.model.Backup;
+import it.tidalwave.datamanager.model.BackupRegistration;
+import it.tidalwave.datamanager.model.DuplicateCriteria;
+import it.tidalwave.datamanager.model.DuplicateGroup;
+import it.tidalwave.datamanager.model.FileState;
 import it.tidalwave.datamanager.model.ManagedFile;
+import it.tidalwave.datamanager.model.ScannedFile;
 import lombok.extern.slf4j.Slf4j;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
+import static it.tidalwave.datamanager.util.Utilities.fingerprintToString;
 import static it.tidalwave.datamanager.model.DataManager.BackupFinder.SortingKeys.LABEL;
 import static it.tidalwave.datamanager.model.DataManager.ManagedFileFinder.SortingKeys.PATH;
 import static jakarta.transaction.Transactional.TxType.NEVER;
 import static org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace.NONE;
 import static it.tidalwave.util.Finder.SortDirection.ASCENDING;
+import static it.tidalwave.util.Finder.SortDirection.DESCENDING;
 import static it.tidalwave.util.spring.jpa.JpaSpecificationFinder.by;
 import static it.tidalwave.util.test.FileComparisonUtils.assertSameContents;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.testng.Assert.assertThrows;
 
 /***********************************************************************************************************************
  *
@@ -88,6 +111,15 @@ public class JpaDataManagerDaoTest extends AbstractTestNGSpringContextTests
     @Inject
     private LoggingJpaTransactionManager txManager;
 
+    @Inject
+    private CacheStatistics cacheStatistics;
+
+    @Inject
+    private CacheEvictor cacheEvictor;
+
+    @Inject
+    private DataSourceProperties dataSourceProperties;
+
     private TestEntityFactory tef;
 
     private List<ManagedFileEntity> managedFileEntities;
@@ -157,7 +189,8 @@ public class JpaDataManagerDaoTest extends AbstractTestNGSpringContextTests
         log.info("Triggering lazy fetch...");
         txManager.resetCounters();
         actualResult.forEach(ManagedFile::getFingerprints);
-        assertThat(txManager.getCommitCount(), is(expectedResult.size()));
+        // fingerprints are fetched in batch for all the results
+        assertThat(txManager.getCommitCount(), is(expectedResult.isEmpty() ? 0 : 1));
 
         // Dumps for easier manual inspection in case of mismatch
         final var s = String.format("-fingerprint_%s", fingerprint.orElse(""));
@@ -171,6 +204,314 @@ public class JpaDataManagerDaoTest extends AbstractTestNGSpringContextTests
         assertThat(txManager.getCommitCount(), is(0));
       }
 
+    /******************************************************************************************************************/
+    @Test(dataProvider = "fingerprintParameters") @Transactional(NEVER)
+    public void test_streamManagedFiles (@Nonnull final Optional<String> fingerprint)
+      {
+        // given
+        final var finder = underTest.findManagedFiles().sort(by(PATH), ASCENDING).withFingerprint(fingerprint);
+        final var expectedResult = finder.results();
+        // when
+        try (final var stream = finder.stream())
+          {
+            final var actualResult = stream.toList();
+            // then
+            assertThat(actualResult, is(expectedResult));
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "fingerprintParameters") @Transactional(NEVER)
+    public void test_countManagedFiles (@Nonnull final Optional<String> fingerprint)
+      {
+        // given
+        final var finder = underTest.findManagedFiles().withFingerprint(fingerprint);
+        final var expectedCount = finder.results().size();
+        // when
+        final var actualCount = finder.count();
+        final var actualExists = finder.exists();
+        // then
+        assertThat(actualCount, is(expectedCount));
+        assertThat(actualExists, is(expectedCount > 0));
+        assertThat(finder.from(1).max(2).count(), is(Math.max(0, Math.min(expectedCount - 1, 2))));
+      }
+
+    /******************************************************************************************************************/
+    @Test @Transactional(NEVER)
+    public void test_findManagedFiles_records_metrics()
+      {
+        // given
+        final var registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        final var finder = JpaManagedFileFinder.class.getSimpleName();
+
+        try
+          {
+            // when
+            underTest.findManagedFiles().results();
+            underTest.findManagedFiles().count();
+            // then
+            assertThat(registry.get("solidblue3.finder.queries")
+                               .tags("finder", finder, "operation", "results")
+                               .timer()
+                               .count(), is(1L));
+            assertThat(registry.get("solidblue3.finder.queries")
+                               .tags("finder", finder, "operation", "count")
+                               .timer()
+                               .count(), is(1L));
+            assertThat(registry.get("solidblue3.finder.rows")
+                               .tags("finder", finder, "operation", "results")
+                               .counter()
+                               .count(), is((double)managedFileEntities.size()));
+            assertThat(registry.get("solidblue3.transactions")
+                               .tags("read.only", "true", "outcome", "commit")
+                               .timer()
+                               .count(), is(2L));
+          }
+        finally
+          {
+            Metrics.removeRegistry(registry);
+            registry.close();
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "fingerprintParameters") @Transactional(NEVER)
+    public void test_repeated_findManagedFiles_hits_the_query_cache (@Nonnull final Optional<String> fingerprint)
+      {
+        // given
+        final var expectedResult = underTest.findManagedFiles().sort(by(PATH), ASCENDING).withFingerprint(fingerprint).results();
+        final var queryHitCount = cacheStatistics.getQueryHitCount();
+        // when
+        final var actualResult = underTest.findManagedFiles().sort(by(PATH), ASCENDING).withFingerprint(fingerprint).results();
+        // then
+        assertThat(cacheStatistics.getQueryHitCount(), is(queryHitCount + 1));
+        assertThat(actualResult, is(expectedResult));
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "fingerprintParameters") @Transactional(NEVER)
+    public void test_streamManagedFiles_bypasses_the_query_cache (@Nonnull final Optional<String> fingerprint)
+      {
+        // given
+        final var finder = underTest.findManagedFiles().sort(by(PATH), ASCENDING).withFingerprint(fingerprint);
+        final List<ManagedFile> expectedResult;
+
+        try (final var stream = finder.stream())
+          {
+            expectedResult = stream.toList();
+          }
+
+        final var queryHitCount = cacheStatistics.getQueryHitCount();
+        // when
+        try (final var stream = finder.stream())
+          {
+            final var actualResult = stream.toList();
+            // then
+            assertThat(cacheStatistics.getQueryHitCount(), is(queryHitCount));
+            assertThat(actualResult, is(expectedResult));
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "fingerprintParameters") @Transactional(NEVER)
+    public void test_repeated_countManagedFiles_hits_the_query_cache (@Nonnull final Optional<String> fingerprint)
+      {
+        // given
+        final var expectedResult = underTest.findManagedFiles().withFingerprint(fingerprint).count();
+        final var queryHitCount = cacheStatistics.getQueryHitCount();
+        // when
+        final var actualResult = underTest.findManagedFiles().withFingerprint(fingerprint).count();
+        // then
+        assertThat(cacheStatistics.getQueryHitCount(), is(queryHitCount + 1));
+        assertThat(actualResult, is(expectedResult));
+      }
+
+    /******************************************************************************************************************/
+    @Test @Transactional(NEVER)
+    public void test_findManagedFiles_after_evictAll_misses_the_query_cache()
+      {
+        // given
+        final var expectedResult = underTest.findManagedFiles().sort(by(PATH), ASCENDING).results();
+        final var queryHitCount = cacheStatistics.getQueryHitCount();
+        final var queryMissCount = cacheStatistics.getQueryMissCount();
+        // when
+        cacheEvictor.evictAll();
+        final var actualResult = underTest.findManagedFiles().sort(by(PATH), ASCENDING).results();
+        // then
+        assertThat(cacheStatistics.getQueryHitCount(), is(queryHitCount));
+        assertThat(cacheStatistics.getQueryMissCount(), is(queryMissCount + 1));
+        assertThat(actualResult, is(expectedResult));
+      }
+
+    /******************************************************************************************************************/
+    @Test @Transactional(NEVER)
+    public void test_findManagedFiles_hits_the_query_cache_when_the_database_is_unchanged()
+      {
+        // given
+        cacheEvictor.evictIfDatabaseChanged();
+        final var expectedResult = underTest.findManagedFiles().sort(by(PATH), ASCENDING).results();
+        final var queryHitCount = cacheStatistics.getQueryHitCount();
+        // when
+        cacheEvictor.evictIfDatabaseChanged();
+        final var actualResult = underTest.findManagedFiles().sort(by(PATH), ASCENDING).results();
+        // then
+        assertThat(cacheStatistics.getQueryHitCount(), is(queryHitCount + 1));
+        assertThat(actualResult, is(expectedResult));
+      }
+
+    /******************************************************************************************************************/
+    @Test @Transactional(NEVER)
+    public void test_findManagedFiles_misses_the_query_cache_when_another_process_changed_the_database()
+            throws SQLException
+      {
+        // given
+        cacheEvictor.evictIfDatabaseChanged();
+        final var expectedResult = underTest.findManagedFiles().sort(by(PATH), ASCENDING).results();
+        final var queryHitCount = cacheStatistics.getQueryHitCount();
+        // A write that Hibernate doesn't see, as if by another process
+        final var dataSource = new SQLiteDataSource();
+        dataSource.setUrl(dataSourceProperties.getUrl().replace("jdbc:p6spy:", "jdbc:"));
+
+        try (final var connection = dataSource.getConnection();
+             final var statement = connection.createStatement())
+          {
+            statement.executeUpdate("UPDATE files SET path = path WHERE rowid = (SELECT min(rowid) FROM files)");
+          }
+        // when
+        cacheEvictor.evictIfDatabaseChanged();
+        final var actualResult = underTest.findManagedFiles().sort(by(PATH), ASCENDING).results();
+        // then
+        assertThat(cacheStatistics.getQueryHitCount(), is(queryHitCount));
+        assertThat(actualResult, is(expectedResult));
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "pathRegexes") @Transactional(NEVER)
+    public void test_findManagedFiles_with_path_matching (@Nonnull final String regex)
+      {
+        // when
+        final var actualResult = underTest.findManagedFiles()
+                                          .sort(by(PATH), ASCENDING)
+                                          .withPathMatching(regex)
+                                          .results();
+        // then
+        final var expectedResult = managedFileEntities.stream()
+                                                      .map(ManagedFileEntity::getPath)
+                                                      .filter(p -> p.matches(regex))
+                                                      .sorted()
+                                                      .toList();
+        assertThat(actualResult.stream().map(mf -> mf.getPath().toString()).toList(), is(expectedResult));
+      }
+
+    /******************************************************************************************************************/
+    @Test(expectedExceptions = PatternSyntaxException.class)
+    public void test_findManagedFiles_with_invalid_regex()
+      {
+        // when
+        underTest.findManagedFiles().withPathMatching("/foo[bar");
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "pageSizes") @Transactional(NEVER)
+    public void test_findManagedFiles_with_keyset_pagination (final int pageSize)
+      {
+        // given
+        final var expectedResult = underTest.findManagedFiles().sort(by(PATH), ASCENDING).results();
+        // when
+        final var actualResult = new ArrayList<ManagedFile>();
+        var lastSeen = Optional.<ManagedFile>empty();
+
+        for (;;)
+          {
+            final var page = underTest.findManagedFiles()
+                                      .sort(by(PATH), ASCENDING)
+                                      .startingAfter(lastSeen)
+                                      .max(pageSize)
+                                      .results();
+
+            if (page.isEmpty())
+              {
+                break;
+              }
+
+            actualResult.addAll(page);
+            lastSeen = Optional.of(page.get(page.size() - 1));
+          }
+        // then
+        assertThat(actualResult, is(expectedResult));
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "pageSizes") @Transactional(NEVER)
+    public void test_findManagedFiles_with_keyset_pagination_when_unsorted (final int pageSize)
+      {
+        // given
+        final var expectedResult = underTest.findManagedFiles().sort(by(PATH), ASCENDING).results();
+        // when
+        final var actualResult = new ArrayList<ManagedFile>();
+        var lastSeen = Optional.<ManagedFile>empty();
+
+        for (;;)
+          {
+            final var page = underTest.findManagedFiles().startingAfter(lastSeen).max(pageSize).results();
+
+            if (page.isEmpty())
+              {
+                break;
+              }
+
+            actualResult.addAll(page);
+            lastSeen = Optional.of(page.get(page.size() - 1));
+          }
+        // then
+        assertThat(actualResult, is(expectedResult));
+      }
+
+    /******************************************************************************************************************/
+    @Test(expectedExceptions = IllegalStateException.class) @Transactional(NEVER)
+    public void test_findManagedFiles_with_keyset_pagination_rejects_other_sorting()
+      {
+        // given
+        final var lastSeen = underTest.findManagedFiles().sort(by(PATH), ASCENDING).results().get(0);
+        // when
+        underTest.findManagedFiles()
+                 .sort(by(PATH), ASCENDING)
+                 .sort(by(PATH), DESCENDING)
+                 .startingAfter(lastSeen)
+                 .results();
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "pageSizes") @Transactional(NEVER)
+    public void test_findBackups_with_keyset_pagination (final int pageSize)
+      {
+        // given
+        final var expectedResult = underTest.findBackups().sort(by(LABEL), ASCENDING).results();
+        // when
+        final var actualResult = new ArrayList<Backup>();
+        var lastSeen = Optional.<Backup>empty();
+
+        for (;;)
+          {
+            final var page = underTest.findBackups()
+                                      .sort(by(LABEL), ASCENDING)
+                                      .startingAfter(lastSeen)
+                                      .max(pageSize)
+                                      .results();
+
+            if (page.isEmpty())
+              {
+                break;
+              }
+
+            actualResult.addAll(page);
+            lastSeen = Optional.of(page.get(page.size() - 1));
+          }
+        // then
+        assertThat(actualResult, is(expectedResult));
+      }
+
     /******************************************************************************************************************/
     @Test(dataProvider = "backupParameters") @Transactional(NEVER)
     public void test_findBackups (@Nonnull final Optional<String> label,
@@ -194,7 +535,7 @@ public class JpaDataManagerDaoTest extends AbstractTestNGSpringContextTests
             .filter(be -> label.map(n -> be.getLabel().equals(n)).orElse(true))
             .filter(be -> volumeId.map(v -> be.getVolumeId().equals(v)).orElse(true))
             .filter(be -> fileId.map(i -> be.getBackupFiles().stream()
-                                            .anyMatch(bf -> bf.getManagedFile().getId().equals(i)))
+                                            .anyMatch(bf -> bf.getManagedFile().getId().toString().equals(i)))
                                 .orElse(true))
             .map(underTest::backupEntityToModel)
             .toList();
@@ -209,6 +550,11 @@ public class JpaDataManagerDaoTest extends AbstractTestNGSpringContextTests
         actualResult.forEach(b -> b.getBackupFiles().forEach(bf -> assertThat(bf.getBackup(), is(sameInstance(b)))));
         assertThat(txManager.getCommitCount(), is(expectedResult.size()));
 
+        log.info("Asserting that ManagedFiles are shared among backups...");
+        final var managedFilesById = new HashMap<Id, ManagedFile>();
+        actualResult.forEach(b -> b.getBackupFiles().forEach(bf -> assertThat(bf.getManagedFile(), is(sameInstance(
+                managedFilesById.computeIfAbsent(bf.getManagedFile().getId(), __ -> bf.getManagedFile()))))));
+
         // they will be triggered by next asserts, invalidating assertion count
         log.info("Triggering lazy fetch for ManagedFiles...");
         expectedResult.forEach(b -> b.getBackupFiles().forEach(bg -> bg.getManagedFile().getFingerprints()));
@@ -227,10 +573,273 @@ public class JpaDataManagerDaoTest extends AbstractTestNGSpringContextTests
         assertThat(txManager.getCommitCount(), is(0));
       }
 
+    /******************************************************************************************************************/
+    @Test(dataProvider = "backupParameters") @Transactional(NEVER)
+    public void test_streamBackups (@Nonnull final Optional<String> label,
+                                    @Nonnull final Optional<String> volumeId,
+                                    @Nonnull final Optional<String> fileId)
+      {
+        // given
+        final var finder = underTest.findBackups()
+                                    .sort(by(LABEL), ASCENDING)
+                                    .withLabel(label)
+                                    .withVolumeId(volumeId)
+                                    .withFileId(fileId);
+        final var expectedResult = finder.results();
+        // when
+        try (final var stream = finder.stream())
+          {
+            final var actualResult = stream.toList();
+            // then
+            log.info("Asserting that lazy collection of backup files not fetched yet...");
+            actualResult.stream().map(b -> (LazySupplier<?>)inspect(b, "backupFiles"))
+                                 .forEach(lz -> assertThat(lz.isInitialized(), is(false)));
+            assertThat(actualResult, is(expectedResult));
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "backupParameters") @Transactional(NEVER)
+    public void test_countBackups (@Nonnull final Optional<String> label,
+                                   @Nonnull final Optional<String> volumeId,
+                                   @Nonnull final Optional<String> fileId)
+      {
+        // given
+        final var finder = underTest.findBackups().withLabel(label).withVolumeId(volumeId).withFileId(fileId);
+        final var expectedCount = finder.results().size();
+        // when
+        final var actualCount = finder.count();
+        final var actualExists = finder.exists();
+        // then
+        assertThat(actualCount, is(expectedCount));
+        assertThat(actualExists, is(expectedCount > 0));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void test_registerScannedFiles()
+      {
+        // given
+        final var path1 = Path.of("/scanned/file-1");
+        final var path2 = Path.of("/scanned/file-2");
+        final var state1 = fileState(1000, 1_678_000_000_000L);
+        final var state2 = fileState(2000, 1_678_000_000_000L);
+        final var state2Changed = fileState(2001, 1_678_000_100_000L);
+
+        try
+          {
+            // when
+            final var count1 = underTest.registerScannedFiles(List.of(scannedFile(path1, state1, "f1", 1),
+                                                                      scannedFile(path2, state2, "f2", 1)));
+            final var count2 = underTest.registerScannedFiles(List.of(scannedFile(path1, state1, "f1", 2),
+                                                                      scannedFile(path2, state2Changed, "f3", 2)));
+            // then
+            assertThat(count1, is(2));
+            assertThat(count2, is(1));
+            assertThat(underTest.findFileStates(List.of(path1, path2, Path.of("/scanned/never-scanned"))),
+                       is(Map.of(path1, state1, path2, state2Changed)));
+            assertThat(findFingerprintValues(path1), is(List.of("f1")));
+            assertThat(findFingerprintValues(path2), is(List.of("f2", "f3")));
+          }
+        finally
+          {
+            runInOtherTx(em ->
+              {
+                em.createQuery("DELETE FROM FingerprintEntity WHERE fileId IN " +
+                               "(SELECT id FROM ManagedFileEntity WHERE path LIKE '/scanned/%')").executeUpdate();
+                em.createQuery("DELETE FROM ManagedFileEntity WHERE path LIKE '/scanned/%'").executeUpdate();
+              });
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "duplicateParameters") @Transactional(NEVER)
+    public void test_findDuplicates (@Nonnull final Optional<Long> minSize, @Nonnull final List<String> expectedResult)
+      {
+        // given
+        final var state1 = fileState(1000, 1_678_000_000_000L);
+        final var state2 = fileState(2000, 1_678_000_000_000L);
+        underTest.registerScannedFiles(List.of(scannedFile(Path.of("/scanned/a"), state1, "f1", 1),
+                                               scannedFile(Path.of("/scanned/b"), state1, "f1", 1),
+                                               scannedFile(Path.of("/scanned/c"), state1, "f1", 1),
+                                               scannedFile(Path.of("/scanned/e"), state1, "f3", 1),
+                                               // Same values, but computed by another algorithm
+                                               scannedFile(Path.of("/scanned/f"), state1, "sha1", "f1", 1),
+                                               scannedFile(Path.of("/scanned/g"), state1, "sha1", "f3", 1)));
+        // c changed, so it's no more a duplicate of a and b
+        underTest.registerScannedFiles(List.of(scannedFile(Path.of("/scanned/c"), state2, "f2", 2),
+                                               scannedFile(Path.of("/scanned/d"), state2, "f2", 2)));
+        final var criteria = DuplicateCriteria.builder().minSize(minSize).pathPrefix(Optional.of("/scanned/")).build();
+
+        try
+          {
+            // when
+            try (final var stream = underTest.findDuplicates(criteria))
+              {
+                final var actualResult = stream.map(JpaDataManagerDaoTest::toString).toList();
+                // then
+                assertThat(actualResult, is(expectedResult));
+              }
+          }
+        finally
+          {
+            runInOtherTx(em ->
+              {
+                em.createQuery("DELETE FROM FingerprintEntity WHERE fileId IN " +
+                               "(SELECT id FROM ManagedFileEntity WHERE path LIKE '/scanned/%')").executeUpdate();
+                em.createQuery("DELETE FROM ManagedFileEntity WHERE path LIKE '/scanned/%'").executeUpdate();
+              });
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test @Transactional(NEVER)
+    public void test_registerBackup()
+      {
+        // given
+        final var existingManagedFile = managedFileEntities.get(0);
+        final var items = new ArrayList<BackupRegistration.Item>();
+        items.add(BackupRegistration.Item.of(Path.of("/backup/existing"), Path.of(existingManagedFile.getPath())));
+        // more than a chunk
+        IntStream.range(0, 1200).forEach(i -> items.add(BackupRegistration.Item.of(
+                Path.of("/backup/%04d".formatted(i)), Path.of("/registered/%04d".formatted(i % 1000)))));
+        final var registration = BackupRegistration.builder()
+                                                   .label("registered")
+                                                   .volumeId(Id.of("registered-volume"))
+                                                   .basePath(Path.of("/backup"))
+                                                   .creationDate(LocalDateTime.of(2023, 4, 1, 12, 0))
+                                                   .items(items)
+                                                   .build();
+        txManager.resetCounters();
+
+        try
+          {
+            // when
+            final var id = underTest.registerBackup(registration);
+            // then
+            assertThat(txManager.getCommitCount(), is(1));
+
+            try (final var em = emf.createEntityManager())
+              {
+                final var backupEntity = em.find(BackupEntity.class, JpaDataManagerDao.toUuid(id));
+                assertThat(backupEntity.getLabel(), is("registered"));
+                assertThat(backupEntity.getVolumeId(), is("registered-volume"));
+                assertThat(backupEntity.getBackupFiles().size(), is(1201));
+                assertThat(em.createQuery("SELECT COUNT(m) FROM ManagedFileEntity m WHERE m.path LIKE '/registered/%'",
+                                          Long.class).getSingleResult(), is(1000L));
+                assertThat(em.createQuery("SELECT f.managedFile.id FROM BackupFileEntity f WHERE f.path = :path",
+                                          UUID.class)
+                             .setParameter("path", "/backup/existing")
+                             .getSingleResult(), is(existingManagedFile.getId()));
+              }
+
+            assertThrows(IllegalArgumentException.class, () -> underTest.registerBackup(registration));
+          }
+        finally
+          {
+            runInOtherTx(em ->
+              {
+                em.createQuery("DELETE FROM BackupFileEntity WHERE backup.id IN " +
+                               "(SELECT id FROM BackupEntity WHERE label = 'registered')").executeUpdate();
+                em.createQuery("DELETE FROM BackupEntity WHERE label = 'registered'").executeUpdate();
+                em.createQuery("DELETE FROM ManagedFileEntity WHERE path LIKE '/registered/%'").executeUpdate();
+              });
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void test_updateLatestCheckDate()
+      {
+        // given
+        final var backupEntity = backupEntities.get(0);
+        final var id = Id.of(backupEntity.getId());
+        final var checkDate = LocalDateTime.of(2023, 4, 1, 12, 0);
+
+        try
+          {
+            // when
+            underTest.updateLatestCheckDate(id, checkDate);
+            // then
+            try (final var em = emf.createEntityManager())
+              {
+                assertThat(em.find(BackupEntity.class, backupEntity.getId()).getLatestCheckDate(), is(checkDate));
+              }
+          }
+        finally
+          {
+            underTest.updateLatestCheckDate(id, backupEntity.getLatestCheckDate());
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private List<String> findFingerprintValues (@Nonnull final Path path)
+      {
+        try (final var em = emf.createEntityManager())
+          {
+            return em.createQuery("SELECT f FROM FingerprintEntity f, ManagedFileEntity m " +
+                                  "WHERE f.fileId = m.id AND m.path = :path ORDER BY f.timestamp",
+                                  FingerprintEntity.class)
+                     .setParameter("path", path.toString())
+                     .getResultStream()
+                     .map(f -> fingerprintToString(f.getValue()))
+                     .toList();
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private static FileState fileState (final long size, final long lastModified)
+      {
+        return FileState.builder()
+                        .size(size)
+                        .lastModified(Instant.ofEpochMilli(lastModified))
+                        .fileKey(Optional.of("(dev=1,ino=%d)".formatted(size)))
+                        .build();
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private static ScannedFile scannedFile (@Nonnull final Path path,
+                                            @Nonnull final FileState state,
+                                            @Nonnull final String fingerprint,
+                                            final int day)
+      {
+        return scannedFile(path, state, "md5", fingerprint, day);
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private static ScannedFile scannedFile (@Nonnull final Path path,
+                                            @Nonnull final FileState state,
+                                            @Nonnull final String algorithm,
+                                            @Nonnull final String fingerprint,
+                                            final int day)
+      {
+        return ScannedFile.builder()
+                          .path(path)
+                          .state(state)
+                          .algorithm(algorithm)
+                          .fingerprint(fingerprint)
+                          .timestamp(LocalDateTime.of(2023, 3, day, 0, 0))
+                          .build();
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private static String toString (@Nonnull final DuplicateGroup group)
+      {
+        return "%s:%s:%d:%s".formatted(group.getAlgorithm(),
+                                       group.getFingerprint(),
+                                       group.getSize().orElse(-1L),
+                                       group.getManagedFiles().stream().map(f -> f.getPath().toString()).toList());
+      }
+
     /******************************************************************************************************************/
     private static boolean contains (@Nonnull final ManagedFileEntity entity, @Nonnull final String fingerprint)
       {
-        return entity.getFingerprints().stream().anyMatch(fp -> fp.getValue().equals(fingerprint));
+        return entity.getFingerprints().stream().anyMatch(fp -> fingerprintToString(fp.getValue()).equals(fingerprint));
       }
 
     /******************************************************************************************************************/
@@ -281,6 +890,47 @@ public class JpaDataManagerDaoTest extends AbstractTestNGSpringContextTests
           };
       }
 
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] pathRegexes()
+      {
+        return new Object[][]
+          {
+            { ".*" },
+            { ".*[0-9]" },
+            { "/foo/bar/[a-c].*" },
+            { "/foo/bar/a.*" },
+            { "^/foo/bar/f.*" },
+            { "/foo/bar/ff?.*" },
+            { "(?i)/FOO/BAR/E.*" },
+            { "/foo/baz/.*" }
+          };
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] pageSizes()
+      {
+        return new Object[][]
+          {
+            { 1 },
+            { 3 },
+            { 100 }
+          };
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] duplicateParameters()
+      {
+        return new Object[][]
+          {
+            { Optional.empty(),     List.of("md5:f1:1000:[/scanned/a, /scanned/b]",
+                                            "md5:f2:2000:[/scanned/c, /scanned/d]") },
+            { Optional.of(1500L),   List.of("md5:f2:2000:[/scanned/c, /scanned/d]") }
+          };
+      }
+
     /******************************************************************************************************************/
     @DataProvider
     private static Object[][] backupParameters()
@@ -294,6 +944,7 @@ public class JpaDataManagerDaoTest extends AbstractTestNGSpringContextTests
             { Optional.empty(),       Optional.of("volumeId 7"),  Optional.empty() },
             { Optional.empty(),       Optional.empty(),           Optional.of("missing") },
             { Optional.empty(),       Optional.empty(),           Optional.of("id") },
+            { Optional.empty(),       Optional.empty(),           Optional.of("00000010-0000-0000-0000-000000000000") },
           };
       }
   }
\ No newline at end of file
@@ -0,0 +1,96 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.dao.impl.jpa;
+
+import jakarta.annotation.Nonnull;
+import java.util.Optional;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class JpaManagedFileFinderTest
+  {
+    /******************************************************************************************************************/
+    @Test(dataProvider = "regexesAndPrefixes")
+    public void test_literalPrefix (@Nonnull final String regex, @Nonnull final String expectedPrefix)
+      {
+        // when
+        final var actualPrefix = JpaManagedFileFinder.literalPrefix(regex);
+        // then
+        assertThat(actualPrefix, is(expectedPrefix));
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "prefixesAndUpperBounds")
+    public void test_prefixUpperBound (@Nonnull final String prefix, @Nonnull final Optional<String> expectedUpperBound)
+      {
+        // when
+        final var actualUpperBound = JpaManagedFileFinder.prefixUpperBound(prefix);
+        // then
+        assertThat(actualUpperBound, is(expectedUpperBound));
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] prefixesAndUpperBounds()
+      {
+        return new Object[][]
+          {
+            { "/foo/",              Optional.of("/foo0")    },
+            { "/foo/bar",           Optional.of("/foo/bas") },
+            { "",                   Optional.empty()        },
+            { "/foo\uffff",         Optional.empty()        },
+            { "/foo\ud83d\ude00",   Optional.empty()        }
+          };
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] regexesAndPrefixes()
+      {
+        return new Object[][]
+          {
+            { "/foo/bar",           "/foo/bar"   },
+            { "/foo/bar/a.*",       "/foo/bar/a" },
+            { "^/foo/bar/f.*",      "/foo/bar/f" },
+            { "/foo/bar/ff?.*",     "/foo/bar/f" },
+            { "/foo/bar/f*",        "/foo/bar/"  },
+            { "/foo/bar/f{2}",      "/foo/bar/"  },
+            { "/foo/bar/[a-c].*",   "/foo/bar/"  },
+            { "/foo\\.txt",         "/foo"       },
+            { ".*",                 ""           },
+            { "(?i)/foo/.*",        ""           },
+            { "/foo/.*|/bar/.*",    ""           }
+          };
+      }
+  }
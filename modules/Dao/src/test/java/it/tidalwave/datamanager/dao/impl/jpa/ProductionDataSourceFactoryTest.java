@@ -26,17 +26,22 @@
  */
 package it.tidalwave.datamanager.dao.impl.jpa;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.SQLException;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import it.tidalwave.util.PreferencesHandler;
+import it.tidalwave.util.spring.jpa.impl.ReadOnlyRoutingDataSource;
 import lombok.extern.slf4j.Slf4j;
 import org.testng.annotations.Test;
 import static org.mockito.Mockito.*;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.testng.Assert.expectThrows;
 
 /***********************************************************************************************************************
  *
@@ -59,15 +64,77 @@ public class ProductionDataSourceFactoryTest
         dataSourceProperties.setDriverClassName("com.p6spy.engine.spy.P6SpyDriver");
         final var underTest = new ProductionDataSourceFactory();
         // when
-        final var dataSource = underTest.getDataSource(dataSourceProperties, preferencesHandler);
+        final var dataSource = underTest.getDataSource(dataSourceProperties,
+                                                       preferencesHandler,
+                                                       new SQLiteProperties());
         // then
         try (final var conn = dataSource.getConnection();
              final var stat = conn.createStatement())
           {
             stat.execute("SELECT 1");
           }
+        finally
+          {
+            ((Closeable)dataSource).close();
+          }
 
         final var dbPath = Path.of(dataSourceProperties.getUrl().replaceAll(".*:", ""));
         assertThat(Files.exists(dbPath), is(true));
+        expectThrows(SQLException.class, dataSource::getConnection);
+      }
+
+    @Test
+    public void test_read_only_transactions_use_read_only_connections()
+            throws IOException, SQLException
+      {
+        // given
+        final var testAppFolder = Files.createTempDirectory(Path.of("target"), "test-folder-app");
+        final var preferencesHandler = mock(PreferencesHandler.class);
+        when(preferencesHandler.getAppFolder()).thenReturn(testAppFolder);
+        final var dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setDriverClassName("com.p6spy.engine.spy.P6SpyDriver");
+        final var underTest = new ProductionDataSourceFactory();
+        final var dataSource = underTest.getDataSource(dataSourceProperties,
+                                                       preferencesHandler,
+                                                       new SQLiteProperties());
+
+        try (final var conn = dataSource.getConnection();
+             final var stat = conn.createStatement())
+          {
+            stat.executeUpdate("CREATE TABLE t (v INTEGER)");
+            stat.executeUpdate("INSERT INTO t VALUES (42)");
+          }
+        try
+          {
+            // when
+            final var values = new ArrayList<Integer>();
+            final var failures = new ArrayList<SQLException>();
+            ReadOnlyRoutingDataSource.route(true, () ->
+              {
+                try (final var conn = dataSource.getConnection();
+                     final var stat = conn.createStatement())
+                  {
+                    try (final var rs = stat.executeQuery("SELECT v FROM t"))
+                      {
+                        rs.next();
+                        values.add(rs.getInt(1));
+                      }
+
+                    stat.executeUpdate("INSERT INTO t VALUES (43)");
+                  }
+                catch (SQLException e)
+                  {
+                    failures.add(e);
+                  }
+              });
+            // then
+            assertThat(values, is(List.of(42)));
+            assertThat(failures.size(), is(1));
+            log.info("Expected failure: {}", failures.get(0).getMessage());
+          }
+        finally
+          {
+            ((Closeable)dataSource).close();
+          }
       }
   }
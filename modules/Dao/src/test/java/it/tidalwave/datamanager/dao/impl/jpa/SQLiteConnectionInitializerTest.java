@@ -0,0 +1,177 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.dao.impl.jpa;
+
+import jakarta.annotation.Nonnull;
+import java.util.Map;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.env.MockEnvironment;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class SQLiteConnectionInitializerTest
+  {
+    /******************************************************************************************************************/
+    @Test(dataProvider = "propertiesAndPragmas")
+    public void must_apply_pragmas (@Nonnull final Map<String, String> properties,
+                                    @Nonnull final Map<String, String> expectedPragmas)
+            throws IOException, SQLException
+      {
+        // given
+        final var dbFile = Files.createTempFile(Path.of("target"), "sqlite-tuning", ".db");
+        final var environment = new MockEnvironment();
+        properties.forEach((k, v) -> environment.setProperty(SQLiteProperties.PREFIX + "." + k, v));
+        final var underTest = new SQLiteConnectionInitializer();
+        underTest.setEnvironment(environment);
+        // when
+        final var dataSource = (DataSource)underTest.postProcessAfterInitialization(
+                new DriverManagerDataSource("jdbc:sqlite:" + dbFile), "dataSource");
+        // then
+        try (final var connection = dataSource.getConnection())
+          {
+            for (final var pragma : expectedPragmas.entrySet())
+              {
+                assertThat(pragma.getKey(), query(connection, pragma.getKey()), is(pragma.getValue()));
+              }
+          }
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "invalidProperties", expectedExceptions = IllegalArgumentException.class)
+    public void must_reject_invalid_pragma_values (@Nonnull final String name, @Nonnull final String value)
+      {
+        // given
+        final var environment = new MockEnvironment();
+        environment.setProperty(SQLiteProperties.PREFIX + "." + name, value);
+        final var underTest = new SQLiteConnectionInitializer();
+        // when
+        underTest.setEnvironment(environment);
+      }
+
+    /******************************************************************************************************************/
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void must_reject_unknown_pragmas()
+      {
+        SQLiteProperties.checkPragma("foo", "1");
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "urlsAndDecorations")
+    public void must_only_decorate_SQLite_data_sources (@Nonnull final String url, final boolean expectedDecoration)
+      {
+        // given
+        final var underTest = new SQLiteConnectionInitializer();
+        underTest.setEnvironment(new MockEnvironment());
+        final var dataSource = new DriverManagerDataSource(url);
+        // when
+        final var actualDataSource = underTest.postProcessAfterInitialization(dataSource, "dataSource");
+        // then
+        assertThat(actualDataSource != dataSource, is(expectedDecoration));
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private static String query (@Nonnull final Connection connection, @Nonnull final String pragma)
+            throws SQLException
+      {
+        try (final var statement = connection.createStatement();
+             final var resultSet = statement.executeQuery("PRAGMA " + pragma))
+          {
+            resultSet.next();
+            return resultSet.getString(1);
+          }
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] invalidProperties()
+      {
+        return new Object[][]
+          {
+            { "journal-mode",   "wal; DROP TABLE files"  },
+            { "synchronous",    "sometimes"              },
+            { "temp-store",     "memory --"              }
+          };
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] urlsAndDecorations()
+      {
+        return new Object[][]
+          {
+            { "jdbc:sqlite:target/test.db",         true  },
+            { "jdbc:p6spy:sqlite:target/test.db",   true  },
+            { "jdbc:h2:mem:test",                   false },
+            { "jdbc:postgresql://localhost/test",   false }
+          };
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] propertiesAndPragmas()
+      {
+        return new Object[][]
+          {
+            // synchronous: 0 = off, 1 = normal, 2 = full; temp_store: 0 = default, 1 = file, 2 = memory
+            { Map.of(),
+              Map.of("journal_mode", "wal",
+                     "synchronous", "1",
+                     "cache_size", "-65536",
+                     "mmap_size", "1073741824",
+                     "temp_store", "2",
+                     "busy_timeout", "5000") },
+            { Map.of("preset", "bulk-ingest"),
+              Map.of("journal_mode", "wal",
+                     "cache_size", "-262144",
+                     "mmap_size", "0",
+                     "busy_timeout", "30000",
+                     "wal_autocheckpoint", "10000",
+                     "journal_size_limit", "67108864") },
+            { Map.of("preset", "bulk-ingest", "synchronous", "full", "cache-size", "16MB"),
+              Map.of("synchronous", "2",
+                     "cache_size", "-16384") },
+            { Map.of("preset", "driver-defaults"),
+              Map.of("journal_mode", "delete",
+                     "synchronous", "2",
+                     "temp_store", "0") }
+          };
+      }
+  }
@@ -10,6 +10,7 @@ import java.time.LocalDateTime;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
+import java.util.UUID;
 import java.util.function.IntFunction;
 import java.util.stream.IntStream;
 import java.io.IOException;
@@ -54,12 +55,12 @@ public class TestEntityFactory
 
     /******************************************************************************************************************/
     @Nonnull
-    public FingerprintEntity createFingerprintEntity (@Nonnull final String fileId)
+    public FingerprintEntity createFingerprintEntity (@Nonnull final UUID fileId)
       {
-        return new FingerprintEntity(idFactory.createId().stringValue(),
+        return new FingerprintEntity(createId(),
                                      "name",
                                      "md5",
-                                     "fingerprint",
+                                     Utilities.fingerprintOfString("md5", "name"),
                                      timestampSequence.next(),
                                      fileId);
       }
@@ -68,12 +69,11 @@ public class TestEntityFactory
     @Nonnull
     public ManagedFileEntity createManagedFileEntity (@Nonnull final String path, final int fingerprintCount)
       {
-        final var entity = new ManagedFileEntity(idFactory.createId().stringValue(), path, List.of());
+        final var entity = new ManagedFileEntity(createId(), path, List.of());
         final var algorithm = "md5";
-        final var bytes = Utilities.fingerprintOfString(algorithm, path);
-        final var fingerprint = Utilities.fingerprintToString(bytes);
+        final var fingerprint = Utilities.fingerprintOfString(algorithm, path);
         final var name = Path.of(path).getFileName().toString();
-        final IntFunction<FingerprintEntity> fp = __ -> new FingerprintEntity(idFactory.createId().stringValue(),
+        final IntFunction<FingerprintEntity> fp = __ -> new FingerprintEntity(createId(),
                                                                               name,
                                                                               algorithm,
                                                                               fingerprint,
@@ -103,7 +103,7 @@ public class TestEntityFactory
                                             @Nonnull final List<? extends ManagedFileEntity> managedFileEntities,
                                             final int maxBackupFiles)
       {
-        final var entity = new BackupEntity(idFactory.createId().stringValue(),
+        final var entity = new BackupEntity(createId(),
                                             "Label #" + i,
                                             idFactory.createId().stringValue(),
                                             i % 2 == 0,
@@ -119,7 +119,7 @@ public class TestEntityFactory
             entity.setBackupFiles(IntStream.rangeClosed(1, maxBackupFiles).mapToObj(__ ->
               {
                 final var managedFileEntity = managedFileEntities.get(index.next());
-                return new BackupFileEntity(idFactory.createId().stringValue(),
+                return new BackupFileEntity(createId(),
                                             entity,
                                             managedFileEntity,
                                             managedFileEntity.getPath());
@@ -134,12 +134,19 @@ public class TestEntityFactory
     public BackupFileEntity createBackupFileEntity (@Nonnull final ManagedFileEntity managedFile)
       {
         final var backupEntity =  createBackupEntity(1, List.of(), 1);
-        return new BackupFileEntity(idFactory.createId().stringValue(),
+        return new BackupFileEntity(createId(),
                                     backupEntity,
                                     managedFile,
                                     "path");
       }
 
+    /******************************************************************************************************************/
+    @Nonnull
+    private UUID createId()
+      {
+        return UUID.fromString(idFactory.createId().stringValue());
+      }
+
     /******************************************************************************************************************/
     public void dumpToYaml (@Nonnull final Object object, @Nonnull final Path path)
             throws IOException
@@ -26,8 +26,21 @@
  */
 package it.tidalwave.datamanager.dao;
 
+import javax.annotation.Nonnegative;
 import jakarta.annotation.Nonnull;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.nio.file.Path;
+import it.tidalwave.util.Id;
+import it.tidalwave.datamanager.model.BackupRegistration;
 import it.tidalwave.datamanager.model.DataManager;
+import it.tidalwave.datamanager.model.DuplicateCriteria;
+import it.tidalwave.datamanager.model.DuplicateGroup;
+import it.tidalwave.datamanager.model.FileState;
+import it.tidalwave.datamanager.model.ScannedFile;
 
 /***********************************************************************************************************************
  *
@@ -58,4 +71,62 @@ public interface DataManagerDao
      ******************************************************************************************************************/
     @Nonnull
     public DataManager.BackupFinder findBackups();
+
+    /*******************************************************************************************************************
+     *
+     * Finds the groups of managed files with the same contents, sorted by fingerprint. Only the latest fingerprint of
+     * each file is considered. The returned {@link Stream} must be closed after use.
+     *
+     * @param     criteria        the criteria for selecting files
+     * @return                    the groups of duplicates
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public Stream<DuplicateGroup> findDuplicates (@Nonnull final DuplicateCriteria criteria);
+
+    /*******************************************************************************************************************
+     *
+     * Finds the states of files recorded by the latest scan.
+     *
+     * @param     paths           the paths of the files
+     * @return                    the states, by path; files never scanned are not included
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public Map<Path, FileState> findFileStates (@Nonnull final Collection<Path> paths);
+
+    /*******************************************************************************************************************
+     *
+     * Registers scanned files. Files that are not in the catalog yet are added as new managed files; the state of each
+     * file is updated; a fingerprint is added only if it differs from the latest one with the same algorithm.
+     *
+     * @param     scannedFiles    the scanned files
+     * @return                    the number of new fingerprints
+     *
+     ******************************************************************************************************************/
+    @Nonnegative
+    public int registerScannedFiles (@Nonnull final List<ScannedFile> scannedFiles);
+
+    /*******************************************************************************************************************
+     *
+     * Registers a new backup and its files, in a single transaction. Files whose managed file is not in the catalog yet
+     * are added too.
+     *
+     * @param     registration    the backup to register
+     * @return                    the id of the new backup
+     * @throws    IllegalArgumentException  if a backup with the same label or volume id already exists
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public Id registerBackup (@Nonnull final BackupRegistration registration);
+
+    /*******************************************************************************************************************
+     *
+     * Updates the latest check date of a backup.
+     *
+     * @param     backupId        the id of the backup
+     * @param     checkDate       the check date
+     *
+     ******************************************************************************************************************/
+    public void updateLatestCheckDate (@Nonnull final Id backupId, @Nonnull final LocalDateTime checkDate);
   }
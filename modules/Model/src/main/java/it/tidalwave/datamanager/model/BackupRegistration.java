@@ -0,0 +1,90 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.model;
+
+import jakarta.annotation.Nonnull;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.nio.file.Path;
+import it.tidalwave.util.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import static lombok.AccessLevel.PRIVATE;
+
+/***********************************************************************************************************************
+ *
+ * The data for registering a new {@link Backup}, together with its files.
+ *
+ * @stereotype  Model
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Builder @Getter @EqualsAndHashCode @ToString @AllArgsConstructor(access = PRIVATE)
+public final class BackupRegistration
+  {
+    /*******************************************************************************************************************
+     * A file in the backup, which is a copy of a {@link ManagedFile}.
+     ******************************************************************************************************************/
+    @RequiredArgsConstructor(staticName = "of") @Getter @EqualsAndHashCode @ToString
+    public static final class Item
+      {
+        /** The path of the file in the backup. */
+        @Nonnull
+        private final Path path;
+
+        /** The path of the {@link ManagedFile}; if it's not in the catalog yet, it's added. */
+        @Nonnull
+        private final Path managedFilePath;
+      }
+
+    /** The label of the backup. */
+    @Nonnull
+    private final String label;
+
+    /** The volume id of the backup. */
+    @Nonnull
+    private final Id volumeId;
+
+    /** Whether the backup is encrypted. */
+    private final boolean encrypted;
+
+    /** The base path of the files in the backup. */
+    @Nonnull
+    private final Path basePath;
+
+    /** The timestamp of backup creation. */
+    @Nonnull
+    private final LocalDateTime creationDate;
+
+    /** The files in the backup. */
+    @Nonnull @ToString.Exclude
+    private final List<Item> items;
+  }
@@ -28,6 +28,10 @@ package it.tidalwave.datamanager.model;
 
 import jakarta.annotation.Nonnull;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.nio.file.Path;
+import it.tidalwave.util.Id;
 import it.tidalwave.util.spi.ExtendedFinderSupport;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -42,6 +46,18 @@ import lombok.RequiredArgsConstructor;
  **********************************************************************************************************************/
 public interface DataManager
   {
+    /*******************************************************************************************************************
+     * The ways a folder can be scanned.
+     ******************************************************************************************************************/
+    public static enum ScanMode
+      {
+        /** All files are fingerprinted. */
+        FULL,
+
+        /** Only files that are new or whose {@link FileState} changed since the last scan are fingerprinted. */
+        INCREMENTAL
+      }
+
     /*******************************************************************************************************************
      * A {@link it.tidalwave.util.Finder} for querying {@link ManagedFile}s.
      ******************************************************************************************************************/
@@ -77,6 +93,63 @@ public interface DataManager
           {
             return withFingerprint(Optional.of(fingerprint));
           }
+
+        /***************************************************************************************************************
+         * Specifies that returned {@link ManagedFile}s must have a path matching the given regular expression, which
+         * must match the whole path.
+         * @param     regex         the regular expression
+         * @return                  the same finder in fluent style
+         **************************************************************************************************************/
+        @Nonnull
+        public ManagedFileFinder withPathMatching (@Nonnull final Optional<String> regex);
+
+        /***************************************************************************************************************
+         * Specifies that returned {@link ManagedFile}s must have a path matching the given regular expression, which
+         * must match the whole path.
+         * @param     regex         the regular expression
+         * @return                  the same finder in fluent style
+         **************************************************************************************************************/
+        @Nonnull
+        public default ManagedFileFinder withPathMatching (@Nonnull final String regex)
+          {
+            return withPathMatching(Optional.of(regex));
+          }
+
+        /***************************************************************************************************************
+         * Specifies that returned {@link ManagedFile}s must follow the given one, according to the sorting by
+         * {@link SortingKeys#PATH}. This is a keyset pagination whose cost, differently than {@code from()}, doesn't
+         * depend on the position of the page.
+         * The finder must be either unsorted, in which case the ascending order is used, or only sorted by
+         * {@link SortingKeys#PATH}; otherwise an {@link IllegalStateException} is thrown when results are retrieved.
+         * @param     lastSeen      the last {@link ManagedFile} of the previous page
+         * @return                  the same finder in fluent style
+         **************************************************************************************************************/
+        @Nonnull
+        public ManagedFileFinder startingAfter (@Nonnull final Optional<ManagedFile> lastSeen);
+
+        /***************************************************************************************************************
+         * Specifies that returned {@link ManagedFile}s must follow the given one, according to the sorting by
+         * {@link SortingKeys#PATH}. This is a keyset pagination whose cost, differently than {@code from()}, doesn't
+         * depend on the position of the page.
+         * The finder must be either unsorted, in which case the ascending order is used, or only sorted by
+         * {@link SortingKeys#PATH}; otherwise an {@link IllegalStateException} is thrown when results are retrieved.
+         * @param     lastSeen      the last {@link ManagedFile} of the previous page
+         * @return                  the same finder in fluent style
+         **************************************************************************************************************/
+        @Nonnull
+        public default ManagedFileFinder startingAfter (@Nonnull final ManagedFile lastSeen)
+          {
+            return startingAfter(Optional.of(lastSeen));
+          }
+
+        /***************************************************************************************************************
+         * Returns whether there is at least one {@link ManagedFile} matching the criteria.
+         * @return                  {@code true} if there is at least one {@code ManagedFile}
+         **************************************************************************************************************/
+        public default boolean exists()
+          {
+            return count() > 0;
+          }
       }
 
     /*******************************************************************************************************************
@@ -119,6 +192,42 @@ public interface DataManager
          **************************************************************************************************************/
         @Nonnull
         public BackupFinder withFileId (@Nonnull final Optional<String> fileId);
+
+        /***************************************************************************************************************
+         * Specifies that returned {@link Backup}s must follow the given one, according to the sorting by
+         * {@link SortingKeys#LABEL}. This is a keyset pagination whose cost, differently than {@code from()}, doesn't
+         * depend on the position of the page.
+         * The finder must be either unsorted, in which case the ascending order is used, or only sorted by
+         * {@link SortingKeys#LABEL}; otherwise an {@link IllegalStateException} is thrown when results are retrieved.
+         * @param     lastSeen      the last {@link Backup} of the previous page
+         * @return                  the same finder in fluent style
+         **************************************************************************************************************/
+        @Nonnull
+        public BackupFinder startingAfter (@Nonnull final Optional<Backup> lastSeen);
+
+        /***************************************************************************************************************
+         * Specifies that returned {@link Backup}s must follow the given one, according to the sorting by
+         * {@link SortingKeys#LABEL}. This is a keyset pagination whose cost, differently than {@code from()}, doesn't
+         * depend on the position of the page.
+         * The finder must be either unsorted, in which case the ascending order is used, or only sorted by
+         * {@link SortingKeys#LABEL}; otherwise an {@link IllegalStateException} is thrown when results are retrieved.
+         * @param     lastSeen      the last {@link Backup} of the previous page
+         * @return                  the same finder in fluent style
+         **************************************************************************************************************/
+        @Nonnull
+        public default BackupFinder startingAfter (@Nonnull final Backup lastSeen)
+          {
+            return startingAfter(Optional.of(lastSeen));
+          }
+
+        /***************************************************************************************************************
+         * Returns whether there is at least one {@link Backup} matching the criteria.
+         * @return                  {@code true} if there is at least one {@code Backup}
+         **************************************************************************************************************/
+        public default boolean exists()
+          {
+            return count() > 0;
+          }
       }
 
     /*******************************************************************************************************************
@@ -140,4 +249,58 @@ public interface DataManager
      ******************************************************************************************************************/
     @Nonnull
     public BackupFinder findBackups();
+
+    /*******************************************************************************************************************
+     *
+     * Finds the groups of {@link ManagedFile}s with the same contents, sorted by fingerprint. Only the latest
+     * fingerprint of each file is considered. The returned {@link Stream} must be closed after use.
+     *
+     * @param     criteria  the criteria for selecting files
+     * @return              the groups of duplicates
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public Stream<DuplicateGroup> findDuplicates (@Nonnull final DuplicateCriteria criteria);
+
+    /*******************************************************************************************************************
+     *
+     * Scans a folder and its subfolders, fingerprinting the regular files and registering the fingerprints in the
+     * catalog. A new fingerprint is registered only when the contents of a file changed. Symbolic links are not
+     * followed.
+     *
+     * @param     folder    the folder to scan
+     * @param     mode      the scan mode
+     * @return              the outcome of the scan
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public ScanResult scan (@Nonnull final Path folder, @Nonnull final ScanMode mode);
+
+    /*******************************************************************************************************************
+     *
+     * Registers a new backup and its files. Files whose {@link ManagedFile} is not in the catalog yet are added too.
+     * The registration is atomic: in case of error nothing is registered.
+     *
+     * @param     registration    the backup to register
+     * @return                    the id of the new backup
+     * @throws    IllegalArgumentException  if a backup with the same label or volume id already exists
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public Id registerBackup (@Nonnull final BackupRegistration registration);
+
+    /*******************************************************************************************************************
+     *
+     * Verifies a backup, rehashing its files and comparing them with the latest fingerprints of the related
+     * {@link ManagedFile}s. Issues are reported as soon as they are found; at the end the latest check date of the
+     * backup is updated.
+     *
+     * @param     backup          the backup
+     * @param     issueConsumer   the consumer of issues
+     * @return                    the outcome of the verification
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public VerificationResult verifyBackup (@Nonnull final Backup backup,
+                                            @Nonnull final Consumer<? super VerificationIssue> issueConsumer);
   }
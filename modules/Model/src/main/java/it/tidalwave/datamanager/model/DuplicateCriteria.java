@@ -0,0 +1,75 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.model;
+
+import jakarta.annotation.Nonnull;
+import java.util.Optional;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Builder.Default;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import static lombok.AccessLevel.PRIVATE;
+
+/***********************************************************************************************************************
+ *
+ * The criteria for searching {@link DuplicateGroup}s. When a size limit is specified, files whose size is unknown,
+ * because they haven't been scanned since sizes are recorded, are not considered.
+ *
+ * @stereotype  Model
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Builder @Getter @EqualsAndHashCode @ToString @AllArgsConstructor(access = PRIVATE)
+public final class DuplicateCriteria
+  {
+    /** Only files at least this large are considered. */
+    @Nonnull @Default
+    private final Optional<Long> minSize = Optional.empty();
+
+    /** Only files at most this large are considered. */
+    @Nonnull @Default
+    private final Optional<Long> maxSize = Optional.empty();
+
+    /** Only files whose path starts with this prefix are considered. */
+    @Nonnull @Default
+    private final Optional<String> pathPrefix = Optional.empty();
+
+    /*******************************************************************************************************************
+     *
+     * Returns criteria that consider all the files.
+     *
+     * @return    the criteria
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public static DuplicateCriteria all()
+      {
+        return builder().build();
+      }
+  }
@@ -0,0 +1,79 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.model;
+
+import javax.annotation.Nonnegative;
+import jakarta.annotation.Nonnull;
+import java.util.List;
+import java.util.Optional;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import static lombok.AccessLevel.PRIVATE;
+
+/***********************************************************************************************************************
+ *
+ * A group of {@link ManagedFile}s with the same contents, that is whose latest fingerprints are the same.
+ *
+ * @stereotype  Model
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Builder @Getter @EqualsAndHashCode @ToString @AllArgsConstructor(access = PRIVATE)
+public final class DuplicateGroup
+  {
+    /** The algorithm of the shared fingerprint. */
+    @Nonnull
+    private final String algorithm;
+
+    /** The shared fingerprint. */
+    @Nonnull
+    private final String fingerprint;
+
+    /** The size of each file, if known. */
+    @Nonnull
+    private final Optional<Long> size;
+
+    /** The files, sorted by path. */
+    @Nonnull
+    private final List<ManagedFile> managedFiles;
+
+    /*******************************************************************************************************************
+     *
+     * Returns the number of bytes that would be freed by keeping a single copy of the file.
+     *
+     * @return    the number of bytes, or zero if the size is unknown
+     *
+     ******************************************************************************************************************/
+    @Nonnegative
+    public long getRedundantByteCount()
+      {
+        return size.orElse(0L) * (managedFiles.size() - 1);
+      }
+  }
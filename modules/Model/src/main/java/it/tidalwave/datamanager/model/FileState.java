@@ -0,0 +1,80 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.model;
+
+import javax.annotation.Nonnegative;
+import jakarta.annotation.Nonnull;
+import java.time.Instant;
+import java.util.Optional;
+import java.nio.file.attribute.BasicFileAttributes;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import static lombok.AccessLevel.PRIVATE;
+
+/***********************************************************************************************************************
+ *
+ * The metadata of a file that tell whether it might have been changed since the last scan: if they are equal, the file
+ * is assumed to be unchanged and it's not fingerprinted again.
+ *
+ * @stereotype  Model
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Builder @Getter @EqualsAndHashCode @ToString @AllArgsConstructor(access = PRIVATE)
+public final class FileState
+  {
+    /** The size in bytes. */
+    @Nonnegative
+    private final long size;
+
+    /** The last modification time, with millisecond precision. */
+    @Nonnull
+    private final Instant lastModified;
+
+    /** The key that identifies the file in the filesystem, such as device and inode on Unix. */
+    @Nonnull
+    private final Optional<String> fileKey;
+
+    /*******************************************************************************************************************
+     *
+     * Creates an instance from the attributes of a file.
+     *
+     * @param     attributes    the attributes
+     * @return                  the state
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public static FileState of (@Nonnull final BasicFileAttributes attributes)
+      {
+        return new FileState(attributes.size(),
+                             Instant.ofEpochMilli(attributes.lastModifiedTime().toMillis()),
+                             Optional.ofNullable(attributes.fileKey()).map(Object::toString));
+      }
+  }
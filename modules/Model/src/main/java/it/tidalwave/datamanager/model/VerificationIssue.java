@@ -0,0 +1,91 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.model;
+
+import jakarta.annotation.Nonnull;
+import java.util.Optional;
+import java.nio.file.Path;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Builder.Default;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import static lombok.AccessLevel.PRIVATE;
+
+/***********************************************************************************************************************
+ *
+ * A problem found while verifying a {@link BackupFile}.
+ *
+ * @stereotype  Model
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Builder @Getter @EqualsAndHashCode @ToString @AllArgsConstructor(access = PRIVATE)
+public final class VerificationIssue
+  {
+    /*******************************************************************************************************************
+     * The kinds of problems.
+     ******************************************************************************************************************/
+    public static enum Kind
+      {
+        /** The file is not in the backup. */
+        MISSING,
+
+        /** The contents of the file don't match the latest fingerprint. */
+        MISMATCH,
+
+        /** The file couldn't be read. */
+        UNREADABLE,
+
+        /** There's no fingerprint to verify the file against. */
+        NO_FINGERPRINT
+      }
+
+    @Nonnull
+    private final Kind kind;
+
+    /** The verified backup file. */
+    @Nonnull @ToString.Exclude
+    private final BackupFile backupFile;
+
+    /** The actual path of the file, resolved under the base path of the backup. */
+    @Nonnull
+    private final Path path;
+
+    /** The latest fingerprint of the managed file. */
+    @Nonnull @Default
+    private final Optional<String> expectedFingerprint = Optional.empty();
+
+    /** The fingerprint of the file in the backup. */
+    @Nonnull @Default
+    private final Optional<String> actualFingerprint = Optional.empty();
+
+    /** The reason why the file couldn't be read. */
+    @Nonnull @Default
+    private final Optional<String> cause = Optional.empty();
+  }
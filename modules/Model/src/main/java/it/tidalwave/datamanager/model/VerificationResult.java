@@ -0,0 +1,76 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.model;
+
+import javax.annotation.Nonnegative;
+import jakarta.annotation.Nonnull;
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import static lombok.AccessLevel.PRIVATE;
+
+/***********************************************************************************************************************
+ *
+ * The outcome of the verification of a {@link Backup}.
+ *
+ * @stereotype  Model
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Builder @Getter @EqualsAndHashCode @ToString @AllArgsConstructor(access = PRIVATE)
+public final class VerificationResult
+  {
+    /** The number of files that have been verified. */
+    @Nonnegative
+    private final int fileCount;
+
+    /** The number of files that are fine. */
+    @Nonnegative
+    private final int okCount;
+
+    /** The number of files with issues. */
+    @Nonnegative
+    private final int issueCount;
+
+    @Nonnull
+    private final Duration elapsedTime;
+
+    /*******************************************************************************************************************
+     *
+     * Tells whether all files are fine.
+     *
+     * @return    {@code true} if no issue has been found
+     *
+     ******************************************************************************************************************/
+    public boolean isSuccessful()
+      {
+        return issueCount == 0;
+      }
+  }
@@ -0,0 +1,309 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.model.impl;
+
+import javax.annotation.Nonnegative;
+import jakarta.annotation.Nonnull;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import it.tidalwave.datamanager.model.Backup;
+import it.tidalwave.datamanager.model.BackupFile;
+import it.tidalwave.datamanager.model.Fingerprint;
+import it.tidalwave.datamanager.model.VerificationIssue;
+import it.tidalwave.datamanager.model.VerificationResult;
+import it.tidalwave.datamanager.dao.DataManagerDao;
+import it.tidalwave.datamanager.util.Utilities;
+import lombok.extern.slf4j.Slf4j;
+import static it.tidalwave.datamanager.model.VerificationIssue.Kind.*;
+import static it.tidalwave.datamanager.util.Utilities.fingerprintToString;
+
+/***********************************************************************************************************************
+ *
+ * Verifies backups by rehashing their files. Files are hashed in parallel by a pool of threads whose size can be tuned
+ * by the {@code solidblue3.verification.parallelism} property, which bounds the I/O concurrency; files are submitted in
+ * the order of their paths, so each thread reads the disk mostly sequentially. Failures in reading a file, including
+ * the faults of memory-mapped reads from failing media, are reported as {@link VerificationIssue.Kind#UNREADABLE} and
+ * don't stop the verification.
+ *
+ * @stereotype  Business Controller
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Component @Slf4j
+public class BackupVerifier
+  {
+    @Nonnull
+    private final DataManagerDao dao;
+
+    @Nonnegative
+    private final int parallelism;
+
+    @Nonnull
+    private final Fingerprinter fingerprinter;
+
+    /*******************************************************************************************************************
+     *
+     * Computes the fingerprint of a file.
+     *
+     ******************************************************************************************************************/
+    @FunctionalInterface
+    static interface Fingerprinter
+      {
+        @Nonnull
+        public byte[] fingerprintOf (@Nonnull String algorithm, @Nonnull Path path)
+                throws IOException;
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Autowired
+    public BackupVerifier (@Nonnull final DataManagerDao dao,
+                           @Value("${solidblue3.verification.parallelism:4}") @Nonnegative final int parallelism)
+      {
+        this(dao, parallelism, Utilities::fingerprintOfFile);
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    BackupVerifier (@Nonnull final DataManagerDao dao,
+                    @Nonnegative final int parallelism,
+                    @Nonnull final Fingerprinter fingerprinter)
+      {
+        if (parallelism < 1)
+          {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+          }
+
+        this.dao = dao;
+        this.parallelism = parallelism;
+        this.fingerprinter = fingerprinter;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Verifies a backup. Issues are passed to the consumer, always in the calling thread, as soon as they are found.
+     * If the verification completes, the latest check date of the backup is updated.
+     *
+     * @param     backup          the backup
+     * @param     issueConsumer   the consumer of issues
+     * @return                    the outcome of the verification
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public VerificationResult verify (@Nonnull final Backup backup,
+                                      @Nonnull final Consumer<? super VerificationIssue> issueConsumer)
+      {
+        log.info("verify({}) - parallelism: {}", backup.getLabel(), parallelism);
+        final var threadCounter = new AtomicInteger();
+        final var executor = Executors.newFixedThreadPool(parallelism, runnable ->
+          {
+            final var thread = new Thread(runnable, "verifier-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+
+        try
+          {
+            final var verification = new Verification(backup, issueConsumer,
+                                                      new ExecutorCompletionService<>(executor));
+            final var result = verification.run();
+            dao.updateLatestCheckDate(backup.getId(), LocalDateTime.now());
+            return result;
+          }
+        catch (InterruptedException e)
+          {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+          }
+        finally
+          {
+            executor.shutdownNow();
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * The state of a running verification.
+     *
+     ******************************************************************************************************************/
+    private class Verification
+      {
+        private final Instant startTime = Instant.now();
+
+        private final int maxPending = parallelism * 2;
+
+        @Nonnull
+        private final Backup backup;
+
+        @Nonnull
+        private final Consumer<? super VerificationIssue> issueConsumer;
+
+        @Nonnull
+        private final CompletionService<Optional<VerificationIssue>> completionService;
+
+        private int pending;
+
+        private int fileCount;
+
+        private int issueCount;
+
+        public Verification (@Nonnull final Backup backup,
+                             @Nonnull final Consumer<? super VerificationIssue> issueConsumer,
+                             @Nonnull final CompletionService<Optional<VerificationIssue>> completionService)
+          {
+            this.backup = backup;
+            this.issueConsumer = issueConsumer;
+            this.completionService = completionService;
+          }
+
+        @Nonnull
+        public VerificationResult run()
+                throws InterruptedException
+          {
+            for (final var backupFile : backup.getBackupFiles())
+              {
+                final var path = resolve(backup.getBasePath(), backupFile.getPath());
+                final var fingerprints = backupFile.getManagedFile().getFingerprints();
+
+                if (fingerprints.isEmpty())
+                  {
+                    fileCount++;
+                    report(VerificationIssue.builder().kind(NO_FINGERPRINT).backupFile(backupFile).path(path).build());
+                  }
+                else
+                  {
+                    while (pending >= maxPending)
+                      {
+                        collect();
+                      }
+
+                    final var expected = fingerprints.get(fingerprints.size() - 1);
+                    completionService.submit(() -> verify(backupFile, path, expected));
+                    pending++;
+                  }
+              }
+
+            while (pending > 0)
+              {
+                collect();
+              }
+
+            return VerificationResult.builder()
+                                     .fileCount(fileCount)
+                                     .okCount(fileCount - issueCount)
+                                     .issueCount(issueCount)
+                                     .elapsedTime(Duration.between(startTime, Instant.now()))
+                                     .build();
+          }
+
+        private void collect()
+                throws InterruptedException
+          {
+            final var future = completionService.take();
+            pending--;
+            fileCount++;
+
+            try
+              {
+                future.get().ifPresent(this::report);
+              }
+            catch (ExecutionException e)
+              {
+                // verify() reports all the failures of reading files, so this is a bug or a fatal error
+                throw new RuntimeException(e.getCause());
+              }
+          }
+
+        private void report (@Nonnull final VerificationIssue issue)
+          {
+            log.debug(">>>> {}", issue);
+            issueCount++;
+            issueConsumer.accept(issue);
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Rehashes a single file and compares it with the expected fingerprint. Besides {@link IOException}s, a read of a
+     * memory-mapped file fails with an {@link InternalError} when the media is faulty, and an unsupported algorithm
+     * causes a {@link RuntimeException}: all of them are reported as the file being unreadable.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private Optional<VerificationIssue> verify (@Nonnull final BackupFile backupFile,
+                                                       @Nonnull final Path path,
+                                                       @Nonnull final Fingerprint expected)
+      {
+        final var issue = VerificationIssue.builder()
+                                           .backupFile(backupFile)
+                                           .path(path)
+                                           .expectedFingerprint(Optional.of(expected.getFingerprint()));
+        try
+          {
+            final var actual = fingerprintToString(fingerprinter.fingerprintOf(expected.getAlgorithm(), path));
+            return actual.equals(expected.getFingerprint())
+                   ? Optional.empty()
+                   : Optional.of(issue.kind(MISMATCH).actualFingerprint(Optional.of(actual)).build());
+          }
+        catch (NoSuchFileException e)
+          {
+            return Optional.of(issue.kind(MISSING).build());
+          }
+        catch (IOException | RuntimeException | InternalError e)
+          {
+            log.warn("Cannot read {}: {}", path, e.toString());
+            return Optional.of(issue.kind(UNREADABLE).cause(Optional.of(e.toString())).build());
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Resolves the path of a backup file under the base path of the backup, even when it has been recorded as absolute.
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    static Path resolve (@Nonnull final Path basePath, @Nonnull final Path path)
+      {
+        return basePath.resolve(path.isAbsolute() ? path.getRoot().relativize(path) : path);
+      }
+  }
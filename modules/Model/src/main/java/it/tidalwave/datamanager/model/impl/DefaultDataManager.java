@@ -27,9 +27,21 @@
 package it.tidalwave.datamanager.model.impl;
 
 import jakarta.annotation.Nonnull;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.nio.file.Path;
 import org.springframework.stereotype.Component;
-import jakarta.transaction.Transactional;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import it.tidalwave.util.Id;
+import it.tidalwave.datamanager.model.Backup;
+import it.tidalwave.datamanager.model.BackupRegistration;
 import it.tidalwave.datamanager.model.DataManager;
+import it.tidalwave.datamanager.model.DuplicateCriteria;
+import it.tidalwave.datamanager.model.DuplicateGroup;
+import it.tidalwave.datamanager.model.ScanResult;
+import it.tidalwave.datamanager.model.VerificationIssue;
+import it.tidalwave.datamanager.model.VerificationResult;
 import it.tidalwave.datamanager.dao.DataManagerDao;
 import lombok.RequiredArgsConstructor;
 
@@ -50,10 +62,19 @@ public class DefaultDataManager implements DataManager
     @Nonnull
     private final DataManagerDao dao;
 
+    @Nonnull
+    private final FingerprintingEngine fingerprintingEngine;
+
+    @Nonnull
+    private final BackupVerifier backupVerifier;
+
     /*******************************************************************************************************************
      * {@inheritDoc}
+     *
+     * Finders and streams run their queries in their own read-only transactions, so no transaction is begun here: it
+     * would be a read-write one, which takes a connection from the writer pool.
      ******************************************************************************************************************/
-    @Override @Nonnull
+    @Override @Nonnull @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ManagedFileFinder findManagedFiles()
       {
         return dao.findManagedFiles();
@@ -62,9 +83,50 @@ public class DefaultDataManager implements DataManager
     /*******************************************************************************************************************
      * {@inheritDoc}
      ******************************************************************************************************************/
-    @Override @Nonnull
+    @Override @Nonnull @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BackupFinder findBackups()
       {
         return dao.findBackups();
       }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Nonnull @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Stream<DuplicateGroup> findDuplicates (@Nonnull final DuplicateCriteria criteria)
+      {
+        return dao.findDuplicates(criteria);
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     *
+     * A scan can take hours, so it doesn't run in a single transaction: scanned files are registered in batches.
+     ******************************************************************************************************************/
+    @Override @Nonnull @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ScanResult scan (@Nonnull final Path folder, @Nonnull final ScanMode mode)
+      {
+        return fingerprintingEngine.scan(folder, mode);
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     ******************************************************************************************************************/
+    @Override @Nonnull
+    public Id registerBackup (@Nonnull final BackupRegistration registration)
+      {
+        return dao.registerBackup(registration);
+      }
+
+    /*******************************************************************************************************************
+     * {@inheritDoc}
+     *
+     * As with {@link #scan(Path, ScanMode)}, this doesn't run in a single transaction.
+     ******************************************************************************************************************/
+    @Override @Nonnull @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public VerificationResult verifyBackup (@Nonnull final Backup backup,
+                                            @Nonnull final Consumer<? super VerificationIssue> issueConsumer)
+      {
+        return backupVerifier.verify(backup, issueConsumer);
+      }
   }
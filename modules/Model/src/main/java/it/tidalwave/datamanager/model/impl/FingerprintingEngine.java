@@ -0,0 +1,329 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.model.impl;
+
+import javax.annotation.Nonnegative;
+import jakarta.annotation.Nonnull;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import it.tidalwave.datamanager.model.DataManager.ScanMode;
+import it.tidalwave.datamanager.model.FileState;
+import it.tidalwave.datamanager.model.ScanResult;
+import it.tidalwave.datamanager.model.ScannedFile;
+import it.tidalwave.datamanager.dao.DataManagerDao;
+import lombok.extern.slf4j.Slf4j;
+import static it.tidalwave.datamanager.util.Utilities.fingerprintOfFile;
+import static it.tidalwave.datamanager.util.Utilities.fingerprintToString;
+
+/***********************************************************************************************************************
+ *
+ * Scans folders and fingerprints the files they contain. Files are hashed in parallel by a pool of threads whose size
+ * can be tuned by the {@code solidblue3.fingerprinting.parallelism} property; the number of files in flight is bounded,
+ * so memory usage doesn't depend on the size of the folder. Results are registered in the catalog in batches, each one
+ * in its own transaction. Incremental scans only fingerprint files that are new or whose {@link FileState} changed, so
+ * unchanged files are not read at all.
+ *
+ * @stereotype  Business Controller
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+@Component @Slf4j
+public class FingerprintingEngine
+  {
+    /** The algorithm of the computed fingerprints. */
+    public static final String ALGORITHM = "md5";
+
+    /** The number of scanned files registered in the catalog in a single transaction. */
+    public static final int BATCH_SIZE = 500;
+
+    @Nonnull
+    private final DataManagerDao dao;
+
+    @Nonnegative
+    private final int parallelism;
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    public FingerprintingEngine (@Nonnull final DataManagerDao dao,
+                                 @Value("${solidblue3.fingerprinting.parallelism:4}") @Nonnegative final int parallelism)
+      {
+        if (parallelism < 1)
+          {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+          }
+
+        this.dao = dao;
+        this.parallelism = parallelism;
+      }
+
+    /*******************************************************************************************************************
+     *
+     * Scans a folder and its subfolders, fingerprinting the regular files. Symbolic links are not followed. In
+     * {@link ScanMode#INCREMENTAL} mode files whose {@link FileState} didn't change since the latest scan are skipped.
+     *
+     * @param     folder    the folder to scan
+     * @param     mode      the scan mode
+     * @return              the outcome of the scan
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    public ScanResult scan (@Nonnull final Path folder, @Nonnull final ScanMode mode)
+      {
+        log.info("scan({}, {}) - parallelism: {}", folder, mode, parallelism);
+        final var threadCounter = new AtomicInteger();
+        final var executor = Executors.newFixedThreadPool(parallelism, runnable ->
+          {
+            final var thread = new Thread(runnable, "fingerprinter-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+
+        try
+          {
+            final var scan = new Scan(mode, new ExecutorCompletionService<>(executor));
+            // Paths are registered as they are walked, so they must be absolute
+            Files.walkFileTree(folder.toAbsolutePath().normalize(), scan);
+            return scan.complete();
+          }
+        catch (IOException e)
+          {
+            throw new UncheckedIOException(e);
+          }
+        catch (InterruptedException e)
+          {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+          }
+        finally
+          {
+            executor.shutdownNow();
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     * The state of a running scan. Folders are walked and results are collected by the calling thread, so only the
+     * fingerprinting runs in parallel. Visited files are dispatched in batches, so in incremental mode their previous
+     * states are retrieved with a single query per batch.
+     *
+     ******************************************************************************************************************/
+    private class Scan extends SimpleFileVisitor<Path>
+      {
+        private final Instant startTime = Instant.now();
+
+        private final int maxPending = parallelism * 2;
+
+        private final Map<Path, FileState> candidates = new LinkedHashMap<>();
+
+        private final List<ScannedFile> batch = new ArrayList<>(BATCH_SIZE);
+
+        @Nonnull
+        private final ScanMode mode;
+
+        @Nonnull
+        private final CompletionService<ScannedFile> completionService;
+
+        private int pending;
+
+        private int fileCount;
+
+        private long byteCount;
+
+        private int skippedCount;
+
+        private int newFingerprintCount;
+
+        private int errorCount;
+
+        public Scan (@Nonnull final ScanMode mode, @Nonnull final CompletionService<ScannedFile> completionService)
+          {
+            this.mode = mode;
+            this.completionService = completionService;
+          }
+
+        @Override @Nonnull
+        public FileVisitResult visitFile (@Nonnull final Path file, @Nonnull final BasicFileAttributes attributes)
+          {
+            if (attributes.isRegularFile())
+              {
+                candidates.put(file, FileState.of(attributes));
+
+                if (candidates.size() >= BATCH_SIZE)
+                  {
+                    try
+                      {
+                        dispatch();
+                      }
+                    catch (InterruptedException e)
+                      {
+                        Thread.currentThread().interrupt();
+                        return FileVisitResult.TERMINATE;
+                      }
+                  }
+              }
+
+            return FileVisitResult.CONTINUE;
+          }
+
+        @Override @Nonnull
+        public FileVisitResult visitFileFailed (@Nonnull final Path file, @Nonnull final IOException e)
+          {
+            log.warn("Cannot read {}: {}", file, e.toString());
+            errorCount++;
+            return FileVisitResult.CONTINUE;
+          }
+
+        @Nonnull
+        public ScanResult complete()
+                throws InterruptedException
+          {
+            if (Thread.currentThread().isInterrupted())
+              {
+                throw new InterruptedException();
+              }
+
+            dispatch();
+
+            while (pending > 0)
+              {
+                collect();
+              }
+
+            flush();
+            return ScanResult.builder()
+                             .fileCount(fileCount)
+                             .byteCount(byteCount)
+                             .skippedCount(skippedCount)
+                             .newFingerprintCount(newFingerprintCount)
+                             .errorCount(errorCount)
+                             .elapsedTime(Duration.between(startTime, Instant.now()))
+                             .build();
+          }
+
+        private void dispatch()
+                throws InterruptedException
+          {
+            final var previousStates = (mode == ScanMode.INCREMENTAL) ? dao.findFileStates(candidates.keySet())
+                                                                      : Map.<Path, FileState>of();
+
+            for (final var entry : candidates.entrySet())
+              {
+                final var file = entry.getKey();
+                final var state = entry.getValue();
+
+                if (state.equals(previousStates.get(file)))
+                  {
+                    skippedCount++;
+                  }
+                else
+                  {
+                    while (pending >= maxPending)
+                      {
+                        collect();
+                      }
+
+                    completionService.submit(() -> fingerprint(file, state));
+                    pending++;
+                  }
+              }
+
+            candidates.clear();
+          }
+
+        private void collect()
+                throws InterruptedException
+          {
+            final var future = completionService.take();
+            pending--;
+
+            try
+              {
+                final var scannedFile = future.get();
+                fileCount++;
+                byteCount += scannedFile.getState().getSize();
+                batch.add(scannedFile);
+
+                if (batch.size() >= BATCH_SIZE)
+                  {
+                    flush();
+                  }
+              }
+            catch (ExecutionException e)
+              {
+                log.warn("Cannot fingerprint: {}", e.getCause().toString());
+                errorCount++;
+              }
+          }
+
+        private void flush()
+          {
+            if (!batch.isEmpty())
+              {
+                log.debug(">>>> registering {} scanned files", batch.size());
+                newFingerprintCount += dao.registerScannedFiles(List.copyOf(batch));
+                batch.clear();
+              }
+          }
+      }
+
+    /*******************************************************************************************************************
+     *
+     ******************************************************************************************************************/
+    @Nonnull
+    private static ScannedFile fingerprint (@Nonnull final Path file, @Nonnull final FileState state)
+            throws IOException
+      {
+        final var fingerprint = fingerprintToString(fingerprintOfFile(ALGORITHM, file));
+        return ScannedFile.builder()
+                          .path(file)
+                          .state(state)
+                          .algorithm(ALGORITHM)
+                          .fingerprint(fingerprint)
+                          .timestamp(LocalDateTime.now())
+                          .build();
+      }
+  }
@@ -0,0 +1,231 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.model.impl;
+
+import jakarta.annotation.Nonnull;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import it.tidalwave.util.Id;
+import it.tidalwave.datamanager.model.Backup;
+import it.tidalwave.datamanager.model.BackupFile;
+import it.tidalwave.datamanager.model.Fingerprint;
+import it.tidalwave.datamanager.model.ManagedFile;
+import it.tidalwave.datamanager.model.VerificationIssue;
+import it.tidalwave.datamanager.dao.DataManagerDao;
+import it.tidalwave.datamanager.util.Utilities;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import static java.util.Comparator.comparing;
+import static it.tidalwave.datamanager.model.VerificationIssue.Kind.*;
+import static it.tidalwave.datamanager.util.Utilities.fingerprintOfString;
+import static it.tidalwave.datamanager.util.Utilities.fingerprintToString;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class BackupVerifierTest
+  {
+    private DataManagerDao dao;
+
+    private Path basePath;
+
+    /******************************************************************************************************************/
+    @BeforeMethod
+    public void setup()
+            throws IOException
+      {
+        dao = mock(DataManagerDao.class);
+        basePath = Files.createTempDirectory("backup");
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "parallelism")
+    public void must_report_issues (final int parallelism)
+            throws IOException
+      {
+        // given
+        final var backupFiles = new ArrayList<BackupFileSpec>();
+        IntStream.range(0, 100).forEach(i -> backupFiles.add(new BackupFileSpec("ok/file-" + i, "contents " + i,
+                                                                                "contents " + i)));
+        backupFiles.add(new BackupFileSpec("changed", "original contents", "changed contents"));
+        backupFiles.add(new BackupFileSpec("missing", "contents", null));
+        backupFiles.add(new BackupFileSpec("no-fingerprint", null, "contents"));
+        final var backup = createBackup(backupFiles);
+        final var issues = new ArrayList<VerificationIssue>();
+        final var underTest = new BackupVerifier(dao, parallelism);
+        // when
+        final var actualResult = underTest.verify(backup, issues::add);
+        // then
+        issues.sort(comparing(i -> i.getPath().toString()));
+        assertThat(issues.stream().map(VerificationIssue::getKind).toList(), is(List.of(MISMATCH, MISSING,
+                                                                                          NO_FINGERPRINT)));
+        assertThat(issues.get(0).getPath(), is(basePath.resolve("changed")));
+        assertThat(issues.get(0).getExpectedFingerprint(), is(Optional.of(md5("original contents"))));
+        assertThat(issues.get(0).getActualFingerprint(), is(Optional.of(md5("changed contents"))));
+        assertThat(issues.get(1).getPath(), is(basePath.resolve("missing")));
+        assertThat(issues.get(1).getActualFingerprint(), is(Optional.empty()));
+        assertThat(actualResult.getFileCount(), is(103));
+        assertThat(actualResult.getOkCount(), is(100));
+        assertThat(actualResult.getIssueCount(), is(3));
+        assertThat(actualResult.isSuccessful(), is(false));
+        verify(dao).updateLatestCheckDate(eq(backup.getId()), any(LocalDateTime.class));
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "parallelism")
+    public void must_report_read_failures_and_go_on (final int parallelism)
+            throws IOException
+      {
+        // given
+        final var backupFiles = new ArrayList<BackupFileSpec>();
+        IntStream.range(0, 20).forEach(i -> backupFiles.add(new BackupFileSpec("ok/file-" + i, "contents " + i,
+                                                                               "contents " + i)));
+        backupFiles.add(new BackupFileSpec("faulty-media", "contents", "contents"));
+        backupFiles.add(new BackupFileSpec("io-error", "contents", "contents"));
+        backupFiles.add(new BackupFileSpec("unsupported", "contents", "contents"));
+        final var backup = createBackup(backupFiles);
+        final var issues = new ArrayList<VerificationIssue>();
+        final var underTest = new BackupVerifier(dao, parallelism, (algorithm, path) ->
+                switch (path.getFileName().toString())
+                  {
+                    case "faulty-media" -> throw new InternalError("a fault occurred in an unsafe memory access");
+                    case "io-error" -> throw new IOException("Input/output error");
+                    case "unsupported" -> throw new RuntimeException("unsupported algorithm");
+                    default -> Utilities.fingerprintOfFile(algorithm, path);
+                  });
+        // when
+        final var actualResult = underTest.verify(backup, issues::add);
+        // then
+        issues.sort(comparing(i -> i.getPath().toString()));
+        assertThat(issues.stream().map(VerificationIssue::getKind).toList(), is(List.of(UNREADABLE, UNREADABLE,
+                                                                                          UNREADABLE)));
+        assertThat(issues.stream().map(i -> i.getCause().orElseThrow()).toList(),
+                   is(List.of("java.lang.InternalError: a fault occurred in an unsafe memory access",
+                              "java.io.IOException: Input/output error",
+                              "java.lang.RuntimeException: unsupported algorithm")));
+        assertThat(actualResult.getFileCount(), is(23));
+        assertThat(actualResult.getOkCount(), is(20));
+        assertThat(actualResult.getIssueCount(), is(3));
+        verify(dao).updateLatestCheckDate(eq(backup.getId()), any(LocalDateTime.class));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_resolve_absolute_paths_under_the_base_path()
+      {
+        assertThat(BackupVerifier.resolve(Path.of("/base"), Path.of("/foo/bar")), is(Path.of("/base/foo/bar")));
+        assertThat(BackupVerifier.resolve(Path.of("/base"), Path.of("foo/bar")), is(Path.of("/base/foo/bar")));
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private Backup createBackup (@Nonnull final List<BackupFileSpec> specs)
+            throws IOException
+      {
+        for (final var spec : specs)
+          {
+            if (spec.actualContents() != null)
+              {
+                final var path = basePath.resolve(spec.path());
+                Files.createDirectories(path.getParent());
+                Files.writeString(path, spec.actualContents());
+              }
+          }
+
+        final var ref = new AtomicReference<Backup>();
+        final var backup = Backup.builder()
+                                 .id(Id.of("backup"))
+                                 .label("label")
+                                 .volumeId(Id.of("volume"))
+                                 .basePath(basePath)
+                                 .creationDate(LocalDateTime.of(2023, 3, 1, 0, 0))
+                                 .registrationDate(LocalDateTime.of(2023, 3, 1, 0, 0))
+                                 .latestCheckDate(Optional.empty())
+                                 .backupFiles(() -> specs.stream()
+                                                         .map(s -> new BackupFile(Id.of(s.path()),
+                                                                                  Path.of("/" + s.path()),
+                                                                                  createManagedFile(s),
+                                                                                  ref.get()))
+                                                         .toList())
+                                 .build();
+        ref.set(backup);
+        return backup;
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private static ManagedFile createManagedFile (@Nonnull final BackupFileSpec spec)
+      {
+        final var fingerprints = (spec.expectedContents() == null)
+                ? List.<Fingerprint>of()
+                : List.of(fingerprint("old contents", 1), fingerprint(spec.expectedContents(), 2));
+        return new ManagedFile(Id.of(spec.path()), Path.of("/managed/" + spec.path()), () -> fingerprints);
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private static Fingerprint fingerprint (@Nonnull final String contents, final int day)
+      {
+        return Fingerprint.builder()
+                          .id(Id.of(contents))
+                          .name("name")
+                          .algorithm("md5")
+                          .fingerprint(md5(contents))
+                          .timestamp(LocalDateTime.of(2023, 3, day, 0, 0))
+                          .build();
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private static String md5 (@Nonnull final String string)
+      {
+        return fingerprintToString(fingerprintOfString("md5", string));
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] parallelism()
+      {
+        return new Object[][] { { 1 }, { 8 } };
+      }
+
+    /******************************************************************************************************************/
+    private record BackupFileSpec (@Nonnull String path, String expectedContents, String actualContents) {}
+  }
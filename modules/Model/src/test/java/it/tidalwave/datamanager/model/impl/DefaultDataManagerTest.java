@@ -0,0 +1,136 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.model.impl;
+
+import jakarta.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import it.tidalwave.datamanager.model.BackupRegistration;
+import it.tidalwave.datamanager.model.DataManager;
+import it.tidalwave.datamanager.model.DuplicateCriteria;
+import it.tidalwave.datamanager.dao.DataManagerDao;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class DefaultDataManagerTest
+  {
+    private RecordingTransactionManager transactionManager;
+
+    private DataManager underTest;
+
+    /******************************************************************************************************************/
+    @BeforeMethod
+    public void setup()
+      {
+        transactionManager = new RecordingTransactionManager();
+        final var target = new DefaultDataManager(mock(DataManagerDao.class),
+                                                  mock(FingerprintingEngine.class),
+                                                  mock(BackupVerifier.class));
+        final var proxyFactory = new ProxyFactory(target);
+        proxyFactory.addAdvice(new TransactionInterceptor(transactionManager,
+                                                          new AnnotationTransactionAttributeSource()));
+        underTest = (DataManager)proxyFactory.getProxy();
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "finderMethods")
+    public void must_not_begin_transactions_when_creating_finders (@Nonnull final Consumer<DataManager> method)
+      {
+        // when
+        method.accept(underTest);
+        // then
+        // A transaction begun here would be a read-write one, routed to the writer pool
+        assertThat(transactionManager.begun, is(List.of()));
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_begin_read_write_transactions_when_registering_backups()
+      {
+        // when
+        underTest.registerBackup(BackupRegistration.builder().build());
+        // then
+        assertThat(transactionManager.begun.size(), is(1));
+        assertThat(transactionManager.begun.get(0).isReadOnly(), is(false));
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] finderMethods()
+      {
+        return new Object[][]
+          {
+            { (Consumer<DataManager>)DataManager::findManagedFiles                     },
+            { (Consumer<DataManager>)DataManager::findBackups                          },
+            { (Consumer<DataManager>)dm -> dm.findDuplicates(DuplicateCriteria.all()) }
+          };
+      }
+
+    /******************************************************************************************************************/
+    static class RecordingTransactionManager extends AbstractPlatformTransactionManager
+      {
+        private final List<TransactionDefinition> begun = new ArrayList<>();
+
+        @Override @Nonnull
+        protected Object doGetTransaction()
+          {
+            return new Object();
+          }
+
+        @Override
+        protected void doBegin (@Nonnull final Object transaction, @Nonnull final TransactionDefinition definition)
+          {
+            begun.add(definition);
+          }
+
+        @Override
+        protected void doCommit (@Nonnull final DefaultTransactionStatus status)
+          {
+          }
+
+        @Override
+        protected void doRollback (@Nonnull final DefaultTransactionStatus status)
+          {
+          }
+      }
+  }
@@ -0,0 +1,197 @@
+/*
+ * *********************************************************************************************************************
+ *
+ * SolidBlue 3: Data safety
+ * http://tidalwave.it/projects/solidblue3
+ *
+ * Copyright (C) 2023 - 2023 by Tidalwave s.a.s. (http://tidalwave.it)
+ *
+ * *********************************************************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * *********************************************************************************************************************
+ *
+ * git clone https://bitbucket.org/tidalwave/solidblue3j-src
+ * git clone https://github.com/tidalwave-it/solidblue3j-src
+ *
+ * *********************************************************************************************************************
+ */
+package it.tidalwave.datamanager.model.impl;
+
+import jakarta.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import it.tidalwave.datamanager.model.FileState;
+import it.tidalwave.datamanager.model.ScannedFile;
+import it.tidalwave.datamanager.dao.DataManagerDao;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static it.tidalwave.datamanager.model.DataManager.ScanMode.FULL;
+import static it.tidalwave.datamanager.model.DataManager.ScanMode.INCREMENTAL;
+import static it.tidalwave.datamanager.util.Utilities.MAPPED_REGION_SIZE;
+import static it.tidalwave.datamanager.util.Utilities.MAPPING_THRESHOLD;
+import static it.tidalwave.datamanager.util.Utilities.fingerprintToString;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/***********************************************************************************************************************
+ *
+ * @author      Fabrizio Giudici
+ *
+ **********************************************************************************************************************/
+public class FingerprintingEngineTest
+  {
+    private static final int FILE_COUNT = 1200;
+
+    private DataManagerDao dao;
+
+    private final List<ScannedFile> registered = new ArrayList<>();
+
+    private final Map<Path, FileState> states = new HashMap<>();
+
+    private Path folder;
+
+    private Map<Path, String> expected;
+
+    /******************************************************************************************************************/
+    @BeforeClass
+    public void createFiles()
+            throws IOException
+      {
+        folder = Files.createTempDirectory("scan");
+        final var random = new Random(342);
+        // A few files exercise the boundaries between reading and mapping, the others are small
+        final var sizes = List.of(0L, 1L, MAPPING_THRESHOLD - 1, MAPPING_THRESHOLD, MAPPED_REGION_SIZE + 1);
+        expected = IntStream.range(0, FILE_COUNT)
+                            .mapToObj(i -> folder.resolve("%d/file-%04d".formatted(i % 7, i)))
+                            .collect(toMap(p -> p, p -> createFile(p, random, sizes)));
+      }
+
+    /******************************************************************************************************************/
+    @BeforeMethod
+    public void setup()
+      {
+        registered.clear();
+        states.clear();
+        dao = mock(DataManagerDao.class);
+        when(dao.registerScannedFiles(anyList())).thenAnswer(invocation ->
+          {
+            final List<ScannedFile> scannedFiles = invocation.getArgument(0);
+            registered.addAll(scannedFiles);
+            scannedFiles.forEach(f -> states.put(f.getPath(), f.getState()));
+            return scannedFiles.size();
+          });
+        when(dao.findFileStates(anyCollection())).thenAnswer(invocation ->
+          {
+            final Collection<Path> paths = invocation.getArgument(0);
+            return paths.stream().filter(states::containsKey).collect(toMap(p -> p, states::get));
+          });
+      }
+
+    /******************************************************************************************************************/
+    @Test(dataProvider = "parallelism")
+    public void must_fingerprint_all_files (final int parallelism)
+      {
+        // given
+        final var underTest = new FingerprintingEngine(dao, parallelism);
+        // when
+        final var actualResult = underTest.scan(folder, FULL);
+        // then
+        final var actual = registered.stream().collect(toMap(ScannedFile::getPath, ScannedFile::getFingerprint));
+        assertThat(actual, is(expected));
+        assertThat(actualResult.getFileCount(), is(FILE_COUNT));
+        assertThat(actualResult.getErrorCount(), is(0));
+        assertThat(actualResult.getSkippedCount(), is(0));
+        assertThat(actualResult.getByteCount(), is(registered.stream().mapToLong(f -> f.getState().getSize()).sum()));
+        assertThat(registered.stream().allMatch(f -> f.getAlgorithm().equals("md5")), is(true));
+        // 500 + 500 + 200
+        verify(dao, times(3)).registerScannedFiles(anyList());
+        verify(dao, never()).findFileStates(anyCollection());
+      }
+
+    /******************************************************************************************************************/
+    @Test
+    public void must_only_fingerprint_new_or_changed_files_in_incremental_mode()
+            throws IOException
+      {
+        // given
+        final var folder = Files.createTempDirectory("incremental");
+        final var files = IntStream.range(0, 10).mapToObj(i -> folder.resolve("file-%d".formatted(i))).toList();
+
+        for (final var file : files)
+          {
+            Files.writeString(file, file.toString());
+          }
+
+        final var underTest = new FingerprintingEngine(dao, 4);
+        underTest.scan(folder, INCREMENTAL);
+        registered.clear();
+        Files.writeString(files.get(3), "changed contents");
+        final var newFile = Files.writeString(folder.resolve("new-file"), "new");
+        // when
+        final var actualResult = underTest.scan(folder, INCREMENTAL);
+        // then
+        final var actual = registered.stream().map(ScannedFile::getPath).collect(toSet());
+        assertThat(actual, is(Set.of(files.get(3), newFile)));
+        assertThat(actualResult.getFileCount(), is(2));
+        assertThat(actualResult.getSkippedCount(), is(9));
+      }
+
+    /******************************************************************************************************************/
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void must_reject_invalid_parallelism()
+      {
+        new FingerprintingEngine(dao, 0);
+      }
+
+    /******************************************************************************************************************/
+    @Nonnull
+    private String createFile (@Nonnull final Path path, @Nonnull final Random random, @Nonnull final List<Long> sizes)
+      {
+        try
+          {
+            final var index = Integer.parseInt(path.getFileName().toString().substring(5));
+            final var size = (index < sizes.size()) ? sizes.get(index) : random.nextInt(10_000);
+            final var bytes = new byte[Math.toIntExact(size)];
+            random.nextBytes(bytes);
+            Files.createDirectories(path.getParent());
+            Files.write(path, bytes);
+            return fingerprintToString(MessageDigest.getInstance("MD5").digest(bytes));
+          }
+        catch (IOException | NoSuchAlgorithmException e)
+          {
+            throw new RuntimeException(e);
+          }
+      }
+
+    /******************************************************************************************************************/
+    @DataProvider
+    private static Object[][] parallelism()
+      {
+        return new Object[][] { { 1 }, { 4 }, { 16 } };
+      }
+  }